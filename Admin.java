@@ -21,9 +21,55 @@ public class Admin extends User {
     /**
      * Adds a new flight to the system.
      *
+     * @param flight          The flight to be added.
+     * @param flightScheduler The scheduler holding the flights of the system.
+     */
+    public void addFlight(Flight flight, FlightScheduler flightScheduler) {
+        if (flight == null) {
+            System.out.println("Invalid flight. Cannot add null flight.");
+            return;
+        }
+        if (flightScheduler == null) {
+            System.out.println("Flight scheduler is null. Cannot add flight.");
+            return;
+        }
+        if (flightScheduler.addFlight(flight)) {
+            System.out.println("Flight added successfully: " + flight.getFlightNumber());
+        } else {
+            System.out.println("Flight already exists.");
+        }
+    }
+
+    /**
+     * Removes a flight from the system.
+     *
+     * @param flightNumber    The flight number of the flight to be removed.
+     * @param flightScheduler The scheduler holding the flights of the system.
+     */
+    public void removeFlight(String flightNumber, FlightScheduler flightScheduler) {
+        if (flightNumber == null || flightNumber.isEmpty()) {
+            System.out.println("Invalid flight number. Cannot remove flight.");
+            return;
+        }
+        if (flightScheduler == null) {
+            System.out.println("Flight scheduler is null. Cannot remove flight.");
+            return;
+        }
+        if (flightScheduler.deleteFlight(flightNumber) != null) {
+            System.out.println("Flight removed successfully: " + flightNumber);
+        } else {
+            System.out.println("Flight not found: " + flightNumber);
+        }
+    }
+
+    /**
+     * Adds a new flight to a list the caller owns.
+     *
      * @param flight The flight to be added.
-     * @param flightList The list of flights in the system.
+     * @param flightList A modifiable list of flights.
+     * @deprecated FlightScheduler.getFlightList() is read-only; use {@link #addFlight(Flight, FlightScheduler)}.
      */
+    @Deprecated
     public void addFlight(Flight flight, List<Flight> flightList) {
         if (flight == null) {
             System.out.println("Invalid flight. Cannot add null flight.");
@@ -42,11 +88,13 @@ public class Admin extends User {
     }
 
     /**
-     * Removes a flight from the system.
+     * Removes a flight from a list the caller owns.
      *
      * @param flightNumber The flight number of the flight to be removed.
-     * @param flightList The list of flights in the system.
+     * @param flightList A modifiable list of flights.
+     * @deprecated FlightScheduler.getFlightList() is read-only; use {@link #removeFlight(String, FlightScheduler)}.
      */
+    @Deprecated
     public void removeFlight(String flightNumber, List<Flight> flightList) {
         if (flightNumber == null || flightNumber.isEmpty()) {
             System.out.println("Invalid flight number. Cannot remove flight.");
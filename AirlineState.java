@@ -0,0 +1,335 @@
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The persistent state of the airline: scheduled flights, registered customers
+ * and the passengers holding bookings. Journal and snapshot records are applied
+ * to a state through apply(), which uses the same quiet operations as the live
+ * system but never writes to a journal itself.
+ */
+public class AirlineState {
+    private final FlightScheduler flightScheduler; // Scheduled flights
+    private final CustomerRepository customerRepository; // Registered customers
+    private final FlightReservation flightReservation; // Applies bookings and cancellations
+    private final ConcurrentHashMap<String, Passenger> passengersByPassport = new ConcurrentHashMap<>(); // Passengers holding bookings
+
+    /**
+     * Creates an empty state, e.g. to fold snapshots and journals into.
+     */
+    public AirlineState() {
+        this(new FlightScheduler(), new CustomerRepository(), new FlightReservation());
+    }
+
+    /**
+     * Creates a state over the given live components.
+     *
+     * @param flightScheduler    The scheduler holding the flights.
+     * @param customerRepository The repository holding the customers.
+     * @param flightReservation  The reservation service used to apply bookings.
+     */
+    public AirlineState(FlightScheduler flightScheduler, CustomerRepository customerRepository,
+                        FlightReservation flightReservation) {
+        this.flightScheduler = flightScheduler;
+        this.customerRepository = customerRepository;
+        this.flightReservation = flightReservation;
+        flightScheduler.setFlightReservation(flightReservation);
+    }
+
+    public FlightScheduler getFlightScheduler() {
+        return flightScheduler;
+    }
+
+    public CustomerRepository getCustomerRepository() {
+        return customerRepository;
+    }
+
+    public FlightReservation getFlightReservation() {
+        return flightReservation;
+    }
+
+    /**
+     * Finds a passenger restored from a snapshot or journal.
+     *
+     * @param passportNumber The passport number of the passenger.
+     * @return The passenger, or null if no booking was ever recorded for them.
+     */
+    public Passenger findPassenger(String passportNumber) {
+        return passengersByPassport.get(passportKey(passportNumber));
+    }
+
+    /**
+     * Registers a passenger unless one with the same passport number is known.
+     *
+     * @param passenger The passenger to register.
+     * @return The registered passenger with that passport number.
+     */
+    public Passenger registerPassenger(Passenger passenger) {
+        Passenger existing = passengersByPassport.putIfAbsent(passportKey(passenger.getPassportNumber()), passenger);
+        return existing != null ? existing : passenger;
+    }
+
+    public Collection<Passenger> getPassengers() {
+        return passengersByPassport.values();
+    }
+
+    private static String passportKey(String passportNumber) {
+        return passportNumber == null ? "" : passportNumber;
+    }
+
+    /**
+     * Applies one journal or snapshot record to the state.
+     *
+     * @param type    The type of the record, one of the BookingJournal record types.
+     * @param payload The encoded record, positioned at its first field.
+     */
+    void apply(byte type, ByteBuffer payload) {
+        switch (type) {
+            case BookingJournal.FLIGHT_SCHEDULED:
+                flightScheduler.addFlight(readFlight(payload));
+                break;
+            case BookingJournal.FLIGHT_REMOVED:
+                flightScheduler.deleteFlight(RecordCodec.getString(payload));
+                break;
+            case BookingJournal.FLIGHT_RESCHEDULED:
+                flightScheduler.rescheduleFlight(RecordCodec.getString(payload), RecordCodec.getString(payload));
+                break;
+            case BookingJournal.CUSTOMER_ADDED:
+                customerRepository.add(readCustomer(payload));
+                break;
+            case BookingJournal.CUSTOMER_UPDATED:
+                applyCustomerUpdate(readCustomer(payload));
+                break;
+            case BookingJournal.CUSTOMER_DELETED:
+                customerRepository.remove(RecordCodec.getString(payload));
+                break;
+            case BookingJournal.PASSENGER_REGISTERED:
+                registerPassenger(restorePassenger(payload));
+                break;
+            case BookingJournal.BOOKED:
+                applyBooking(payload, true);
+                break;
+            case BookingJournal.GROUP_BOOKED:
+                applyGroupBooking(payload);
+                break;
+            case BookingJournal.SEATS_BOOKED:
+            case BookingJournal.SEATS_CANCELED:
+            case BookingJournal.SNAPSHOT_SEATS: {
+                Flight flight = flightScheduler.lookupFlight(RecordCodec.getString(payload));
+                Passenger passenger = findPassenger(RecordCodec.getString(payload));
+                int[] seats = readSeats(payload);
+                if (flight == null || passenger == null) {
+                    break;
+                }
+                if (type == BookingJournal.SEATS_BOOKED) {
+                    flightReservation.restoreSeatBooking(flight, passenger, seats);
+                } else if (type == BookingJournal.SEATS_CANCELED) {
+                    flightReservation.tryCancelSeats(flight, passenger, seats);
+                } else {
+                    // The tickets were restored by the flight's SNAPSHOT_BOOKING records
+                    flight.restoreSeats(passenger, seats);
+                }
+                break;
+            }
+            case BookingJournal.CANCELED: {
+                Flight flight = flightScheduler.lookupFlight(RecordCodec.getString(payload));
+                Passenger passenger = findPassenger(RecordCodec.getString(payload));
+                flightReservation.tryCancel(flight, passenger, payload.getInt());
+                break;
+            }
+            case BookingJournal.SNAPSHOT_FLIGHT: {
+                Flight flight = readFlight(payload);
+                flight.setNumOfSeatsInTheFlight(payload.getInt());
+                flightScheduler.addFlight(flight);
+                break;
+            }
+            case BookingJournal.SNAPSHOT_BOOKING:
+                applyBooking(payload, false);
+                break;
+            default:
+                throw new IllegalStateException("Unknown record type: " + type);
+        }
+    }
+
+    private void applyBooking(ByteBuffer payload, boolean reserveSeats) {
+        Flight flight = flightScheduler.lookupFlight(RecordCodec.getString(payload));
+        Passenger passenger = findPassenger(RecordCodec.getString(payload));
+        int numOfTickets = payload.getInt();
+        if (flight == null || passenger == null) {
+            return;
+        }
+        if (reserveSeats) {
+            flightReservation.tryBook(flight, passenger, numOfTickets);
+        } else {
+            // Snapshot bookings are already accounted for in the flight's available seats
+            flight.addTickets(passenger, numOfTickets, null, null);
+        }
+    }
+
+    private void applyGroupBooking(ByteBuffer payload) {
+        Flight flight = flightScheduler.lookupFlight(RecordCodec.getString(payload));
+        int count = payload.getInt();
+        for (int i = 0; i < count; i++) {
+            Passenger passenger = findPassenger(RecordCodec.getString(payload));
+            int numOfTickets = payload.getInt();
+            if (flight != null && passenger != null) {
+                flightReservation.tryBook(flight, passenger, numOfTickets);
+            }
+        }
+    }
+
+    private void applyCustomerUpdate(Customer update) {
+        Customer customer = customerRepository.findByUserID(update.getUserID());
+        if (customer == null) {
+            return;
+        }
+        customer.setName(update.getName());
+        customerRepository.changeEmail(customer, update.getEmail());
+        customer.setPhone(update.getPhone());
+        customer.setAddress(update.getAddress());
+        customer.setAge(update.getAge());
+    }
+
+    /**
+     * Writes the whole state as snapshot records.
+     *
+     * @param codec The codec each record is encoded into.
+     * @param sink  Receives each encoded record with its type.
+     */
+    void writeSnapshotRecords(RecordCodec codec, RecordSink sink) {
+        for (Customer customer : customerRepository.asList()) {
+            writeCustomer(codec.clear(), customer);
+            sink.accept(BookingJournal.CUSTOMER_ADDED, codec.encoded());
+        }
+        for (Passenger passenger : passengersByPassport.values()) {
+            writePassenger(codec.clear(), passenger);
+            sink.accept(BookingJournal.PASSENGER_REGISTERED, codec.encoded());
+        }
+        for (Flight flight : flightScheduler.getFlightList()) {
+            writeFlight(codec.clear(), flight);
+            codec.putInt(flight.getNumOfSeatsInTheFlight());
+            sink.accept(BookingJournal.SNAPSHOT_FLIGHT, codec.encoded());
+            FlightRoster roster = flight.getRoster();
+            for (int i = 0; i < roster.size(); i++) {
+                int numOfTickets = roster.getTickets(i);
+                if (numOfTickets > 0) {
+                    writeBooking(codec.clear(), flight, roster.getPassenger(i), numOfTickets);
+                    sink.accept(BookingJournal.SNAPSHOT_BOOKING, codec.encoded());
+                }
+            }
+            // After all bookings, so the seat map is sized for the whole cabin when the first of them creates it
+            for (int i = 0; i < roster.size(); i++) {
+                int[] seats = flight.getSeats(roster.getPassenger(i));
+                if (seats.length > 0) {
+                    writeSeats(codec.clear(), flight, roster.getPassenger(i), seats);
+                    sink.accept(BookingJournal.SNAPSHOT_SEATS, codec.encoded());
+                }
+            }
+        }
+    }
+
+    /**
+     * Receives the encoded records of a snapshot.
+     */
+    interface RecordSink {
+        void accept(byte type, ByteBuffer payload);
+    }
+
+    //        ************************************************************ Record Layouts ************************************************************
+
+    static void writeFlight(RecordCodec codec, Flight flight) {
+        codec.putString(flight.getFlightNumber())
+                .putString(flight.getFromWhichCity())
+                .putString(flight.getToWhichCity())
+                .putString(flight.getGate())
+                .putDouble(flight.getDistanceInMiles())
+                .putDouble(flight.getDistanceInKm())
+                .putString(flight.getFlightTime())
+                .putInt(flight.getNumOfSeatsInTheFlight())
+                .putString(flight.getDestination())
+                .putString(flight.getDepartureTime());
+    }
+
+    static Flight readFlight(ByteBuffer in) {
+        Flight flight = new Flight(RecordCodec.getString(in), RecordCodec.getString(in), RecordCodec.getString(in),
+                RecordCodec.getString(in), in.getDouble(), in.getDouble(), RecordCodec.getString(in), in.getInt());
+        flight.setDestination(RecordCodec.getString(in));
+        flight.setDepartureTime(RecordCodec.getString(in));
+        return flight;
+    }
+
+    static void writeCustomer(RecordCodec codec, Customer customer) {
+        codec.putString(customer.getUserID())
+                .putString(customer.getName())
+                .putString(customer.getEmail())
+                .putString(customer.getPassword())
+                .putString(customer.getPhone())
+                .putString(customer.getAddress())
+                .putInt(customer.getAge());
+    }
+
+    static Customer readCustomer(ByteBuffer in) {
+        return new Customer(RecordCodec.getString(in), RecordCodec.getString(in), RecordCodec.getString(in),
+                RecordCodec.getString(in), RecordCodec.getString(in), RecordCodec.getString(in), in.getInt());
+    }
+
+    static void writePassenger(RecordCodec codec, Passenger passenger) {
+        codec.putString(passenger.getUserID())
+                .putString(passenger.getEmail())
+                .putString(passenger.getPassword())
+                .putString(passenger.getName())
+                .putString(passenger.getPhone())
+                .putString(passenger.getAddress())
+                .putInt(passenger.getAge())
+                .putString(passenger.getPassportNumber());
+    }
+
+    /**
+     * Reads a passenger record. A passenger of a registered customer is
+     * restored as that customer's passenger, so both share one identity and
+     * ledger as they did before the restart.
+     */
+    private Passenger restorePassenger(ByteBuffer in) {
+        Passenger passenger = readPassenger(in);
+        Customer customer = customerRepository.findByUserID(passenger.getUserID());
+        return customer != null ? customer.asPassenger(passenger.getPassportNumber()) : passenger;
+    }
+
+    static Passenger readPassenger(ByteBuffer in) {
+        return new Passenger(RecordCodec.getString(in), RecordCodec.getString(in), RecordCodec.getString(in),
+                RecordCodec.getString(in), RecordCodec.getString(in), RecordCodec.getString(in), in.getInt(),
+                RecordCodec.getString(in));
+    }
+
+    static void writeBooking(RecordCodec codec, Flight flight, Passenger passenger, int numOfTickets) {
+        codec.putString(flight.getFlightNumber())
+                .putString(passenger.getPassportNumber())
+                .putInt(numOfTickets);
+    }
+
+    static void writeSeats(RecordCodec codec, Flight flight, Passenger passenger, int[] seats) {
+        codec.putString(flight.getFlightNumber())
+                .putString(passenger.getPassportNumber())
+                .putInt(seats.length);
+        for (int seat : seats) {
+            codec.putInt(seat);
+        }
+    }
+
+    static int[] readSeats(ByteBuffer in) {
+        int[] seats = new int[in.getInt()];
+        for (int i = 0; i < seats.length; i++) {
+            seats[i] = in.getInt();
+        }
+        return seats;
+    }
+
+    static void writeGroupBooking(RecordCodec codec, Flight flight, Passenger[] passengers, int[] numOfTickets,
+                                  int count) {
+        codec.putString(flight.getFlightNumber()).putInt(count);
+        for (int i = 0; i < count; i++) {
+            codec.putString(passengers[i].getPassportNumber()).putInt(numOfTickets[i]);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * Typed outcome of a login attempt made through the AuthenticationService.
+ * Failed attempts share a single instance, so rejecting a login allocates nothing.
+ */
+public final class AuthenticationResult {
+    private static final AuthenticationResult FAILED = new AuthenticationResult(null); // Shared result for rejected logins
+
+    private final Customer customer; // Customer who logged in, null if the login failed
+
+    private AuthenticationResult(Customer customer) {
+        this.customer = customer;
+    }
+
+    static AuthenticationResult authenticated(Customer customer) {
+        return new AuthenticationResult(customer);
+    }
+
+    static AuthenticationResult failed() {
+        return FAILED;
+    }
+
+    public boolean isAuthenticated() {
+        return customer != null;
+    }
+
+    /**
+     * @return The customer who logged in, or null if the login failed.
+     */
+    public Customer getCustomer() {
+        return customer;
+    }
+
+    /**
+     * @return The userID of the customer who logged in, or null if the login failed.
+     */
+    public String getUserID() {
+        return customer == null ? null : customer.getUserID();
+    }
+
+    @Override
+    public String toString() {
+        return isAuthenticated() ? "Authenticated: " + customer.getUserID() : "Not authenticated";
+    }
+}
@@ -0,0 +1,91 @@
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Authenticates admins and passengers with a single hash lookup per attempt.
+ * Passengers are looked up through the email index of the customer store, and
+ * admin credentials are kept in their own index keyed by username.
+ */
+public class AuthenticationService {
+    private final CustomerRepository customerRepository; // Registered passengers, null to follow Customer's selected store
+    private final ConcurrentHashMap<String, AdminCredentials> adminsByUsername = new ConcurrentHashMap<>(); // Registered admins
+    private int nextAdminIndex; // Index handed to the next registered admin, guarded by this
+
+    /**
+     * Constructor to initialize the AuthenticationService.
+     *
+     * @param customerRepository The repository passengers are authenticated against.
+     */
+    public AuthenticationService(CustomerRepository customerRepository) {
+        this.customerRepository = customerRepository;
+    }
+
+    /**
+     * Creates an AuthenticationService that authenticates passengers against
+     * whichever store Customer.useCustomerStore last selected. A passenger
+     * found there is resolved to the registered Customer, so the login yields
+     * the identity that bookings are made against.
+     */
+    public AuthenticationService() {
+        this.customerRepository = null;
+    }
+
+    /**
+     * Registers an admin account.
+     *
+     * @param username of the admin
+     * @param password of the admin
+     * @return the index of the admin, or -1 if the username is invalid or already taken.
+     */
+    public synchronized int registerAdmin(String username, String password) {
+        if (username == null || password == null || adminsByUsername.containsKey(username)) {
+            return -1;
+        }
+        int index = nextAdminIndex++;
+        adminsByUsername.put(username, new AdminCredentials(index, password));
+        return index;
+    }
+
+    /**
+     * Checks the credentials of an admin.
+     *
+     * @param username of the admin
+     * @param password of the admin
+     * @return -1 if the admin is not found or the password is wrong, else the index of the admin.
+     */
+    public int authenticateAdmin(String username, String password) {
+        long start = Metrics.start();
+        AdminCredentials credentials = username == null || password == null ? null : adminsByUsername.get(username);
+        int index = credentials != null && password.equals(credentials.password) ? credentials.index : -1;
+        Metrics.AUTHENTICATE_ADMIN.record(start, index >= 0);
+        return index;
+    }
+
+    /**
+     * Checks the credentials of a passenger.
+     *
+     * @param email    of the passenger
+     * @param password of the passenger
+     * @return the typed result of the login attempt.
+     */
+    public AuthenticationResult authenticatePassenger(String email, String password) {
+        long start = Metrics.start();
+        Customer customer = password == null ? null
+                : customerRepository != null ? customerRepository.findByEmail(email) : Customer.lookUpByEmail(email);
+        boolean authenticated = customer != null && password.equals(customer.getPassword());
+        Metrics.AUTHENTICATE_PASSENGER.record(start, authenticated);
+        return authenticated ? AuthenticationResult.authenticated(customer) : AuthenticationResult.failed();
+    }
+
+    /**
+     * Index entry holding the password and index of a registered admin.
+     */
+    private static final class AdminCredentials {
+        private final int index;
+        private final String password;
+
+        private AdminCredentials(int index, String password) {
+            this.index = index;
+            this.password = password;
+        }
+    }
+}
@@ -0,0 +1,379 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongFunction;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only, memory-mapped journal of every change to the airline's state:
+ * scheduled, rescheduled and removed flights, added, edited and deleted
+ * customers, and bookings and cancellations.
+ * <p>
+ * Each record is stored as its length, a CRC32C checksum, its type and its
+ * payload. The mapped file grows by doubling, and the unused tail stays zeroed,
+ * so a zero length marks the end of the journal. A record that was torn by a
+ * crash fails its checksum and also ends the journal. Journals are read back
+ * with replay(), which must be called once before anything is appended.
+ * </p>
+ * <p>
+ * A journal is a chain of segment files. Positions are counted across the
+ * whole chain, so a position stays valid when a new segment is started:
+ * startSegment() seals the current file and continues appending to a new one
+ * whose first record is at the position the old one ended at. Once a snapshot
+ * is current up to that position, the sealed segments can be deleted.
+ * </p>
+ */
+public class BookingJournal implements Closeable {
+    static final byte FLIGHT_SCHEDULED = 1;
+    static final byte FLIGHT_REMOVED = 2;
+    static final byte CUSTOMER_ADDED = 3;
+    static final byte CUSTOMER_UPDATED = 4;
+    static final byte CUSTOMER_DELETED = 5;
+    static final byte PASSENGER_REGISTERED = 6;
+    static final byte BOOKED = 7;
+    static final byte CANCELED = 8;
+    static final byte SNAPSHOT_FLIGHT = 9; // Flight with its current available seats, only found in snapshots
+    static final byte SNAPSHOT_BOOKING = 10; // Booking whose seats are already taken, only found in snapshots
+    static final byte FLIGHT_RESCHEDULED = 11;
+    static final byte GROUP_BOOKED = 12; // Bookings of several passengers on one flight, committed together
+    static final byte SEATS_BOOKED = 13; // Booking with the seats assigned to its tickets
+    static final byte SEATS_CANCELED = 14; // Cancellation of particular seats
+    static final byte SNAPSHOT_SEATS = 15; // Seats held by a booking, only found in snapshots after the flight's bookings
+
+    private static final int MAGIC = 0x424A524E; // "BJRN"
+    private static final int VERSION = 1;
+    static final int HEADER_SIZE = 8; // Magic and version
+    private static final int RECORD_OVERHEAD = 9; // Length, checksum and type
+    private static final long INITIAL_SIZE = 64L * 1024 * 1024; // Size of a new journal file
+    private static final long MAX_SIZE = Integer.MAX_VALUE; // Largest segment a single mapping can hold
+    private static final long RESERVED_SIZE = 64L * 1024 * 1024; // Kept free for changes that passed checkCapacity()
+    private static final long GROWTH_MARGIN = 1024 * 1024; // Room checkCapacity() makes sure is already mapped
+
+    private FileChannel channel; // The current segment file
+    private MappedByteBuffer mapped; // Mapping of the whole current segment file
+    private long base; // Position of the first byte of the current segment file
+    private long offset = -1; // Where in the segment the next record is appended, -1 until replay() found the end
+    private final RecordCodec codec = new RecordCodec(256); // Encodes the record being appended
+    private final CRC32C checksum = new CRC32C(); // Checksums the record being appended
+    private final Set<String> registeredPassports = ConcurrentHashMap.newKeySet(); // Passengers already written to this journal
+
+    private BookingJournal(FileChannel channel, MappedByteBuffer mapped, long firstPosition) {
+        this.channel = channel;
+        this.mapped = mapped;
+        this.base = firstPosition - HEADER_SIZE;
+    }
+
+    /**
+     * Opens a journal that starts at the beginning of the chain, creating the file if it does not exist.
+     *
+     * @param file The journal file.
+     * @return The opened journal; call replay() before appending to it.
+     * @throws IOException if the file cannot be opened or is not a journal.
+     */
+    public static BookingJournal open(Path file) throws IOException {
+        return open(file, HEADER_SIZE);
+    }
+
+    /**
+     * Opens a segment of a journal, creating the file if it does not exist.
+     *
+     * @param file          The segment file.
+     * @param firstPosition The position of the segment's first record, HEADER_SIZE for the first segment.
+     * @return The opened segment; call replay() before appending to it.
+     * @throws IOException if the file cannot be opened or is not a journal.
+     */
+    public static BookingJournal open(Path file, long firstPosition) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        return new BookingJournal(channel, map(channel, file), firstPosition);
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, Path file) throws IOException {
+        try {
+            boolean isNew = channel.size() == 0;
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    Math.max(channel.size(), INITIAL_SIZE));
+            if (isNew) {
+                mapped.putInt(0, MAGIC);
+                mapped.putInt(4, VERSION);
+            } else if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+                throw new IOException("Not a booking journal: " + file);
+            }
+            return mapped;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Applies every record from the given position to the end of the journal
+     * and makes the journal ready for appending after the last intact record.
+     *
+     * @param fromPosition The position to start at, e.g. the journal position stored in a snapshot; records of
+     *                     earlier segments are skipped.
+     * @param state        The state to apply the records to, or null to only find the end.
+     * @return The number of records that were read.
+     */
+    public synchronized long replay(long fromPosition, AirlineState state) {
+        long[] end = new long[1];
+        long numOfRecords = read(mapped.duplicate(), fromPosition - base, Long.MAX_VALUE, state, end);
+        // Clear whatever a torn record left behind, so the end stays recognizable
+        for (long i = end[0]; i < Math.min(end[0] + RECORD_OVERHEAD, mapped.capacity()); i++) {
+            mapped.put((int) i, (byte) 0);
+        }
+        offset = end[0];
+        return numOfRecords;
+    }
+
+    /**
+     * Applies the records between two positions to a state without changing
+     * the journal. Only the records of the current segment are read.
+     *
+     * @param fromPosition The position of the first record to apply.
+     * @param toPosition   The position after the last record to apply.
+     * @param state        The state to apply the records to.
+     * @return The number of records that were read.
+     */
+    long replayRange(long fromPosition, long toPosition, AirlineState state) {
+        ByteBuffer view;
+        long viewBase;
+        synchronized (this) {
+            view = mapped.duplicate();
+            viewBase = base;
+        }
+        return read(view, fromPosition - viewBase, toPosition - viewBase, state, new long[1]);
+    }
+
+    private static long read(ByteBuffer view, long fromOffset, long toOffset, AirlineState state, long[] end) {
+        CRC32C crc = new CRC32C();
+        long numOfRecords = 0;
+        int offset = (int) Math.min(Math.max(fromOffset, HEADER_SIZE), view.capacity());
+        long limit = Math.min(toOffset, view.capacity());
+        while (offset + RECORD_OVERHEAD <= limit) {
+            int length = view.getInt(offset);
+            if (length <= 0 || offset + 8L + length > limit) {
+                break;
+            }
+            int storedChecksum = view.getInt(offset + 4);
+            ByteBuffer record = view.duplicate();
+            record.limit(offset + 8 + length).position(offset + 8);
+            crc.reset();
+            crc.update(record.duplicate());
+            if ((int) crc.getValue() != storedChecksum) {
+                break;
+            }
+            byte type = record.get();
+            if (state != null) {
+                try {
+                    state.apply(type, record.slice());
+                } catch (BufferUnderflowException e) {
+                    throw new IllegalStateException("Corrupt journal record at position " + offset, e);
+                }
+            }
+            numOfRecords++;
+            offset += 8 + length;
+        }
+        end[0] = offset;
+        return numOfRecords;
+    }
+
+    /**
+     * @return The position after the last record appended so far.
+     */
+    public synchronized long position() {
+        return offset < 0 ? -1 : base + offset;
+    }
+
+    /**
+     * Seals the current segment and continues the journal in a new, empty
+     * segment file whose first record is at the current position. Does
+     * nothing if the current segment is still empty.
+     *
+     * @param fileAtPosition Gives the file of the new segment for the position of its first record.
+     * @return The position of the new segment's first record, i.e. the end of the sealed segments.
+     * @throws IOException if the new segment cannot be created; the journal then stays in the current segment.
+     */
+    public synchronized long startSegment(LongFunction<Path> fileAtPosition) throws IOException {
+        if (offset < 0) {
+            throw new IllegalStateException("replay() must be called before starting a new segment.");
+        }
+        long firstPosition = base + offset;
+        if (offset == HEADER_SIZE) {
+            // The current segment is still empty, so it already starts at this position
+            return firstPosition;
+        }
+        Path file = fileAtPosition.apply(firstPosition);
+        FileChannel newChannel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        MappedByteBuffer newMapped;
+        try {
+            newMapped = map(newChannel, file);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        mapped.force();
+        channel.close();
+        channel = newChannel;
+        mapped = newMapped;
+        base = firstPosition - HEADER_SIZE;
+        offset = HEADER_SIZE;
+        return firstPosition;
+    }
+
+    /**
+     * Makes sure the records of a change can be appended before the change is
+     * applied: grows the segment ahead of time and refuses once it is close
+     * to the largest size a segment can have. The components call it before
+     * they change any state, so a full journal rejects the change rather than
+     * failing after it was made.
+     *
+     * @throws IllegalStateException if the segment is full or cannot be grown; nothing should be changed then.
+     */
+    public synchronized void checkCapacity() {
+        if (offset < 0) {
+            throw new IllegalStateException("replay() must be called before appending to the journal.");
+        }
+        if (offset + RESERVED_SIZE > MAX_SIZE) {
+            throw new IllegalStateException("Journal is full; take a checkpoint to start a new segment.");
+        }
+        ensureCapacity(GROWTH_MARGIN);
+    }
+
+    /**
+     * Forces appended records to be written to the storage device.
+     */
+    public synchronized void sync() {
+        mapped.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        mapped.force();
+        channel.close();
+    }
+
+    //        ************************************************************ Appending Records ************************************************************
+
+    public synchronized void recordFlightScheduled(Flight flight) {
+        AirlineState.writeFlight(codec.clear(), flight);
+        append(FLIGHT_SCHEDULED);
+    }
+
+    public synchronized void recordFlightRemoved(String flightNumber) {
+        codec.clear().putString(flightNumber);
+        append(FLIGHT_REMOVED);
+    }
+
+    public synchronized void recordFlightRescheduled(String flightNumber, String departureTime) {
+        codec.clear().putString(flightNumber).putString(departureTime);
+        append(FLIGHT_RESCHEDULED);
+    }
+
+    public synchronized void recordCustomerAdded(Customer customer) {
+        AirlineState.writeCustomer(codec.clear(), customer);
+        append(CUSTOMER_ADDED);
+    }
+
+    public synchronized void recordCustomerUpdated(Customer customer) {
+        AirlineState.writeCustomer(codec.clear(), customer);
+        append(CUSTOMER_UPDATED);
+    }
+
+    public synchronized void recordCustomerDeleted(String userID) {
+        codec.clear().putString(userID);
+        append(CUSTOMER_DELETED);
+    }
+
+    public synchronized void recordBooking(Flight flight, Passenger passenger, int numOfTickets) {
+        registerIfNew(passenger);
+        AirlineState.writeBooking(codec.clear(), flight, passenger, numOfTickets);
+        append(BOOKED);
+    }
+
+    public synchronized void recordSeatBooking(Flight flight, Passenger passenger, int[] seats) {
+        registerIfNew(passenger);
+        AirlineState.writeSeats(codec.clear(), flight, passenger, seats);
+        append(SEATS_BOOKED);
+    }
+
+    public synchronized void recordSeatCancellation(Flight flight, Passenger passenger, int[] seats) {
+        AirlineState.writeSeats(codec.clear(), flight, passenger, seats);
+        append(SEATS_CANCELED);
+    }
+
+    /**
+     * Records the bookings of a group on one flight as a single record, so
+     * the group costs one append and is replayed all or nothing. Passengers
+     * booking for the first time are registered in records ahead of it.
+     *
+     * @param flight       The booked flight.
+     * @param passengers   The passengers who booked.
+     * @param numOfTickets The number of tickets each passenger booked.
+     * @param count        The number of bookings in the arrays to record.
+     */
+    public synchronized void recordGroupBooking(Flight flight, Passenger[] passengers, int[] numOfTickets, int count) {
+        for (int i = 0; i < count; i++) {
+            registerIfNew(passengers[i]);
+        }
+        AirlineState.writeGroupBooking(codec.clear(), flight, passengers, numOfTickets, count);
+        append(GROUP_BOOKED);
+    }
+
+    private void registerIfNew(Passenger passenger) {
+        if (registeredPassports.add(passenger.getPassportNumber())) {
+            // The first booking of a passenger in this journal carries their details
+            AirlineState.writePassenger(codec.clear(), passenger);
+            append(PASSENGER_REGISTERED);
+        }
+    }
+
+    public synchronized void recordCancellation(Flight flight, Passenger passenger, int numOfTickets) {
+        AirlineState.writeBooking(codec.clear(), flight, passenger, numOfTickets);
+        append(CANCELED);
+    }
+
+    private void append(byte type) {
+        if (offset < 0) {
+            throw new IllegalStateException("replay() must be called before appending to the journal.");
+        }
+        ByteBuffer payload = codec.encoded();
+        int length = 1 + payload.remaining();
+        ensureCapacity(8L + length + RECORD_OVERHEAD);
+        checksum.reset();
+        checksum.update(type);
+        checksum.update(payload.duplicate());
+        int recordOffset = (int) offset;
+        mapped.put(recordOffset + 8, type);
+        mapped.put(recordOffset + 9, payload, 0, payload.remaining());
+        mapped.putInt(recordOffset + 4, (int) checksum.getValue());
+        // The length is written last, so a record only becomes visible once it is complete
+        mapped.putInt(recordOffset, length);
+        offset += 8 + length;
+    }
+
+    private void ensureCapacity(long numOfBytes) {
+        if (offset + numOfBytes <= mapped.capacity()) {
+            return;
+        }
+        long newSize = Math.min(Math.max((long) mapped.capacity() * 2, offset + numOfBytes), MAX_SIZE);
+        if (offset + numOfBytes > newSize) {
+            throw new IllegalStateException("Journal is full; take a checkpoint to start a new segment.");
+        }
+        try {
+            mapped.force();
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, newSize);
+        } catch (IOException e) {
+            throw new IllegalStateException("Journal could not be grown", e);
+        }
+    }
+}
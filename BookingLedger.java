@@ -0,0 +1,301 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Records how many tickets a passenger holds on each booked flight.
+ * Flights and ticket counts are kept in two dense arrays, so counts are stored
+ * as primitives and can never fall out of step with their flight, and an
+ * open-addressing hash table maps each flight to its position. Lookups,
+ * increments and decrements are O(1); removing a flight moves the last booking
+ * into its place.
+ * <p>
+ * Every change also publishes an immutable LedgerSnapshot. Passengers hold few
+ * bookings, so the copy is cheap, and displays read the snapshot without
+ * locking while bookings continue.
+ * </p>
+ */
+public class BookingLedger {
+    private static final int INITIAL_CAPACITY = 4; // Bookings held before the arrays first grow
+
+    private Flight[] flights = new Flight[INITIAL_CAPACITY]; // Booked flights, densely packed
+    private int[] tickets = new int[INITIAL_CAPACITY]; // Tickets held on the flight at the same position
+    private int[] slots = new int[INITIAL_CAPACITY * 2]; // Hash table of positions + 1, 0 marks an empty slot
+    private int size; // Number of booked flights
+    private long version; // Number of changes so far
+    private volatile LedgerSnapshot snapshot = LedgerSnapshot.EMPTY; // View of the latest state, replaced on every change
+
+    private final List<Flight> flightsView = new FlightsView(); // Read-only view of the booked flights
+    private final List<Integer> ticketsView = new TicketsView(); // Read-only view of the ticket counts
+
+    /**
+     * Returns the number of tickets held on the given flight.
+     *
+     * @param flight The flight to look up.
+     * @return The number of tickets, or 0 if the flight is not booked.
+     */
+    public synchronized int getTickets(Flight flight) {
+        int position = positionOf(flight);
+        return position < 0 ? 0 : tickets[position];
+    }
+
+    /**
+     * Checks whether the given flight is booked.
+     *
+     * @param flight The flight to check.
+     * @return true if at least one ticket is held on the flight, false otherwise.
+     */
+    public synchronized boolean contains(Flight flight) {
+        return positionOf(flight) >= 0;
+    }
+
+    /**
+     * Adds tickets to the given flight, booking the flight if it is not booked yet.
+     *
+     * @param flight       The flight to add tickets to.
+     * @param numOfTickets The number of tickets to add.
+     * @return The number of tickets now held on the flight.
+     */
+    public synchronized int addTickets(Flight flight, int numOfTickets) {
+        if (flight == null || numOfTickets <= 0) {
+            throw new IllegalArgumentException("Flight must be non-null and number of tickets positive.");
+        }
+        int position = positionOf(flight);
+        if (position >= 0) {
+            tickets[position] += numOfTickets;
+            publish();
+            return tickets[position];
+        }
+        if (size == flights.length) {
+            grow();
+        }
+        flights[size] = flight;
+        tickets[size] = numOfTickets;
+        insertSlot(flight, size);
+        size++;
+        publish();
+        return numOfTickets;
+    }
+
+    /**
+     * Removes tickets from the given flight. The flight is removed from the
+     * ledger once no tickets are left on it.
+     *
+     * @param flight       The flight to remove tickets from.
+     * @param numOfTickets The number of tickets to remove.
+     * @return The number of tickets left on the flight, or -1 if the flight is not
+     *         booked or holds fewer tickets than requested, in which case nothing changes.
+     */
+    public synchronized int removeTickets(Flight flight, int numOfTickets) {
+        int position = positionOf(flight);
+        if (position < 0 || numOfTickets <= 0 || tickets[position] < numOfTickets) {
+            return -1;
+        }
+        int remaining = tickets[position] - numOfTickets;
+        if (remaining == 0) {
+            removeAt(position);
+        } else {
+            tickets[position] = remaining;
+        }
+        publish();
+        return remaining;
+    }
+
+    /**
+     * Removes the given flight and all tickets held on it.
+     *
+     * @param flight The flight to remove.
+     * @return The number of tickets that were held on the flight, or 0 if it was not booked.
+     */
+    public synchronized int removeFlight(Flight flight) {
+        int position = positionOf(flight);
+        if (position < 0) {
+            return 0;
+        }
+        int removedTickets = tickets[position];
+        removeAt(position);
+        publish();
+        return removedTickets;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return A consistent view of the bookings as of the latest change, read without locking.
+     */
+    public LedgerSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return A read-only view of the booked flights; the ticket count of each
+     *         flight is at the same index of getTicketsView(). Each call reads
+     *         the latest snapshot, so use snapshot() to read several values
+     *         that must belong together.
+     */
+    public List<Flight> getFlightsView() {
+        return flightsView;
+    }
+
+    /**
+     * @return A read-only view of the ticket counts, parallel to getFlightsView().
+     */
+    public List<Integer> getTicketsView() {
+        return ticketsView;
+    }
+
+    /**
+     * Publishes the current state; called with the lock held after every change.
+     */
+    private void publish() {
+        snapshot = new LedgerSnapshot(++version, flights, tickets, size);
+    }
+
+    private static int hash(Flight flight) {
+        int h = flight.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @return The dense position of the flight, or -1 if it is not booked.
+     */
+    private int positionOf(Flight flight) {
+        if (flight == null || size == 0) {
+            return -1;
+        }
+        int mask = slots.length - 1;
+        for (int slot = hash(flight) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int position = slots[slot] - 1;
+            if (flights[position].equals(flight)) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    private int slotOf(int position) {
+        int mask = slots.length - 1;
+        int slot = hash(flights[position]) & mask;
+        while (slots[slot] != position + 1) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void insertSlot(Flight flight, int position) {
+        int mask = slots.length - 1;
+        int slot = hash(flight) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = position + 1;
+    }
+
+    private void removeAt(int position) {
+        deleteSlot(slotOf(position));
+        int last = size - 1;
+        if (position != last) {
+            // Move the last booking into the freed position and repoint its slot
+            int lastSlot = slotOf(last);
+            flights[position] = flights[last];
+            tickets[position] = tickets[last];
+            slots[lastSlot] = position + 1;
+        }
+        flights[last] = null;
+        tickets[last] = 0;
+        size--;
+    }
+
+    /**
+     * Empties a slot and shifts later entries of its probe chain back so that
+     * linear probing never stops early at the hole.
+     */
+    private void deleteSlot(int slot) {
+        int mask = slots.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (slots[next] != 0) {
+            int home = hash(flights[slots[next] - 1]) & mask;
+            // Move the entry into the hole if the hole lies between its home slot and its current slot
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                slots[hole] = slots[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        slots[hole] = 0;
+    }
+
+    private void grow() {
+        int capacity = flights.length * 2;
+        flights = Arrays.copyOf(flights, capacity);
+        tickets = Arrays.copyOf(tickets, capacity);
+        slots = new int[capacity * 2];
+        for (int position = 0; position < size; position++) {
+            insertSlot(flights[position], position);
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder("BookingLedger[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(flights[i].getFlightNumber()).append('=').append(tickets[i]);
+        }
+        return builder.append(']').toString();
+    }
+
+    /**
+     * Read-only list view over the booked flights.
+     */
+    private final class FlightsView extends AbstractList<Flight> {
+        @Override
+        public Flight get(int index) {
+            return snapshot.getFlight(index);
+        }
+
+        @Override
+        public int size() {
+            return snapshot.size();
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            if (!(o instanceof Flight)) {
+                return -1;
+            }
+            synchronized (BookingLedger.this) {
+                return positionOf((Flight) o);
+            }
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return indexOf(o) >= 0;
+        }
+    }
+
+    /**
+     * Read-only list view over the ticket counts.
+     */
+    private final class TicketsView extends AbstractList<Integer> {
+        @Override
+        public Integer get(int index) {
+            return snapshot.getTickets(index);
+        }
+
+        @Override
+        public int size() {
+            return snapshot.size();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Persists the airline's state in a directory holding a BookingJournal and the
+ * latest BookingSnapshot.
+ * <p>
+ * Opening restores the live components from the snapshot, replays only the
+ * part of the journal written after it, and then attaches the journal so that
+ * every further change is appended to it. Checkpoints build the next snapshot
+ * by folding the journal into the previous snapshot in a separate, private
+ * state, so they never read the live objects and never block bookings.
+ * </p>
+ * <p>
+ * Every checkpoint first starts a new journal segment and folds only the
+ * sealed segments into the snapshot; once the snapshot is written they are
+ * deleted, so the journal on disk never holds more than the changes since
+ * the last checkpoint. Segment files are named after the position of their
+ * first record, and a crash between sealing and deleting is harmless: the
+ * next open skips or replays the leftover segments as the snapshot requires.
+ * </p>
+ */
+public class BookingPersistence implements Closeable {
+    private static final String JOURNAL_FILE = "bookings.journal"; // The first segment of journals written before segments
+    private static final String SEGMENT_PREFIX = "bookings.";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String SNAPSHOT_FILE = "bookings.snapshot";
+
+    private final Path directory; // Directory holding the journal and snapshot
+    private final AirlineState state; // The live state being persisted
+    private final BookingJournal journal; // Journal the live components append to
+    private ScheduledExecutorService checkpointExecutor; // Takes periodic checkpoints, null if none are scheduled
+    private long snapshotPosition; // The journal position the snapshot on disk is current up to
+
+    private BookingPersistence(Path directory, AirlineState state, BookingJournal journal, long snapshotPosition) {
+        this.directory = directory;
+        this.state = state;
+        this.journal = journal;
+        this.snapshotPosition = snapshotPosition;
+    }
+
+    /**
+     * Restores the state from the directory and starts journaling its changes.
+     *
+     * @param directory The directory holding the journal and snapshot; created if missing.
+     * @param state     The live state to restore into, normally empty.
+     * @return The persistence of the state.
+     * @throws IOException if the journal or snapshot cannot be read.
+     */
+    public static BookingPersistence open(Path directory, AirlineState state) throws IOException {
+        Files.createDirectories(directory);
+        long journalPosition = BookingJournal.HEADER_SIZE;
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshot)) {
+            journalPosition = BookingSnapshot.read(snapshot, state);
+        }
+        TreeMap<Long, Path> segments = listSegments(directory);
+        if (segments.isEmpty()) {
+            segments.put(journalPosition, segmentFile(directory, journalPosition));
+        }
+        Map.Entry<Long, Path> last = segments.lastEntry();
+        for (Map.Entry<Long, Path> segment : segments.headMap(last.getKey()).entrySet()) {
+            Long next = segments.higherKey(segment.getKey());
+            if (next <= journalPosition) {
+                // Already folded into the snapshot by a checkpoint that did not get to delete it
+                Files.deleteIfExists(segment.getValue());
+            } else {
+                try (BookingJournal sealed = BookingJournal.open(segment.getValue(), segment.getKey())) {
+                    sealed.replay(journalPosition, state);
+                }
+            }
+        }
+        BookingJournal journal = BookingJournal.open(last.getValue(), last.getKey());
+        journal.replay(journalPosition, state);
+        state.getFlightScheduler().setJournal(journal);
+        state.getCustomerRepository().setJournal(journal);
+        state.getFlightReservation().setJournal(journal);
+        return new BookingPersistence(directory, state, journal, journalPosition);
+    }
+
+    public AirlineState getState() {
+        return state;
+    }
+
+    public BookingJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Starts a new journal segment, writes a new snapshot that is current up
+     * to the start of it and deletes the sealed segments.
+     *
+     * @throws IOException if the snapshot cannot be read or written.
+     */
+    public synchronized void checkpoint() throws IOException {
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (journal.position() <= snapshotPosition && Files.exists(snapshot)) {
+            return;
+        }
+        long endPosition = journal.startSegment(position -> segmentFile(directory, position));
+        AirlineState folded = new AirlineState();
+        long fromPosition = BookingJournal.HEADER_SIZE;
+        if (Files.exists(snapshot)) {
+            fromPosition = BookingSnapshot.read(snapshot, folded);
+        }
+        List<Path> sealed = new ArrayList<>();
+        for (Map.Entry<Long, Path> segment : listSegments(directory).headMap(endPosition).entrySet()) {
+            try (BookingJournal journalSegment = BookingJournal.open(segment.getValue(), segment.getKey())) {
+                journalSegment.replayRange(fromPosition, endPosition, folded);
+            }
+            sealed.add(segment.getValue());
+        }
+        BookingSnapshot.write(snapshot, folded, endPosition);
+        snapshotPosition = endPosition;
+        for (Path file : sealed) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static Path segmentFile(Path directory, long firstPosition) {
+        return directory.resolve(SEGMENT_PREFIX + firstPosition + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * @return The journal segments in the directory by the position of their first record.
+     */
+    private static TreeMap<Long, Path> listSegments(Path directory) throws IOException {
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                String name = file.getFileName().toString();
+                if (name.equals(JOURNAL_FILE)) {
+                    segments.put((long) BookingJournal.HEADER_SIZE, file);
+                } else if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    String position = name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length());
+                    if (!position.isEmpty() && position.chars().allMatch(Character::isDigit)) {
+                        segments.put(Long.parseLong(position), file);
+                    }
+                }
+            });
+        }
+        return segments;
+    }
+
+    /**
+     * Takes a checkpoint in the background at a fixed rate.
+     *
+     * @param period The time between checkpoints.
+     * @param unit   The unit of the period.
+     */
+    public synchronized void startPeriodicCheckpoints(long period, TimeUnit unit) {
+        if (checkpointExecutor != null) {
+            return;
+        }
+        checkpointExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "booking-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpointExecutor.scheduleAtFixedRate(() -> {
+            try {
+                checkpoint();
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Checkpoint failed: " + e);
+            }
+        }, period, period, unit);
+    }
+
+    /**
+     * Stops journaling, forces the journal to disk and stops periodic checkpoints.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (checkpointExecutor != null) {
+                checkpointExecutor.shutdownNow();
+                checkpointExecutor = null;
+            }
+        }
+        state.getFlightScheduler().setJournal(null);
+        state.getCustomerRepository().setJournal(null);
+        state.getFlightReservation().setJournal(null);
+        journal.close();
+    }
+}
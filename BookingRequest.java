@@ -0,0 +1,49 @@
+/**
+ * A request to book a number of tickets on a flight for a passenger.
+ * Used to submit bookings in batches through FlightReservation.bookFlights().
+ */
+public final class BookingRequest {
+    private final Flight flight; // The flight to be booked
+    private final Passenger passenger; // The passenger booking the flight
+    private final int numOfTickets; // The number of tickets to book
+
+    /**
+     * Constructor to initialize a BookingRequest.
+     *
+     * @param flight       The flight to be booked.
+     * @param passenger    The passenger booking the flight.
+     * @param numOfTickets The number of tickets to book.
+     */
+    public BookingRequest(Flight flight, Passenger passenger, int numOfTickets) {
+        this.flight = flight;
+        this.passenger = passenger;
+        this.numOfTickets = numOfTickets;
+    }
+
+    public Flight getFlight() {
+        return flight;
+    }
+
+    public Passenger getPassenger() {
+        return passenger;
+    }
+
+    public int getNumOfTickets() {
+        return numOfTickets;
+    }
+
+    /**
+     * @return true if the flight, passenger and number of tickets are all valid.
+     */
+    public boolean isValid() {
+        return flight != null && passenger != null && numOfTickets > 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Flight: %s, Passenger: %s, Tickets: %d",
+                flight != null ? flight.getFlightNumber() : "N/A",
+                passenger != null ? passenger.getName() : "N/A",
+                numOfTickets);
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * The outcome of a single BookingRequest.
+ */
+public final class BookingResult {
+
+    /**
+     * Possible outcomes of a booking request.
+     */
+    public enum Status {
+        BOOKED,
+        NOT_ENOUGH_SEATS,
+        INVALID_REQUEST
+    }
+
+    private final BookingRequest request; // The request this result belongs to
+    private final Status status; // The outcome of the request
+
+    /**
+     * Constructor to initialize a BookingResult.
+     *
+     * @param request The request this result belongs to.
+     * @param status  The outcome of the request.
+     */
+    public BookingResult(BookingRequest request, Status status) {
+        this.request = request;
+        this.status = status;
+    }
+
+    public BookingRequest getRequest() {
+        return request;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isBooked() {
+        return status == Status.BOOKED;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s -> %s", request, status);
+    }
+}
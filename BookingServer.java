@@ -0,0 +1,450 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embedded HTTP front end of the airline system, built on the JDK's
+ * com.sun.net.httpserver. Every response is JSON; parameters are read from the
+ * query string and, for POST requests, from a form-encoded body.
+ * <pre>
+ * GET  /flights/{flightNumber}                              one flight
+ * GET  /flights?from=&amp;to=[&amp;start=&amp;end=&amp;limit=&amp;cursor=]       departures of a route, paged
+ * GET  /routes?from=&amp;to=[&amp;mode=shortest|fewest]              connecting itinerary
+ * POST /bookings?flight=&amp;passport=&amp;tickets=&amp;userID=&amp;password=
+ *                                                           book tickets for the caller's passport
+ * POST /bookings/cancel?flight=&amp;passport=&amp;tickets=&amp;userID=&amp;password=
+ *                                                           cancel tickets of the caller's passport
+ * GET  /customers/{userID}, GET /customers?email=           one customer
+ * GET  /metrics                                             counters and latencies of the hot paths
+ * </pre>
+ * <p>
+ * Requests run one per virtual thread when the JDK provides them and on a
+ * bounded pool of platform threads otherwise. At most maxConcurrent requests
+ * are handled at once and at most maxQueued more wait for a turn; anything
+ * beyond that is answered immediately with 503, so overload never builds an
+ * unbounded backlog. Idle connections only cost a selector key, so many
+ * thousands of them can stay open.
+ * </p>
+ * <p>
+ * Every booking and cancellation needs the userID and password of the
+ * passport's owner: the registered customer the passenger belongs to, or,
+ * for a passenger without an account, the userID and password the passenger
+ * was registered with. A customer's first booking links a new passport to
+ * them.
+ * </p>
+ */
+public class BookingServer implements Closeable {
+    private static final int BACKLOG = 8192; // Pending TCP connections the OS keeps for the server
+    private static final long QUEUE_TIMEOUT_MILLIS = 2_000; // Longest a queued request waits for a turn
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 1_000;
+
+    static {
+        // The JDK server writes the headers and the body of a response separately; with Nagle's algorithm on, the
+        // body then waits for the client's delayed ACK, adding about 40 ms to every response. It reads this
+        // property once, when the first server is created, so an explicit setting by the user still wins.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final AirlineState state; // Flights, customers and passengers being served
+    private final RouteEngine routeEngine; // Answers /routes
+    private final RequestAdmission admission; // Bounds concurrent and queued requests
+    private final HttpServer server; // Accepts connections and parses HTTP
+    private final ExecutorService executor; // Runs the requests
+
+    private BookingServer(AirlineState state, HttpServer server, int maxConcurrent, int maxQueued) {
+        this.state = state;
+        this.routeEngine = new RouteEngine(state.getFlightScheduler());
+        this.admission = new RequestAdmission(maxConcurrent, maxQueued, QUEUE_TIMEOUT_MILLIS);
+        this.server = server;
+        this.executor = newRequestExecutor(maxConcurrent + maxQueued);
+        server.setExecutor(executor);
+        register("/flights", this::flights);
+        register("/routes", this::routes);
+        register("/bookings", this::bookings);
+        register("/customers", this::customers);
+        register("/metrics", (method, subPath, params) -> new Response(200, Metrics.snapshotJson()));
+    }
+
+    /**
+     * Starts a server.
+     *
+     * @param address       The address to listen on; port 0 picks a free port.
+     * @param state         The state to serve.
+     * @param maxConcurrent The maximum number of requests handled at once.
+     * @param maxQueued     The maximum number of requests waiting for a turn.
+     * @return The running server.
+     * @throws IOException if the address cannot be bound.
+     */
+    public static BookingServer start(InetSocketAddress address, AirlineState state, int maxConcurrent, int maxQueued)
+            throws IOException {
+        BookingServer bookingServer = new BookingServer(state, HttpServer.create(address, BACKLOG), maxConcurrent,
+                maxQueued);
+        bookingServer.server.start();
+        return bookingServer;
+    }
+
+    /**
+     * @return The port the server listens on.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @return The number of requests answered with 503 because the server was full.
+     */
+    public long getRejectedRequests() {
+        return admission.getRejected();
+    }
+
+    /**
+     * Stops accepting connections, lets running requests finish for up to a second and stops the threads.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs one request per virtual thread if the JDK supports them, otherwise
+     * on up to maxThreads platform threads. When all platform threads are
+     * busy the accepting thread runs the request itself, which only answers
+     * 503 because admission is full, and so slows down accepting.
+     */
+    private static ExecutorService newRequestExecutor(int maxThreads) {
+        try {
+            Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(maxThreads, maxThreads, 30, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(), runnable -> {
+                        Thread thread = new Thread(runnable, "booking-server");
+                        thread.setDaemon(true);
+                        return thread;
+                    }, new ThreadPoolExecutor.CallerRunsPolicy());
+            pool.allowCoreThreadTimeOut(true);
+            return pool;
+        }
+    }
+
+    //        ************************************************************ Request Handling ************************************************************
+
+    /**
+     * Handles a request whose parameters were already parsed.
+     */
+    private interface Endpoint {
+        Response handle(String method, String subPath, Map<String, String> params);
+    }
+
+    /**
+     * Status and JSON body of a response.
+     */
+    private static final class Response {
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        static Response error(int status, String message) {
+            return new Response(status, new JsonWriter().beginObject().field("error", message).endObject().toString());
+        }
+    }
+
+    private void register(String path, Endpoint endpoint) {
+        server.createContext(path, exchange -> serve(exchange, path, endpoint));
+    }
+
+    private void serve(HttpExchange exchange, String contextPath, Endpoint endpoint) throws IOException {
+        try (exchange) {
+            if (!admission.enter()) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                send(exchange, Response.error(503, "Server busy, try again later"));
+                return;
+            }
+            try {
+                Response response;
+                try {
+                    Map<String, String> params = parseParameters(exchange);
+                    String subPath = exchange.getRequestURI().getPath().substring(contextPath.length());
+                    response = endpoint.handle(exchange.getRequestMethod(), subPath, params);
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    response = Response.error(400, e.getMessage());
+                } catch (RuntimeException e) {
+                    // The details stay in the server's log; the query string is left out, as it may hold a password
+                    System.err.println("Request failed: " + exchange.getRequestMethod() + " "
+                            + exchange.getRequestURI().getPath());
+                    e.printStackTrace();
+                    response = Response.error(500, "Internal error");
+                }
+                send(exchange, response);
+            } finally {
+                admission.exit();
+            }
+        }
+    }
+
+    private static void send(HttpExchange exchange, Response response) throws IOException {
+        byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static Map<String, String> parseParameters(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        parseForm(exchange.getRequestURI().getRawQuery(), params);
+        if ("POST".equals(exchange.getRequestMethod())) {
+            try (InputStream in = exchange.getRequestBody()) {
+                parseForm(new String(in.readAllBytes(), StandardCharsets.UTF_8), params);
+            }
+        }
+        return params;
+    }
+
+    private static void parseForm(String form, Map<String, String> params) {
+        if (form == null || form.isEmpty()) {
+            return;
+        }
+        for (String pair : form.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+        return value;
+    }
+
+    private static int intParameter(Map<String, String> params, String name, int defaultValue) {
+        String value = params.get(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parameter " + name + " is not a number: " + value);
+        }
+    }
+
+    private static String pathSegment(String subPath) {
+        String segment = subPath.startsWith("/") ? subPath.substring(1) : subPath;
+        return URLDecoder.decode(segment, StandardCharsets.UTF_8);
+    }
+
+    //        ************************************************************ Endpoints ************************************************************
+
+    private Response flights(String method, String subPath, Map<String, String> params) {
+        if (!"GET".equals(method)) {
+            return Response.error(405, "Use GET");
+        }
+        FlightScheduler scheduler = state.getFlightScheduler();
+        if (!subPath.isEmpty() && !subPath.equals("/")) {
+            Flight flight = scheduler.lookupFlight(pathSegment(subPath));
+            if (flight == null) {
+                return Response.error(404, "Flight not found");
+            }
+            return new Response(200, writeFlight(new JsonWriter(), flight).toString());
+        }
+        Instant start = params.containsKey("start") ? Instant.parse(params.get("start")) : Instant.EPOCH;
+        Instant end = params.containsKey("end") ? Instant.parse(params.get("end")) : Instant.MAX;
+        int limit = Math.min(MAX_PAGE_SIZE, intParameter(params, "limit", DEFAULT_PAGE_SIZE));
+        DeparturePage page = scheduler.findDepartures(required(params, "from"), required(params, "to"), start, end,
+                parseCursor(params.get("cursor")), limit);
+        JsonWriter json = new JsonWriter().beginObject().name("flights").beginArray();
+        for (Flight flight : page.getFlights()) {
+            writeFlight(json, flight);
+        }
+        json.endArray().field("nextCursor", formatCursor(page.getNextCursor()));
+        return new Response(200, json.endObject().toString());
+    }
+
+    private static DeparturePage.Cursor parseCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        int colon = cursor.indexOf(':');
+        try {
+            return new DeparturePage.Cursor(Long.parseLong(cursor.substring(0, colon)), cursor.substring(colon + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private static String formatCursor(DeparturePage.Cursor cursor) {
+        return cursor == null ? null : cursor.departureEpochSecond + ":" + cursor.flightKey;
+    }
+
+    private Response routes(String method, String subPath, Map<String, String> params) {
+        if (!"GET".equals(method)) {
+            return Response.error(405, "Use GET");
+        }
+        String from = required(params, "from");
+        String to = required(params, "to");
+        Itinerary itinerary = "fewest".equalsIgnoreCase(params.get("mode"))
+                ? routeEngine.findFewestHopsRoute(from, to) : routeEngine.findShortestRoute(from, to);
+        if (itinerary == null) {
+            return Response.error(404, "No route found");
+        }
+        JsonWriter json = new JsonWriter().beginObject()
+                .field("totalDistanceInKm", itinerary.getTotalDistanceInKm())
+                .field("numOfConnections", itinerary.getNumOfConnections())
+                .name("legs").beginArray();
+        for (Flight leg : itinerary.getLegs()) {
+            writeFlight(json, leg);
+        }
+        return new Response(200, json.endArray().endObject().toString());
+    }
+
+    private Response bookings(String method, String subPath, Map<String, String> params) {
+        if (!"POST".equals(method)) {
+            return Response.error(405, "Use POST");
+        }
+        boolean cancel = subPath.equals("/cancel");
+        if (!cancel && !subPath.isEmpty()) {
+            return Response.error(404, "Unknown path");
+        }
+        Flight flight = state.getFlightScheduler().lookupFlight(required(params, "flight"));
+        if (flight == null) {
+            return Response.error(404, "Flight not found");
+        }
+        int numOfTickets = intParameter(params, "tickets", 1);
+        String passport = required(params, "passport");
+        String userID = required(params, "userID");
+        String password = required(params, "password");
+        Passenger passenger = state.findPassenger(passport);
+        if (passenger == null) {
+            if (cancel) {
+                return Response.error(404, "Passenger not found");
+            }
+            Customer customer = authenticateCustomer(userID, password);
+            if (customer == null) {
+                return Response.error(401, "Invalid userID or password");
+            }
+            // First booking of a registered customer: they book as their passenger, created with the given passport
+            state.registerPassenger(customer.asPassenger(passport));
+            passenger = state.findPassenger(passport);
+            if (passenger == null) {
+                return Response.error(409, "Customer already books with another passport");
+            }
+        }
+        // A linked passenger answers with its customer's userID and password, an unlinked one with its own
+        if (!userID.equals(passenger.getUserID()) || !password.equals(passenger.getPassword())) {
+            return authenticateCustomer(userID, password) != null
+                    ? Response.error(403, "Passport belongs to another customer")
+                    : Response.error(401, "Invalid userID or password");
+        }
+        FlightReservation reservation = state.getFlightReservation();
+        boolean done = cancel ? reservation.tryCancel(flight, passenger, numOfTickets)
+                : reservation.tryBook(flight, passenger, numOfTickets);
+        if (!done) {
+            return Response.error(409, cancel ? "Not enough tickets booked to cancel" : "Not enough seats available");
+        }
+        return new Response(200, new JsonWriter().beginObject()
+                .field(cancel ? "canceled" : "booked", numOfTickets)
+                .field("flightNumber", flight.getFlightNumber())
+                .field("ticketsHeld", passenger.getBookingLedger().getTickets(flight))
+                .field("availableSeats", flight.getNumOfSeatsInTheFlight())
+                .endObject().toString());
+    }
+
+    /**
+     * @return The customer with the given userID and password, or null if there is none or the password is wrong.
+     */
+    private Customer authenticateCustomer(String userID, String password) {
+        Customer customer = state.getCustomerRepository().findByUserID(userID);
+        return customer != null && password.equals(customer.getPassword()) ? customer : null;
+    }
+
+    private Response customers(String method, String subPath, Map<String, String> params) {
+        if (!"GET".equals(method)) {
+            return Response.error(405, "Use GET");
+        }
+        CustomerRepository repository = state.getCustomerRepository();
+        Customer customer = !subPath.isEmpty() && !subPath.equals("/")
+                ? repository.findByUserID(pathSegment(subPath)) : repository.findByEmail(required(params, "email"));
+        if (customer == null) {
+            return Response.error(404, "Customer not found");
+        }
+        return new Response(200, new JsonWriter().beginObject()
+                .field("userID", customer.getUserID())
+                .field("name", customer.getName())
+                .field("email", customer.getEmail())
+                .field("phone", customer.getPhone())
+                .field("address", customer.getAddress())
+                .field("age", customer.getAge())
+                .endObject().toString());
+    }
+
+    private static JsonWriter writeFlight(JsonWriter json, Flight flight) {
+        return json.beginObject()
+                .field("flightNumber", flight.getFlightNumber())
+                .field("fromWhichCity", flight.getFromWhichCity())
+                .field("toWhichCity", flight.getToWhichCity())
+                .field("gate", flight.getGate())
+                .field("distanceInKm", flight.getDistanceInKm())
+                .field("flightTime", flight.getFlightTime())
+                .field("departureTime", flight.getDepartureTime())
+                .field("availableSeats", flight.getNumOfSeatsInTheFlight())
+                .endObject();
+    }
+
+    /**
+     * Serves the state persisted in a directory, or an empty state.
+     * <p>
+     * Usage: java BookingServer [port] [data directory] [max concurrent] [max queued]
+     * (defaults: port 8080, no persistence, 256 concurrent, 4096 queued).
+     * </p>
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        int maxConcurrent = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+        int maxQueued = args.length > 3 ? Integer.parseInt(args[3]) : 4096;
+        AirlineState state = new AirlineState();
+        if (args.length > 1) {
+            BookingPersistence persistence = BookingPersistence.open(Paths.get(args[1]), state);
+            persistence.startPeriodicCheckpoints(5, TimeUnit.MINUTES);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    persistence.close();
+                } catch (IOException e) {
+                    System.err.println("Could not close the journal: " + e);
+                }
+            }));
+        }
+        BookingServer bookingServer = start(new InetSocketAddress(port), state, maxConcurrent, maxQueued);
+        System.out.println("Booking server listening on port " + bookingServer.getPort());
+    }
+}
@@ -0,0 +1,132 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Compact binary snapshot of the airline's state, together with the journal
+ * position it is current up to. A snapshot holds one record per customer,
+ * passenger, flight and booking, using the same record layouts as the
+ * BookingJournal, and is streamed through a single large buffer in both
+ * directions.
+ */
+public final class BookingSnapshot {
+    private static final int MAGIC = 0x42534E50; // "BSNP"
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 20; // Bytes read or written per I/O call
+
+    private BookingSnapshot() {
+    }
+
+    /**
+     * Writes a snapshot of the state. The snapshot is written to a temporary
+     * file first and then moved over the old one, so a crash never leaves a
+     * half-written snapshot behind.
+     *
+     * @param file            The snapshot file.
+     * @param state           The state to write.
+     * @param journalPosition The journal position the state is current up to.
+     * @throws IOException if the snapshot cannot be written.
+     */
+    public static void write(Path file, AirlineState state, long journalPosition) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            out.putInt(MAGIC).putInt(VERSION).putLong(journalPosition);
+            try {
+                state.writeSnapshotRecords(new RecordCodec(256), (type, payload) -> {
+                    if (out.remaining() < 5 + payload.remaining()) {
+                        drain(channel, out);
+                    }
+                    if (out.remaining() < 5 + payload.remaining()) {
+                        throw new IllegalStateException("Snapshot record too large: " + payload.remaining() + " bytes");
+                    }
+                    out.putInt(1 + payload.remaining()).put(type).put(payload);
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (out.remaining() < 4) {
+                drain(channel, out);
+            }
+            out.putInt(0);
+            drain(channel, out);
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer out) {
+        out.flip();
+        try {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        out.clear();
+    }
+
+    /**
+     * Reads a snapshot into the state.
+     *
+     * @param file  The snapshot file.
+     * @param state The state to restore the snapshot into, normally empty.
+     * @return The journal position the snapshot is current up to.
+     * @throws IOException if the snapshot cannot be read or is not a snapshot.
+     */
+    public static long read(Path file, AirlineState state) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+            in.flip();
+            fill(channel, in, 16);
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+                throw new IOException("Not a booking snapshot: " + file);
+            }
+            long journalPosition = in.getLong();
+            while (true) {
+                fill(channel, in, 4);
+                int length = in.getInt();
+                if (length == 0) {
+                    return journalPosition;
+                }
+                if (length < 0 || length > BUFFER_SIZE) {
+                    throw new IOException("Corrupt snapshot record in " + file);
+                }
+                fill(channel, in, length);
+                ByteBuffer record = in.slice();
+                record.limit(length);
+                byte type = record.get();
+                try {
+                    state.apply(type, record.slice());
+                } catch (BufferUnderflowException e) {
+                    throw new IOException("Corrupt snapshot record in " + file, e);
+                }
+                in.position(in.position() + length);
+            }
+        }
+    }
+
+    /**
+     * Makes sure at least the given number of bytes can be read from the buffer.
+     */
+    private static void fill(FileChannel channel, ByteBuffer in, int numOfBytes) throws IOException {
+        if (in.remaining() >= numOfBytes) {
+            return;
+        }
+        in.compact();
+        while (in.position() < numOfBytes) {
+            if (channel.read(in) < 0) {
+                throw new IOException("Snapshot ends unexpectedly");
+            }
+        }
+        in.flip();
+    }
+}
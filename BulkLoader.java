@@ -0,0 +1,327 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+
+/**
+ * Loads large numbers of flights and customers from files in a single pass,
+ * without prompting for each field.
+ * <p>
+ * Two formats are supported, both read through a FileChannel:
+ * </p>
+ * <ul>
+ *     <li>CSV, one flight or customer per row, with an optional header row:
+ *     <pre>flightNumber,fromWhichCity,toWhichCity,gate,distanceInMiles,distanceInKm,flightTime,numOfSeats[,departureTime]</pre>
+ *     <pre>userID,name,email,password,phone,address,age</pre>
+ *     Empty distance columns are filled in from the RouteDistanceMatrix.</li>
+ *     <li>A compact binary format written by writeBinary(), which holds flights
+ *     and customers in the same record layouts as the BookingJournal.</li>
+ * </ul>
+ * <p>
+ * Rows are inserted with the quiet FlightScheduler.addFlight() and
+ * CustomerRepository.add(), so uniqueness is checked against their hash
+ * indexes. Malformed and duplicate rows are counted as rejected rather than
+ * stopping the load.
+ * </p>
+ */
+public class BulkLoader {
+    private static final int BINARY_MAGIC = 0x42424C4B; // "BBLK"
+    private static final int BINARY_VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 20; // Bytes read or written per I/O call
+    private static final int NUM_OF_FLIGHT_COLUMNS = 8; // Required flight columns, departureTime is optional
+    private static final int NUM_OF_CUSTOMER_COLUMNS = 7;
+
+    private final FlightScheduler flightScheduler; // Receives the loaded flights
+    private final CustomerRepository customerRepository; // Receives the loaded customers
+
+    /**
+     * Creates a loader that inserts into the given stores.
+     *
+     * @param flightScheduler    The scheduler to add flights to.
+     * @param customerRepository The repository to add customers to.
+     */
+    public BulkLoader(FlightScheduler flightScheduler, CustomerRepository customerRepository) {
+        this.flightScheduler = flightScheduler;
+        this.customerRepository = customerRepository;
+    }
+
+    //        ************************************************************ CSV ************************************************************
+
+    /**
+     * Loads flights from a CSV file.
+     *
+     * @param file The CSV file, optionally starting with a header row.
+     * @return The report of the load.
+     * @throws IOException if the file cannot be read.
+     */
+    public LoadReport loadFlightsCsv(Path file) throws IOException {
+        long startTime = System.nanoTime();
+        RowCounter counter = new RowCounter();
+        try (CsvReader reader = new CsvReader(FileChannel.open(file, StandardOpenOption.READ))) {
+            while (reader.next()) {
+                if (reader.isBlank() || (reader.getRowNumber() == 1 && isHeader(reader, "flightNumber"))) {
+                    continue;
+                }
+                counter.rowsRead++;
+                if (reader.size() < NUM_OF_FLIGHT_COLUMNS) {
+                    counter.reject(reader.getRowNumber(), "expected at least " + NUM_OF_FLIGHT_COLUMNS + " columns");
+                    continue;
+                }
+                Flight flight;
+                try {
+                    flight = readFlight(reader);
+                } catch (IllegalArgumentException e) {
+                    counter.reject(reader.getRowNumber(), e.getMessage());
+                    continue;
+                }
+                if (flightScheduler.addFlight(flight)) {
+                    counter.rowsLoaded++;
+                } else {
+                    counter.reject(reader.getRowNumber(), "duplicate flight " + flight.getFlightNumber());
+                }
+            }
+        }
+        return counter.report(file, startTime);
+    }
+
+    private static Flight readFlight(CsvReader reader) {
+        String flightNumber = reader.get(0);
+        String fromWhichCity = reader.get(1);
+        String toWhichCity = reader.get(2);
+        if (flightNumber.isBlank()) {
+            throw new IllegalArgumentException("missing flight number");
+        }
+        double distanceInMiles;
+        double distanceInKm;
+        if (reader.isEmpty(4) || reader.isEmpty(5)) {
+            RouteDistanceMatrix matrix = RouteDistanceMatrix.getInstance();
+            distanceInKm = matrix.distanceInKm(fromWhichCity, toWhichCity);
+            if (Double.isNaN(distanceInKm)) {
+                throw new IllegalArgumentException("no distance given and unknown route " + fromWhichCity + " - " + toWhichCity);
+            }
+            distanceInMiles = distanceInKm * RouteDistanceMatrix.MILES_PER_KM;
+        } else {
+            distanceInMiles = reader.getDouble(4);
+            distanceInKm = reader.getDouble(5);
+        }
+        int numOfSeats = reader.getInt(7);
+        if (numOfSeats < 0) {
+            throw new IllegalArgumentException("negative number of seats");
+        }
+        Flight flight = new Flight(flightNumber, fromWhichCity, toWhichCity, reader.get(3), distanceInMiles,
+                distanceInKm, reader.get(6), numOfSeats);
+        if (reader.size() > NUM_OF_FLIGHT_COLUMNS && !reader.isEmpty(NUM_OF_FLIGHT_COLUMNS)) {
+            flight.setDepartureTime(reader.get(NUM_OF_FLIGHT_COLUMNS));
+        }
+        return flight;
+    }
+
+    /**
+     * Loads customers from a CSV file.
+     *
+     * @param file The CSV file, optionally starting with a header row.
+     * @return The report of the load.
+     * @throws IOException if the file cannot be read.
+     */
+    public LoadReport loadCustomersCsv(Path file) throws IOException {
+        long startTime = System.nanoTime();
+        RowCounter counter = new RowCounter();
+        try (CsvReader reader = new CsvReader(FileChannel.open(file, StandardOpenOption.READ))) {
+            while (reader.next()) {
+                if (reader.isBlank() || (reader.getRowNumber() == 1 && isHeader(reader, "userID"))) {
+                    continue;
+                }
+                counter.rowsRead++;
+                if (reader.size() < NUM_OF_CUSTOMER_COLUMNS) {
+                    counter.reject(reader.getRowNumber(), "expected " + NUM_OF_CUSTOMER_COLUMNS + " columns");
+                    continue;
+                }
+                int age;
+                try {
+                    age = reader.getInt(6);
+                } catch (NumberFormatException e) {
+                    counter.reject(reader.getRowNumber(), e.getMessage());
+                    continue;
+                }
+                Customer customer = new Customer(reader.get(0), reader.get(1), reader.get(2), reader.get(3),
+                        reader.get(4), reader.get(5), age);
+                if (customer.getUserID().isBlank() || customer.getEmail().isBlank()) {
+                    counter.reject(reader.getRowNumber(), "missing userID or email");
+                } else if (customerRepository.add(customer)) {
+                    counter.rowsLoaded++;
+                } else {
+                    counter.reject(reader.getRowNumber(), "duplicate userID " + customer.getUserID()
+                            + " or email " + customer.getEmail());
+                }
+            }
+        }
+        return counter.report(file, startTime);
+    }
+
+    private static boolean isHeader(CsvReader reader, String firstColumn) {
+        return reader.get(0).trim().equalsIgnoreCase(firstColumn);
+    }
+
+    //        ************************************************************ Binary ************************************************************
+
+    /**
+     * Loads flights and customers from a file written by writeBinary().
+     *
+     * @param file The binary file.
+     * @return The report of the load.
+     * @throws IOException if the file cannot be read or is not in the binary format.
+     */
+    public LoadReport loadBinary(Path file) throws IOException {
+        long startTime = System.nanoTime();
+        RowCounter counter = new RowCounter();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+            in.flip();
+            fill(channel, in, 8);
+            if (in.getInt() != BINARY_MAGIC || in.getInt() != BINARY_VERSION) {
+                throw new IOException("Not a bulk load file: " + file);
+            }
+            while (true) {
+                fill(channel, in, 4);
+                int length = in.getInt();
+                if (length == 0) {
+                    break;
+                }
+                if (length < 0 || length > BUFFER_SIZE) {
+                    throw new IOException("Corrupt record after row " + counter.rowsRead + " in " + file);
+                }
+                fill(channel, in, length);
+                int next = in.position() + length;
+                ByteBuffer record = in.slice();
+                record.limit(length);
+                in.position(next);
+                counter.rowsRead++;
+                try {
+                    byte type = record.get();
+                    if (type == BookingJournal.FLIGHT_SCHEDULED) {
+                        Flight flight = AirlineState.readFlight(record);
+                        if (flightScheduler.addFlight(flight)) {
+                            counter.rowsLoaded++;
+                        } else {
+                            counter.reject(counter.rowsRead, "duplicate flight " + flight.getFlightNumber());
+                        }
+                    } else if (type == BookingJournal.CUSTOMER_ADDED) {
+                        Customer customer = AirlineState.readCustomer(record);
+                        if (customerRepository.add(customer)) {
+                            counter.rowsLoaded++;
+                        } else {
+                            counter.reject(counter.rowsRead, "duplicate customer " + customer.getUserID());
+                        }
+                    } else {
+                        counter.reject(counter.rowsRead, "unknown record type " + type);
+                    }
+                } catch (BufferUnderflowException e) {
+                    counter.reject(counter.rowsRead, "truncated record");
+                }
+            }
+        }
+        return counter.report(file, startTime);
+    }
+
+    /**
+     * Makes sure at least the given number of bytes can be read from the buffer.
+     */
+    private static void fill(FileChannel channel, ByteBuffer in, int numOfBytes) throws IOException {
+        if (in.remaining() >= numOfBytes) {
+            return;
+        }
+        in.compact();
+        while (in.position() < numOfBytes) {
+            if (channel.read(in) < 0) {
+                throw new IOException("Bulk load file ends unexpectedly");
+            }
+        }
+        in.flip();
+    }
+
+    /**
+     * Writes flights and customers in the binary format read by loadBinary().
+     *
+     * @param file      The file to write; replaced if it exists.
+     * @param flights   The flights to write.
+     * @param customers The customers to write.
+     * @return The number of records written.
+     * @throws IOException if the file cannot be written.
+     */
+    public static long writeBinary(Path file, Collection<Flight> flights, Collection<Customer> customers)
+            throws IOException {
+        long numOfRecords = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            out.putInt(BINARY_MAGIC).putInt(BINARY_VERSION);
+            RecordCodec codec = new RecordCodec(256);
+            for (Flight flight : flights) {
+                AirlineState.writeFlight(codec.clear(), flight);
+                put(channel, out, BookingJournal.FLIGHT_SCHEDULED, codec.encoded());
+                numOfRecords++;
+            }
+            for (Customer customer : customers) {
+                AirlineState.writeCustomer(codec.clear(), customer);
+                put(channel, out, BookingJournal.CUSTOMER_ADDED, codec.encoded());
+                numOfRecords++;
+            }
+            if (out.remaining() < 4) {
+                drain(channel, out);
+            }
+            out.putInt(0);
+            drain(channel, out);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return numOfRecords;
+    }
+
+    private static void put(FileChannel channel, ByteBuffer out, byte type, ByteBuffer payload) {
+        if (out.remaining() < 5 + payload.remaining()) {
+            drain(channel, out);
+        }
+        if (out.remaining() < 5 + payload.remaining()) {
+            throw new IllegalStateException("Record too large: " + payload.remaining() + " bytes");
+        }
+        out.putInt(1 + payload.remaining()).put(type).put(payload);
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer out) {
+        out.flip();
+        try {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        out.clear();
+    }
+
+    /**
+     * Counts the rows of one load and remembers why the first row was rejected.
+     */
+    private static final class RowCounter {
+        long rowsRead;
+        long rowsLoaded;
+        long rowsRejected;
+        String firstError;
+
+        void reject(long rowNumber, String reason) {
+            rowsRejected++;
+            if (firstError == null) {
+                firstError = "row " + rowNumber + ": " + reason;
+            }
+        }
+
+        LoadReport report(Path file, long startTime) {
+            return new LoadReport(file.toString(), rowsRead, rowsLoaded, rowsRejected, System.nanoTime() - startTime,
+                    firstError);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Seating plan of an aircraft cabin: rows of identical width, seats lettered
+ * left to right and numbered from the front, e.g. 12C. A dash in the row
+ * pattern marks an aisle; it only affects how rows are drawn, since seats on
+ * either side of an aisle still count as sitting together. The last row may
+ * be shorter than the others.
+ */
+public final class CabinLayout {
+    private final String rowPattern; // Seat letters of a row with dashes for aisles, e.g. "ABC-DEF"
+    private final String seatLetters; // Seat letters of a row, e.g. "ABCDEF"
+    private final int numOfRows; // Number of rows, including a partial last row
+    private final int numOfSeats; // Number of seats in the cabin
+
+    /**
+     * Constructor to initialize a CabinLayout.
+     *
+     * @param rowPattern The seat letters of a row, left to right, with a dash for each aisle.
+     * @param numOfSeats The number of seats in the cabin.
+     * @throws IllegalArgumentException if the row has no seats or more than 64, or numOfSeats is negative.
+     */
+    public CabinLayout(String rowPattern, int numOfSeats) {
+        String seatLetters = rowPattern.replace("-", "");
+        if (seatLetters.isEmpty() || seatLetters.length() > 64 || numOfSeats < 0) {
+            throw new IllegalArgumentException("A row needs 1 to 64 seats and the cabin a non-negative size: "
+                    + rowPattern + ", " + numOfSeats);
+        }
+        this.rowPattern = rowPattern;
+        this.seatLetters = seatLetters;
+        this.numOfSeats = numOfSeats;
+        this.numOfRows = (numOfSeats + seatLetters.length() - 1) / seatLetters.length();
+    }
+
+    /**
+     * Picks a typical layout for a cabin of the given size: four abreast for
+     * regional aircraft, six for narrow bodies and ten for wide bodies.
+     *
+     * @param numOfSeats The number of seats in the cabin.
+     * @return The layout.
+     */
+    public static CabinLayout forCapacity(int numOfSeats) {
+        if (numOfSeats <= 100) {
+            return new CabinLayout("AB-CD", numOfSeats);
+        }
+        if (numOfSeats <= 250) {
+            return new CabinLayout("ABC-DEF", numOfSeats);
+        }
+        // Seat I is skipped, as it is easily mistaken for row 1
+        return new CabinLayout("ABC-DEFG-HJK", numOfSeats);
+    }
+
+    public String getRowPattern() {
+        return rowPattern;
+    }
+
+    public int getSeatsPerRow() {
+        return seatLetters.length();
+    }
+
+    public int getNumOfRows() {
+        return numOfRows;
+    }
+
+    public int getNumOfSeats() {
+        return numOfSeats;
+    }
+
+    /**
+     * @param seat The index of a seat, counted row by row from 0.
+     * @return The label of the seat, e.g. "12C".
+     */
+    public String seatLabel(int seat) {
+        if (seat < 0 || seat >= numOfSeats) {
+            throw new IllegalArgumentException("No such seat: " + seat);
+        }
+        return (seat / seatLetters.length() + 1) + String.valueOf(seatLetters.charAt(seat % seatLetters.length()));
+    }
+
+    /**
+     * @param label The label of a seat, e.g. "12C".
+     * @return The index of the seat, or -1 if the cabin has no such seat.
+     */
+    public int seatIndex(String label) {
+        if (label == null || label.length() < 2) {
+            return -1;
+        }
+        int column = seatLetters.indexOf(Character.toUpperCase(label.charAt(label.length() - 1)));
+        int row;
+        try {
+            row = Integer.parseInt(label.substring(0, label.length() - 1)) - 1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        int seat = row * seatLetters.length() + column;
+        return column < 0 || row < 0 || row >= numOfRows || seat >= numOfSeats ? -1 : seat;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d seats in %d rows of %s", numOfSeats, numOfRows, rowPattern);
+    }
+}
@@ -0,0 +1,498 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Stores customers column by column instead of as one object per customer.
+ * <ul>
+ *     <li>userIDs, which are numeric, and ages are primitive columns;</li>
+ *     <li>names, email domains and the city at the end of an address repeat
+ *     across customers and are dictionary-encoded, one int per row;</li>
+ *     <li>the rest (email local part, password, phone and street) is packed
+ *     as length-prefixed UTF-8 into large shared byte pages, one record per
+ *     row, addressed by a long offset.</li>
+ * </ul>
+ * Hash indexes on userID and email are open-addressing tables of row
+ * numbers. A customer therefore costs about a hundred bytes and no objects,
+ * against several hundred bytes in a dozen objects as a Customer, and the
+ * garbage collector has only a few dozen large arrays to trace.
+ * <p>
+ * Rows are read through flyweight CustomerView objects created on demand.
+ * The store is thread-safe; every call holds its lock briefly. Changing a
+ * phone number or address appends a new record and leaves the old bytes
+ * unused, and removing a customer leaves a hole; neither is reclaimed.
+ * </p>
+ */
+public final class ColumnarCustomerStore implements ReplicaCustomerStore {
+    private static final int PAGE_BITS = 20; // Record pages of 1 MiB
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int MAX_FIELD_BYTES = 0x3FFE; // Largest field a two-byte length prefix can describe
+    private static final int REMOVED_ID = Integer.MIN_VALUE; // userID column value of a removed row
+    private static final int EMPTY_SLOT = 0; // Index slots hold row + 1, so 0 marks an empty slot
+    private static final int DELETED_SLOT = -1; // Index slot of a removed row; probing continues past it
+
+    // Columns, one entry per row
+    private int[] userIDs = new int[16];
+    private byte[] ages = new byte[16];
+    private int[] nameCodes = new int[16];
+    private int[] emailDomainCodes = new int[16];
+    private int[] cityCodes = new int[16];
+    private int[] emailHashes = new int[16]; // Kept to rebuild the email index without decoding emails
+    private long[] recordOffsets = new long[16]; // Page and position of the row's record of packed strings
+    private int numOfRows; // Rows used, including removed ones
+    private int numOfCustomers; // Rows that are not removed
+
+    private final StringDictionary names = new StringDictionary();
+    private final StringDictionary emailDomains = new StringDictionary();
+    private final StringDictionary cities = new StringDictionary();
+
+    private byte[][] pages = new byte[1][]; // Record pages, allocated as they are needed
+    private int currentPage = -1; // Page records are appended to
+    private int pagePosition = PAGE_SIZE; // Next free byte of the current page
+
+    private int[] idSlots = new int[32]; // Hash index of rows by userID
+    private int[] emailSlots = new int[32]; // Hash index of rows by email
+    private int usedIdSlots; // Slots not empty, including deleted ones
+    private int usedEmailSlots;
+
+    //        ************************************************************ Adding and Removing ************************************************************
+
+    /**
+     * Adds a customer unless their userID or email is already stored.
+     *
+     * @param customer The customer to copy into the store.
+     * @return The view of the stored customer, or null if it is a duplicate.
+     * @throws IllegalArgumentException if the userID is not a plain non-negative number, the age is outside
+     *                                  0..255 or a field is too long.
+     */
+    public Customer add(Customer customer) {
+        return add(customer.getUserID(), customer.getName(), customer.getEmail(), customer.getPassword(),
+                customer.getPhone(), customer.getAddress(), customer.getAge());
+    }
+
+    /**
+     * Adds a customer unless their userID or email is already stored.
+     *
+     * @return The view of the stored customer, or null if it is a duplicate.
+     * @throws IllegalArgumentException if the userID is not a plain non-negative number, the age is outside
+     *                                  0..255 or a field is too long.
+     */
+    public synchronized Customer add(String userID, String name, String email, String password, String phone,
+                                     String address, int age) {
+        int id = parseUserID(userID);
+        checkAge(age);
+        if (email == null || findRowByID(id) >= 0 || findRowByEmail(email) >= 0) {
+            return null;
+        }
+        if (numOfRows == userIDs.length) {
+            growColumns();
+        }
+        int row = numOfRows++;
+        userIDs[row] = id;
+        ages[row] = (byte) age;
+        nameCodes[row] = names.encode(name);
+        int at = email.lastIndexOf('@');
+        emailDomainCodes[row] = at < 0 ? -1 : emailDomains.encode(email.substring(at + 1));
+        emailHashes[row] = email.hashCode();
+        int comma = address == null ? -1 : address.lastIndexOf(", ");
+        cityCodes[row] = comma < 0 ? -1 : cities.encode(address.substring(comma + 2));
+        recordOffsets[row] = appendRecord(at < 0 ? email : email.substring(0, at), password, phone,
+                comma < 0 ? address : address.substring(0, comma));
+        insertID(row);
+        insertEmail(row);
+        numOfCustomers++;
+        return new CustomerView(this, row);
+    }
+
+    /**
+     * Removes the customer with the given userID.
+     *
+     * @return true if the customer was stored.
+     */
+    public synchronized boolean remove(String userID) {
+        int row = findRowByID(parseUserIDOrMissing(userID));
+        if (row < 0) {
+            return false;
+        }
+        deleteSlot(idSlots, mix(userIDs[row]), row);
+        deleteSlot(emailSlots, mix(emailHashes[row]), row);
+        userIDs[row] = REMOVED_ID;
+        numOfCustomers--;
+        return true;
+    }
+
+    /**
+     * Stores a copy of the customer, dropping any stored customer with the same userID or email.
+     *
+     * @throws IllegalArgumentException if the userID is not a plain non-negative number, the age is outside
+     *                                  0..255 or a field is too long.
+     */
+    @Override
+    public synchronized void replace(Customer customer) {
+        Customer stored = findByUserID(customer.getUserID());
+        if (stored != null && stored.hasSameDetails(customer)) {
+            return;
+        }
+        remove(customer.getUserID());
+        Customer sameEmail = findByEmail(customer.getEmail());
+        if (sameEmail != null) {
+            remove(sameEmail.getUserID());
+        }
+        add(customer);
+    }
+
+    @Override
+    public void delete(String userID) {
+        remove(userID);
+    }
+
+    //        ************************************************************ Lookups ************************************************************
+
+    /**
+     * @return The view of the customer with the given userID, or null if there is none.
+     */
+    @Override
+    public synchronized Customer findByUserID(String userID) {
+        int row = findRowByID(parseUserIDOrMissing(userID));
+        return row < 0 ? null : new CustomerView(this, row);
+    }
+
+    /**
+     * @return The view of the customer with the given email, or null if there is none.
+     */
+    @Override
+    public synchronized Customer findByEmail(String email) {
+        int row = email == null ? -1 : findRowByEmail(email);
+        return row < 0 ? null : new CustomerView(this, row);
+    }
+
+    @Override
+    public synchronized boolean containsEmail(String email) {
+        return email != null && findRowByEmail(email) >= 0;
+    }
+
+    /**
+     * Changes the email of a stored customer and re-indexes them under it.
+     *
+     * @param customer A view returned by this store.
+     * @param newEmail The new email address.
+     * @return true if the email was changed, false if it is invalid or used by another customer.
+     */
+    public boolean changeEmail(Customer customer, String newEmail) {
+        return customer instanceof CustomerView && changeEmail(((CustomerView) customer).getRow(), newEmail);
+    }
+
+    @Override
+    public synchronized int size() {
+        return numOfCustomers;
+    }
+
+    /**
+     * @return The number of distinct names, email domains and cities held by the dictionaries.
+     */
+    public synchronized int getDictionarySize() {
+        return names.size() + emailDomains.size() + cities.size();
+    }
+
+    //        ************************************************************ Row Access ************************************************************
+
+    synchronized String userIDAt(int row) {
+        return userIDs[row] == REMOVED_ID ? null : Integer.toString(userIDs[row]);
+    }
+
+    synchronized String nameAt(int row) {
+        return names.decode(nameCodes[row]);
+    }
+
+    synchronized int ageAt(int row) {
+        return ages[row] & 0xFF;
+    }
+
+    synchronized String emailAt(int row) {
+        String local = readField(recordOffsets[row], 0);
+        String domain = emailDomains.decode(emailDomainCodes[row]);
+        return domain == null ? local : local + "@" + domain;
+    }
+
+    synchronized String passwordAt(int row) {
+        return readField(recordOffsets[row], 1);
+    }
+
+    synchronized String phoneAt(int row) {
+        return readField(recordOffsets[row], 2);
+    }
+
+    synchronized String addressAt(int row) {
+        String street = readField(recordOffsets[row], 3);
+        String city = cities.decode(cityCodes[row]);
+        return city == null ? street : street + ", " + city;
+    }
+
+    synchronized void setName(int row, String name) {
+        nameCodes[row] = names.encode(name);
+    }
+
+    synchronized void setAge(int row, int age) {
+        checkAge(age);
+        ages[row] = (byte) age;
+    }
+
+    synchronized void setPhone(int row, String phone) {
+        long offset = recordOffsets[row];
+        recordOffsets[row] = appendRecord(readField(offset, 0), readField(offset, 1), phone, readField(offset, 3));
+    }
+
+    synchronized void setAddress(int row, String address) {
+        long offset = recordOffsets[row];
+        int comma = address == null ? -1 : address.lastIndexOf(", ");
+        cityCodes[row] = comma < 0 ? -1 : cities.encode(address.substring(comma + 2));
+        recordOffsets[row] = appendRecord(readField(offset, 0), readField(offset, 1), readField(offset, 2),
+                comma < 0 ? address : address.substring(0, comma));
+    }
+
+    synchronized boolean changeEmail(int row, String newEmail) {
+        if (newEmail == null || userIDs[row] == REMOVED_ID) {
+            return false;
+        }
+        int owner = findRowByEmail(newEmail);
+        if (owner >= 0) {
+            return owner == row;
+        }
+        deleteSlot(emailSlots, mix(emailHashes[row]), row);
+        long offset = recordOffsets[row];
+        int at = newEmail.lastIndexOf('@');
+        emailDomainCodes[row] = at < 0 ? -1 : emailDomains.encode(newEmail.substring(at + 1));
+        emailHashes[row] = newEmail.hashCode();
+        recordOffsets[row] = appendRecord(at < 0 ? newEmail : newEmail.substring(0, at), readField(offset, 1),
+                readField(offset, 2), readField(offset, 3));
+        insertEmail(row);
+        return true;
+    }
+
+    //        ************************************************************ Records ************************************************************
+
+    /**
+     * Appends the length-prefixed UTF-8 bytes of the fields as one record that does not cross a page.
+     *
+     * @return The offset of the record: page number in the high bits, position in the page in the low ones.
+     */
+    private long appendRecord(String... fields) {
+        byte[][] encoded = new byte[fields.length][];
+        int length = 0;
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i] != null) {
+                encoded[i] = fields[i].getBytes(StandardCharsets.UTF_8);
+                if (encoded[i].length > MAX_FIELD_BYTES) {
+                    throw new IllegalArgumentException("Field too long: " + encoded[i].length + " bytes");
+                }
+                length += encoded[i].length;
+            }
+            length += 2;
+        }
+        if (pagePosition + length > PAGE_SIZE) {
+            currentPage++;
+            if (currentPage == pages.length) {
+                pages = Arrays.copyOf(pages, pages.length * 2);
+            }
+            pages[currentPage] = new byte[PAGE_SIZE];
+            pagePosition = 0;
+        }
+        long offset = ((long) currentPage << PAGE_BITS) | pagePosition;
+        byte[] page = pages[currentPage];
+        for (byte[] field : encoded) {
+            // Lengths are stored plus one so that 0 means null; below 128 they take one byte, otherwise two
+            int prefix = field == null ? 0 : field.length + 1;
+            if (prefix < 0x80) {
+                page[pagePosition++] = (byte) prefix;
+            } else {
+                page[pagePosition++] = (byte) (0x80 | (prefix >>> 8));
+                page[pagePosition++] = (byte) prefix;
+            }
+            if (field != null) {
+                System.arraycopy(field, 0, page, pagePosition, field.length);
+                pagePosition += field.length;
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * Decodes one field of a record.
+     *
+     * @param index The position of the field in the record.
+     */
+    private String readField(long offset, int index) {
+        byte[] page = pages[(int) (offset >>> PAGE_BITS)];
+        int position = (int) (offset & (PAGE_SIZE - 1));
+        for (int i = 0; ; i++) {
+            int prefix = page[position++] & 0xFF;
+            if (prefix >= 0x80) {
+                prefix = ((prefix & 0x7F) << 8) | (page[position++] & 0xFF);
+            }
+            int length = prefix - 1;
+            if (i == index) {
+                return prefix == 0 ? null : new String(page, position, length, StandardCharsets.UTF_8);
+            }
+            position += Math.max(0, length);
+        }
+    }
+
+    /**
+     * Compares the stored email of a row with the given one without decoding it.
+     */
+    private boolean emailEquals(int row, String email, byte[] local, int domainCode) {
+        if (emailHashes[row] != email.hashCode() || emailDomainCodes[row] != domainCode) {
+            return false;
+        }
+        long offset = recordOffsets[row];
+        byte[] page = pages[(int) (offset >>> PAGE_BITS)];
+        int position = (int) (offset & (PAGE_SIZE - 1));
+        int prefix = page[position++] & 0xFF;
+        if (prefix >= 0x80) {
+            prefix = ((prefix & 0x7F) << 8) | (page[position++] & 0xFF);
+        }
+        return prefix - 1 == local.length
+                && Arrays.equals(page, position, position + local.length, local, 0, local.length);
+    }
+
+    //        ************************************************************ Indexes ************************************************************
+
+    private static int parseUserID(String userID) {
+        int id = parseUserIDOrMissing(userID);
+        if (id < 0) {
+            throw new IllegalArgumentException("userID must be a plain non-negative number: " + userID);
+        }
+        return id;
+    }
+
+    /**
+     * @return The numeric userID, or -1 if the string is not one this store can hold.
+     */
+    private static int parseUserIDOrMissing(String userID) {
+        if (userID == null || userID.isEmpty() || userID.length() > 9 || (userID.length() > 1 && userID.charAt(0) == '0')) {
+            return -1;
+        }
+        int id = 0;
+        for (int i = 0; i < userID.length(); i++) {
+            char c = userID.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            id = id * 10 + (c - '0');
+        }
+        return id;
+    }
+
+    private static void checkAge(int age) {
+        if (age < 0 || age > 255) {
+            throw new IllegalArgumentException("Age must be between 0 and 255: " + age);
+        }
+    }
+
+    private static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private int findRowByID(int id) {
+        if (id < 0) {
+            return -1;
+        }
+        int mask = idSlots.length - 1;
+        for (int slot = mix(id) & mask; idSlots[slot] != EMPTY_SLOT; slot = (slot + 1) & mask) {
+            int row = idSlots[slot] - 1;
+            if (row >= 0 && userIDs[row] == id) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    private int findRowByEmail(String email) {
+        int at = email.lastIndexOf('@');
+        int domainCode = -1;
+        if (at >= 0) {
+            domainCode = emailDomains.find(email.substring(at + 1));
+            if (domainCode < 0) {
+                return -1;
+            }
+        }
+        byte[] local = (at < 0 ? email : email.substring(0, at)).getBytes(StandardCharsets.UTF_8);
+        int mask = emailSlots.length - 1;
+        for (int slot = mix(email.hashCode()) & mask; emailSlots[slot] != EMPTY_SLOT; slot = (slot + 1) & mask) {
+            int row = emailSlots[slot] - 1;
+            if (row >= 0 && emailEquals(row, email, local, domainCode)) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    private void insertID(int row) {
+        if ((usedIdSlots + 1) * 2 > idSlots.length) {
+            idSlots = rebuild(idSlots, true);
+            usedIdSlots = numOfCustomers;
+        }
+        usedIdSlots += insert(idSlots, mix(userIDs[row]), row);
+    }
+
+    private void insertEmail(int row) {
+        if ((usedEmailSlots + 1) * 2 > emailSlots.length) {
+            emailSlots = rebuild(emailSlots, false);
+            usedEmailSlots = numOfCustomers;
+        }
+        usedEmailSlots += insert(emailSlots, mix(emailHashes[row]), row);
+    }
+
+    /**
+     * @return 1 if an empty slot was used, 0 if a deleted one was reused.
+     */
+    private static int insert(int[] slots, int hash, int row) {
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] != EMPTY_SLOT && slots[slot] != DELETED_SLOT) {
+            slot = (slot + 1) & mask;
+        }
+        int used = slots[slot] == EMPTY_SLOT ? 1 : 0;
+        slots[slot] = row + 1;
+        return used;
+    }
+
+    private static void deleteSlot(int[] slots, int hash, int row) {
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; slots[slot] != EMPTY_SLOT; slot = (slot + 1) & mask) {
+            if (slots[slot] == row + 1) {
+                slots[slot] = DELETED_SLOT;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Rebuilds an index without deleted slots, doubling it if the live rows need the room.
+     */
+    private int[] rebuild(int[] slots, boolean byID) {
+        int capacity = slots.length;
+        while ((numOfCustomers + 1) * 2 > capacity) {
+            capacity *= 2;
+        }
+        int[] rebuilt = new int[capacity];
+        for (int slot : slots) {
+            if (slot > 0) {
+                int row = slot - 1;
+                insert(rebuilt, mix(byID ? userIDs[row] : emailHashes[row]), row);
+            }
+        }
+        return rebuilt;
+    }
+
+    private void growColumns() {
+        int capacity = userIDs.length * 2;
+        userIDs = Arrays.copyOf(userIDs, capacity);
+        ages = Arrays.copyOf(ages, capacity);
+        nameCodes = Arrays.copyOf(nameCodes, capacity);
+        emailDomainCodes = Arrays.copyOf(emailDomainCodes, capacity);
+        cityCodes = Arrays.copyOf(cityCodes, capacity);
+        emailHashes = Arrays.copyOf(emailHashes, capacity);
+        recordOffsets = Arrays.copyOf(recordOffsets, capacity);
+    }
+}
@@ -5,7 +5,7 @@ class ConcreteFlightDistance extends FlightDistance {
     }
 
     @Override
-    public String[] calculateDistance(double lat1, double lon1, double lat2, double lon2) {
+    public double calculateDistanceInKm(double lat1, double lon1, double lat2, double lon2) {
         double earthRadius = 6371.0; // Radius of the Earth in kilometers
         double dLat = Math.toRadians(lat2 - lat1);
         double dLon = Math.toRadians(lon2 - lon1);
@@ -13,12 +13,31 @@ class ConcreteFlightDistance extends FlightDistance {
                    Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
                    Math.sin(dLon / 2) * Math.sin(dLon / 2);
         double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        double distance = earthRadius * c;
+        return earthRadius * c;
+    }
+
+    @Override
+    public String[] calculateDistance(double lat1, double lon1, double lat2, double lon2) {
+        return formatDistance(calculateDistanceInKm(lat1, lon1, lat2, lon2));
+    }
+
+    /**
+     * Looks the distance between two served cities up in the precomputed RouteDistanceMatrix.
+     *
+     * @param fromCity Name of the departure city.
+     * @param toCity   Name of the destination city.
+     * @return The formatted distance, or null if either city is not served.
+     */
+    public String[] calculateDistance(String fromCity, String toCity) {
+        double distance = RouteDistanceMatrix.getInstance().distanceInKm(fromCity, toCity);
+        return Double.isNaN(distance) ? null : formatDistance(distance);
+    }
 
+    private static String[] formatDistance(double distance) {
         String[] result = {
             "Approximate Distance: " + distance + " km",
             "Note: Actual distance may vary due to flight paths."
         };
         return result;
     }
-}
\ No newline at end of file
+}
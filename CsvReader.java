@@ -0,0 +1,265 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads comma-separated rows from a channel in a single pass.
+ * <p>
+ * Rows are split directly in the raw UTF-8 bytes of a large read buffer; a
+ * field only becomes a String when it is asked for, and numeric fields are
+ * parsed straight from the bytes. Fields may be quoted, in which case they can
+ * contain commas, line breaks and doubled quotes. Both "\n" and "\r\n" line
+ * endings are accepted, as is a leading byte order mark.
+ * </p>
+ */
+final class CsvReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 20; // Initial size of the read buffer
+    private static final int ROW = 0; // parseRow() found a complete row
+    private static final int NEED_MORE = 1; // parseRow() needs more input to finish the row
+    private static final int END = 2; // No rows are left
+
+    private final ReadableByteChannel channel; // Source of the rows
+    private byte[] data = new byte[BUFFER_SIZE]; // Bytes read but not parsed yet, from start to limit
+    private int start; // Start of the next row in data
+    private int limit; // End of the bytes read into data
+    private boolean endOfInput; // Set once the channel has no more bytes
+    private boolean atFirstRow = true; // The byte order mark check is still pending
+    private int[] fieldStarts = new int[16]; // Start of each field of the current row in data
+    private int[] fieldEnds = new int[16]; // End of each field of the current row in data
+    private boolean[] fieldQuoted = new boolean[16]; // Whether each field was quoted
+    private int numOfFields; // Number of fields in the current row
+    private long rowNumber; // Number of the current row, starting at 1
+    private byte[] scratch = new byte[256]; // Unescapes quoted fields
+
+    CsvReader(ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Advances to the next row.
+     *
+     * @return true if a row was read, false at the end of the input.
+     * @throws IOException if the channel cannot be read.
+     */
+    boolean next() throws IOException {
+        while (true) {
+            if (atFirstRow && (limit - start >= 3 || endOfInput)) {
+                atFirstRow = false;
+                if (limit - start >= 3 && data[start] == (byte) 0xEF && data[start + 1] == (byte) 0xBB
+                        && data[start + 2] == (byte) 0xBF) {
+                    start += 3;
+                }
+            }
+            int result = atFirstRow ? NEED_MORE : parseRow();
+            if (result == ROW) {
+                rowNumber++;
+                return true;
+            }
+            if (result == END) {
+                return false;
+            }
+            refill();
+        }
+    }
+
+    private int parseRow() {
+        if (start >= limit && endOfInput) {
+            return END;
+        }
+        int p = start;
+        numOfFields = 0;
+        while (true) {
+            if (p < limit && data[p] == '"') {
+                int fieldStart = ++p;
+                while (true) {
+                    if (p >= limit) {
+                        if (!endOfInput) {
+                            return NEED_MORE;
+                        }
+                        break;
+                    }
+                    if (data[p] == '"') {
+                        if (p + 1 >= limit && !endOfInput) {
+                            return NEED_MORE;
+                        }
+                        if (p + 1 < limit && data[p + 1] == '"') {
+                            p += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    p++;
+                }
+                addField(fieldStart, p, true);
+                p++;
+                // Skip anything between the closing quote and the next delimiter, such as a '\r'
+                while (p < limit && data[p] != ',' && data[p] != '\n') {
+                    p++;
+                }
+            } else {
+                int fieldStart = p;
+                while (p < limit && data[p] != ',' && data[p] != '\n') {
+                    p++;
+                }
+                int fieldEnd = p;
+                if (fieldEnd > fieldStart && data[fieldEnd - 1] == '\r') {
+                    fieldEnd--;
+                }
+                addField(fieldStart, fieldEnd, false);
+            }
+            if (p >= limit) {
+                if (!endOfInput) {
+                    return NEED_MORE;
+                }
+                start = limit;
+                return ROW;
+            }
+            if (data[p] == '\n') {
+                start = p + 1;
+                return ROW;
+            }
+            p++;
+        }
+    }
+
+    private void addField(int fieldStart, int fieldEnd, boolean quoted) {
+        if (numOfFields == fieldStarts.length) {
+            fieldStarts = Arrays.copyOf(fieldStarts, numOfFields * 2);
+            fieldEnds = Arrays.copyOf(fieldEnds, numOfFields * 2);
+            fieldQuoted = Arrays.copyOf(fieldQuoted, numOfFields * 2);
+        }
+        fieldStarts[numOfFields] = fieldStart;
+        fieldEnds[numOfFields] = Math.min(fieldEnd, limit);
+        fieldQuoted[numOfFields] = quoted;
+        numOfFields++;
+    }
+
+    /**
+     * Moves the unparsed bytes to the front of the buffer, growing it if a
+     * single row fills it, and reads more bytes after them.
+     */
+    private void refill() throws IOException {
+        if (start > 0) {
+            System.arraycopy(data, start, data, 0, limit - start);
+            limit -= start;
+            start = 0;
+        } else if (limit == data.length) {
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+        int numOfBytes = channel.read(ByteBuffer.wrap(data, limit, data.length - limit));
+        if (numOfBytes < 0) {
+            endOfInput = true;
+        } else {
+            limit += numOfBytes;
+        }
+    }
+
+    /**
+     * @return The number of the current row, starting at 1.
+     */
+    long getRowNumber() {
+        return rowNumber;
+    }
+
+    /**
+     * @return The number of fields in the current row.
+     */
+    int size() {
+        return numOfFields;
+    }
+
+    /**
+     * @return true if the current row is an empty line.
+     */
+    boolean isBlank() {
+        return numOfFields == 1 && fieldStarts[0] == fieldEnds[0] && !fieldQuoted[0];
+    }
+
+    /**
+     * @param index The index of the field, starting at 0.
+     * @return true if the field is empty.
+     */
+    boolean isEmpty(int index) {
+        return fieldStarts[index] == fieldEnds[index];
+    }
+
+    /**
+     * @param index The index of the field, starting at 0.
+     * @return The field as a String, without its quotes.
+     */
+    String get(int index) {
+        int fieldStart = fieldStarts[index];
+        int length = fieldEnds[index] - fieldStart;
+        if (!fieldQuoted[index]) {
+            return new String(data, fieldStart, length, StandardCharsets.UTF_8);
+        }
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(scratch.length * 2, length)];
+        }
+        int numOfBytes = 0;
+        for (int i = fieldStart; i < fieldStart + length; i++) {
+            scratch[numOfBytes++] = data[i];
+            if (data[i] == '"') {
+                i++; // Skip the second quote of a doubled quote
+            }
+        }
+        return new String(scratch, 0, numOfBytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses a field as a decimal int, ignoring surrounding spaces.
+     *
+     * @param index The index of the field, starting at 0.
+     * @return The value of the field.
+     * @throws NumberFormatException if the field is not a decimal int.
+     */
+    int getInt(int index) {
+        int p = fieldStarts[index];
+        int end = fieldEnds[index];
+        while (p < end && data[p] == ' ') {
+            p++;
+        }
+        while (end > p && data[end - 1] == ' ') {
+            end--;
+        }
+        boolean negative = p < end && data[p] == '-';
+        if (negative || (p < end && data[p] == '+')) {
+            p++;
+        }
+        if (p == end || end - p > 10) {
+            throw new NumberFormatException("Not an int: \"" + get(index) + "\"");
+        }
+        long value = 0;
+        for (; p < end; p++) {
+            int digit = data[p] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Not an int: \"" + get(index) + "\"");
+            }
+            value = value * 10 + digit;
+        }
+        value = negative ? -value : value;
+        if (value != (int) value) {
+            throw new NumberFormatException("Not an int: \"" + get(index) + "\"");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parses a field as a double, ignoring surrounding spaces.
+     *
+     * @param index The index of the field, starting at 0.
+     * @return The value of the field.
+     * @throws NumberFormatException if the field is not a number.
+     */
+    double getDouble(int index) {
+        return Double.parseDouble(get(index).trim());
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -11,9 +11,12 @@ public class Customer {
     private final String password;
     private String address;
     private int age;
-    public List<Flight> flightsRegisteredByUser;
-    public List<Integer> numOfTicketsBookedByUser;
-    public static final List<Customer> customerCollection = new ArrayList<>();
+    private volatile BookingLedger bookingLedger; // Tickets booked by the customer on each flight, created on first use
+    private volatile Passenger passenger; // The passenger the customer books as, created on their first booking
+    public static final CustomerRepository customerRepository = new CustomerRepository();
+    private static volatile CustomerStore customerStore = customerRepository; // Store that searches and logins look customers up in
+    private static final String TABLE_SEPARATOR =
+            "          +------------+------------+----------------------------------+---------+-----------------------------+-------------------------------------+-------------------------+";
 
     // ************************************************************
     // Behaviours/Methods
@@ -41,17 +44,35 @@ public class Customer {
      * @param age      customer's age
      */
     Customer(String name, String email, String password, String phone, String address, int age) {
-        RandomGenerator random = new RandomGenerator();
-        random.randomIDGen();
+        this(randomUserID(), name, email, password, phone, address, age);
+    }
+
+    /**
+     * Creates a customer with an already assigned userID, e.g. when customers are
+     * restored or loaded in bulk rather than registered through the console.
+     *
+     * @param userID   customer's unique userID
+     * @param name     name of the customer
+     * @param email    customer's email
+     * @param password customer's account password
+     * @param phone    customer's phone-number
+     * @param address  customer's address
+     * @param age      customer's age
+     */
+    Customer(String userID, String name, String email, String password, String phone, String address, int age) {
         this.name = name;
-        this.userID = random.getRandomNumber();
+        this.userID = userID;
         this.email = email;
         this.password = password;
         this.phone = phone;
         this.address = address;
         this.age = age;
-        this.flightsRegisteredByUser = new ArrayList<>();
-        this.numOfTicketsBookedByUser = new ArrayList<>();
+    }
+
+    private static String randomUserID() {
+        RandomGenerator random = new RandomGenerator();
+        random.randomIDGen();
+        return random.getRandomNumber();
     }
 
     /**
@@ -82,7 +103,11 @@ public class Customer {
         String address = read.nextLine();
         System.out.print("Enter your age :\t");
         int age = read.nextInt();
-        customerCollection.add(new Customer(name, email, password, phone, address, age));
+        Customer customer = new Customer(name, email, password, phone, address, age);
+        while (!customerRepository.add(customer) && !customerRepository.containsEmail(email)) {
+            // The userID was assigned outside the allocator, e.g. to a restored customer, so draw the next one.
+            customer = new Customer(name, email, password, phone, address, age);
+        }
     }
 
     /**
@@ -95,7 +120,49 @@ public class Customer {
      */
     private String toString(int i) {
         return String.format("%10s| %-10d | %-10s | %-32s | %-7s | %-27s | %-35s | %-23s |", "", i,
-                randomIDDisplay(userID), name, age, email, address, phone);
+                randomIDDisplay(getUserID()), getName(), getAge(), getEmail(), getAddress(), getPhone());
+    }
+
+    /**
+     * Selects the store that searches, email checks and passenger logins look
+     * customers up in, for example an OffHeapCustomerStore mapped from a
+     * file. Customers are still registered, edited and deleted through the
+     * customerRepository, which copies the customers registered so far into
+     * the store and keeps it in step with every later change.
+     *
+     * @param store The store to use, or null to go back to the customerRepository.
+     * @throws IllegalArgumentException if the store cannot hold a registered customer's details.
+     * @throws IllegalStateException    if the store is full.
+     */
+    public static synchronized void useCustomerStore(ReplicaCustomerStore store) {
+        customerRepository.setReplica(store);
+        customerStore = store == null ? customerRepository : store;
+    }
+
+    public static CustomerStore getCustomerStore() {
+        return customerStore;
+    }
+
+    /**
+     * Looks the userID up in the selected store.
+     *
+     * @return The registered customer, never a copy made by the store, or null if there is none.
+     */
+    static Customer lookUpByUserID(String userID) {
+        CustomerStore store = customerStore;
+        Customer found = store.findByUserID(userID);
+        return store == customerRepository ? found : customerRepository.resolve(found);
+    }
+
+    /**
+     * Looks the email up in the selected store.
+     *
+     * @return The registered customer, never a copy made by the store, or null if there is none.
+     */
+    static Customer lookUpByEmail(String email) {
+        CustomerStore store = customerStore;
+        Customer found = store.findByEmail(email);
+        return store == customerRepository ? found : customerRepository.resolve(found);
     }
 
     /**
@@ -105,18 +172,10 @@ public class Customer {
      * @param ID of the searching/required customer
      */
     public void searchUser(String ID) {
-        boolean isFound = false;
-        Customer customerWithTheID = customerCollection.get(0);
-        for (Customer c : customerCollection) {
-            if (ID.equals(c.getUserID())) {
-                System.out.printf("%-50sCustomer Found...!!!Here is the Full Record...!!!\n\n\n", " ");
-                displayHeader();
-                isFound = true;
-                customerWithTheID = c;
-                break;
-            }
-        }
-        if (isFound) {
+        Customer customerWithTheID = lookUpByUserID(ID);
+        if (customerWithTheID != null) {
+            System.out.printf("%-50sCustomer Found...!!!Here is the Full Record...!!!\n\n\n", " ");
+            displayHeader();
             System.out.println(customerWithTheID.toString(1));
             System.out.printf(
                     "%10s+------------+------------+----------------------------------+---------+-----------------------------+-------------------------------------+-------------------------+\n",
@@ -132,54 +191,39 @@ public class Customer {
      * @param emailID to be checked in the list
      */
     public boolean isUniqueData(String emailID) {
-        boolean isUnique = false;
-        for (Customer c : customerCollection) {
-            if (emailID.equals(c.getEmail())) {
-                isUnique = true;
-                break;
-            }
-        }
-        return isUnique;
+        return customerStore.containsEmail(emailID);
     }
 
     public void editUserInfo(String ID) {
-        boolean isFound = false;
-        Scanner read = new Scanner(System.in);
-        for (Customer c : customerCollection) {
-            if (ID.equals(c.getUserID())) {
-                isFound = true;
-                System.out.print("\nEnter the new name of the Passenger:\t");
-                String name = read.nextLine();
-                c.setName(name);
+        Customer c = customerRepository.findByUserID(ID);
+        if (c != null) {
+            Scanner read = new Scanner(System.in);
+            System.out.print("\nEnter the new name of the Passenger:\t");
+            String name = read.nextLine();
+            c.setName(name);
+            System.out.print("Enter the new email address of Passenger " + name + ":\t");
+            String email = read.nextLine();
+            while (!customerRepository.changeEmail(c, email)) {
+                System.out.println(
+                        "ERROR!!! User with the same email already exists... Use new email....");
                 System.out.print("Enter the new email address of Passenger " + name + ":\t");
-                c.setEmail(read.nextLine());
-                System.out.print("Enter the new Phone number of Passenger " + name + ":\t");
-                c.setPhone(read.nextLine());
-                System.out.print("Enter the new address of Passenger " + name + ":\t");
-                c.setAddress(read.nextLine());
-                System.out.print("Enter the new age of Passenger " + name + ":\t");
-                c.setAge(read.nextInt());
-                displayCustomersData(false);
-                break;
+                email = read.nextLine();
             }
-        }
-        if (!isFound) {
+            System.out.print("Enter the new Phone number of Passenger " + name + ":\t");
+            c.setPhone(read.nextLine());
+            System.out.print("Enter the new address of Passenger " + name + ":\t");
+            c.setAddress(read.nextLine());
+            System.out.print("Enter the new age of Passenger " + name + ":\t");
+            c.setAge(read.nextInt());
+            customerRepository.updated(c);
+            displayCustomersData(false);
+        } else {
             System.out.printf("%-50sNo Customer with the ID %s Found...!!!\n", " ", ID);
         }
     }
 
     public void deleteUser(String ID) {
-        boolean isFound = false;
-        Iterator<Customer> iterator = customerCollection.iterator();
-        while (iterator.hasNext()) {
-            Customer customer = iterator.next();
-            if (ID.equals(customer.getUserID())) {
-                isFound = true;
-                break;
-            }
-        }
-        if (isFound) {
-            iterator.remove();
+        if (customerRepository.remove(ID) != null) {
             System.out.printf("\n%-50sPrinting all  Customer's Data after deleting Customer with the ID %s.....!!!!\n",
                     "", ID);
             displayCustomersData(false);
@@ -195,16 +239,23 @@ public class Customer {
      *                   data.
      */
     public void displayCustomersData(boolean showHeader) {
-        displayHeader();
-        Iterator<Customer> iterator = customerCollection.iterator();
+        TableRenderer renderer = new TableRenderer(System.out);
+        writeCustomersData(renderer);
+        renderer.flush();
+    }
+
+    /**
+     * Writes the customers' data in formatted way.
+     *
+     * @param renderer to write the table to.
+     */
+    public void writeCustomersData(TableRenderer renderer) {
+        writeHeader(renderer);
         int i = 0;
-        while (iterator.hasNext()) {
+        for (Customer c : customerRepository.asList()) {
             i++;
-            Customer c = iterator.next();
-            System.out.println(c.toString(i));
-            System.out.printf(
-                    "%10s+------------+------------+----------------------------------+---------+-----------------------------+-------------------------------------+-------------------------+\n",
-                    "");
+            c.writeRow(renderer, i);
+            renderer.line(TABLE_SEPARATOR);
         }
     }
 
@@ -212,18 +263,39 @@ public class Customer {
      * Shows the header for printing customers data
      */
     void displayHeader() {
-        System.out.println();
-        System.out.printf(
-                "%10s+------------+------------+----------------------------------+---------+-----------------------------+-------------------------------------+-------------------------+\n",
-                "");
-        System.out.printf(
-                "%10s| SerialNum  |   UserID   | Passenger Names                  | Age     | EmailID\t\t       | Home Address\t\t\t     | Phone Number\t       |%n",
-                "");
-        System.out.printf(
-                "%10s+------------+------------+----------------------------------+---------+-----------------------------+-------------------------------------+-------------------------+\n",
-                "");
-        System.out.println();
+        TableRenderer renderer = new TableRenderer(System.out);
+        writeHeader(renderer);
+        renderer.flush();
+    }
+
+    /**
+     * Writes the header for printing customers data
+     *
+     * @param renderer to write the header to.
+     */
+    void writeHeader(TableRenderer renderer) {
+        renderer.newline();
+        renderer.line(TABLE_SEPARATOR);
+        renderer.line("          | SerialNum  |   UserID   | Passenger Names                  | Age     | EmailID\t\t       | Home Address\t\t\t     | Phone Number\t       |");
+        renderer.line(TABLE_SEPARATOR);
+        renderer.newline();
+    }
 
+    /**
+     * Writes the same row as toString(i) without formatting it into an intermediate String.
+     *
+     * @param renderer to write the row to.
+     * @param i        for serial numbers.
+     */
+    private void writeRow(TableRenderer renderer, int i) {
+        renderer.text("          | ").left(i, 10)
+                .text(" | ").left(randomIDDisplay(getUserID()), 10)
+                .text(" | ").left(getName(), 32)
+                .text(" | ").left(getAge(), 7)
+                .text(" | ").left(getEmail(), 27)
+                .text(" | ").left(getAddress(), 35)
+                .text(" | ").left(getPhone(), 23)
+                .text(" |").newline();
     }
 
     /**
@@ -249,31 +321,73 @@ public class Customer {
     }
 
     /**
-     * Associates a new flight with the specified customer
+     * Returns the passenger this customer books flights as, creating it on the
+     * first call. The passenger shares the customer's identity and booking
+     * ledger instead of copying them, so a booking made through the
+     * FlightReservation shows up in the customer's flights as well.
      *
-     * @param f flight to associate
+     * @param passportNumber passport number of a new passenger; ignored if the customer already has one
+     * @return the customer's passenger
+     * @throws IllegalArgumentException if a new passenger is needed and the passport number is null or blank
      */
-    void addNewFlightToCustomerList(Flight f) {
-        this.flightsRegisteredByUser.add(f);
-        // numOfFlights++;
+    public Passenger asPassenger(String passportNumber) {
+        Passenger current = passenger;
+        if (current == null) {
+            synchronized (this) {
+                current = passenger;
+                if (current == null) {
+                    current = new Passenger(this, passportNumber);
+                    passenger = current;
+                }
+            }
+        }
+        return current;
     }
 
     /**
-     * Adds numOfTickets to already booked flights
-     * 
-     * @param index        at which flight is registered in the arraylist
-     * @param numOfTickets how many tickets to add
+     * @return the passenger this customer books flights as, or null if they have not booked yet
+     */
+    public Passenger getPassenger() {
+        return passenger;
+    }
+
+    /**
+     * Returns the ledger of the customer's bookings, which their passenger
+     * records tickets in. It is created on first use, so customers who never
+     * book do not pay for one.
+     */
+    public BookingLedger getBookingLedger() {
+        BookingLedger ledger = bookingLedger;
+        if (ledger == null) {
+            synchronized (this) {
+                ledger = bookingLedger;
+                if (ledger == null) {
+                    ledger = new BookingLedger();
+                    bookingLedger = ledger;
+                }
+            }
+        }
+        return ledger;
+    }
+
+    /**
+     * @return true if the other customer has the same userID, name, email, password, phone, address and age.
      */
-    void addExistingFlightToCustomerList(int index, int numOfTickets) {
-        int newNumOfTickets = numOfTicketsBookedByUser.get(index) + numOfTickets;
-        this.numOfTicketsBookedByUser.set(index, newNumOfTickets);
+    boolean hasSameDetails(Customer other) {
+        return Objects.equals(getUserID(), other.getUserID()) && Objects.equals(getName(), other.getName())
+                && Objects.equals(getEmail(), other.getEmail()) && Objects.equals(getPassword(), other.getPassword())
+                && Objects.equals(getPhone(), other.getPhone()) && Objects.equals(getAddress(), other.getAddress())
+                && getAge() == other.getAge();
     }
 
     // ************************************************************ Setters &
     // Getters ************************************************************
 
+    /**
+     * @return A read-only view of the flights booked by the customer.
+     */
     public List<Flight> getFlightsRegisteredByUser() {
-        return flightsRegisteredByUser;
+        return getBookingLedger().getFlightsView();
     }
 
     public String getPassword() {
@@ -304,15 +418,22 @@ public class Customer {
         return name;
     }
 
+    /**
+     * @return A read-only view of the tickets booked on each flight, parallel to getFlightsRegisteredByUser().
+     */
     public List<Integer> getNumOfTicketsBookedByUser() {
-        return numOfTicketsBookedByUser;
+        return getBookingLedger().getTicketsView();
     }
 
     public void setName(String name) {
         this.name = name;
     }
 
-    public void setEmail(String email) {
+    /**
+     * Sets the email without re-indexing the customer; registered customers change it through
+     * CustomerRepository.changeEmail().
+     */
+    void setEmail(String email) {
         this.email = email;
     }
 
@@ -0,0 +1,282 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores registered customers with hash indexes on userID and email.
+ * Lookups are lock-free; writes are serialized so that both indexes always
+ * agree. The registration-ordered list used for displaying customers is
+ * rebuilt lazily only when it is read after the repository has changed.
+ */
+public class CustomerRepository implements CustomerStore {
+    private final ConcurrentHashMap<String, Entry> customersByID = new ConcurrentHashMap<>(); // Index of customers by userID
+    private final ConcurrentHashMap<String, Customer> customersByEmail = new ConcurrentHashMap<>(); // Index of customers by email
+    private long nextSequence; // Registration order of customers, guarded by this
+    private volatile List<Customer> orderedView = Collections.emptyList(); // Cached registration-ordered view
+    private volatile boolean orderedViewStale; // Set whenever the repository changes
+    private volatile BookingJournal journal; // Records customer changes, null if they are not persisted
+    private ReplicaCustomerStore replica; // Store kept in step with this repository, null if there is none, guarded by this
+
+    /**
+     * Sets the journal that added, updated and removed customers are appended to.
+     *
+     * @param journal The journal to append to, or null to stop journaling.
+     */
+    public void setJournal(BookingJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Makes sure the journal can record a change before the change is made.
+     *
+     * @throws IllegalStateException if the journal is full.
+     */
+    private void checkJournalCapacity() {
+        BookingJournal journal = this.journal;
+        if (journal != null) {
+            journal.checkCapacity();
+        }
+    }
+
+    /**
+     * Attaches a store that every later change is copied into, after copying
+     * the customers registered so far. Changes are copied under this
+     * repository's lock, so the store never lags behind a completed change.
+     *
+     * @param store The store to keep in step, or null to stop copying.
+     * @throws IllegalArgumentException if the store cannot hold a registered customer's details.
+     * @throws IllegalStateException    if the store is full.
+     */
+    public synchronized void setReplica(ReplicaCustomerStore store) {
+        if (store != null) {
+            for (Customer customer : asList()) {
+                store.replace(customer);
+            }
+        }
+        replica = store;
+    }
+
+    public synchronized ReplicaCustomerStore getReplica() {
+        return replica;
+    }
+
+    /**
+     * Adds a customer unless their userID or email is already registered.
+     *
+     * @param customer The customer to add.
+     * @return true if the customer was added, false if it was invalid or a duplicate.
+     */
+    public synchronized boolean add(Customer customer) {
+        if (customer == null || customer.getUserID() == null || customer.getEmail() == null) {
+            return false;
+        }
+        if (customersByID.containsKey(customer.getUserID()) || customersByEmail.containsKey(customer.getEmail())) {
+            return false;
+        }
+        checkJournalCapacity();
+        if (replica != null) {
+            // First, so that a customer the replica cannot hold is not registered either
+            replica.replace(customer);
+        }
+        customersByID.put(customer.getUserID(), new Entry(customer, nextSequence++));
+        customersByEmail.put(customer.getEmail(), customer);
+        orderedViewStale = true;
+        if (journal != null) {
+            journal.recordCustomerAdded(customer);
+        }
+        return true;
+    }
+
+    /**
+     * Removes the customer with the given userID from both indexes.
+     *
+     * @param userID The userID of the customer to remove.
+     * @return The removed customer, or null if no such customer was registered.
+     */
+    public synchronized Customer remove(String userID) {
+        if (userID == null) {
+            return null;
+        }
+        checkJournalCapacity();
+        Entry removed = customersByID.remove(userID);
+        if (removed == null) {
+            return null;
+        }
+        customersByEmail.remove(removed.customer.getEmail(), removed.customer);
+        orderedViewStale = true;
+        if (replica != null) {
+            replica.delete(userID);
+        }
+        if (journal != null) {
+            journal.recordCustomerDeleted(userID);
+        }
+        return removed.customer;
+    }
+
+    /**
+     * Records that the details of a registered customer were edited, so that
+     * the change is persisted when a journal is attached.
+     *
+     * @param customer The customer whose details changed.
+     */
+    public synchronized void updated(Customer customer) {
+        if (customer == null || findByUserID(customer.getUserID()) != customer) {
+            return;
+        }
+        checkJournalCapacity();
+        if (replica != null) {
+            replica.replace(customer);
+        }
+        if (journal != null) {
+            journal.recordCustomerUpdated(customer);
+        }
+    }
+
+    /**
+     * Removes every customer from the repository.
+     */
+    public synchronized void clear() {
+        if (replica != null) {
+            for (String userID : customersByID.keySet()) {
+                replica.delete(userID);
+            }
+        }
+        customersByID.clear();
+        customersByEmail.clear();
+        orderedViewStale = true;
+    }
+
+    /**
+     * Changes the email of a registered customer and re-indexes them under it.
+     *
+     * @param customer The registered customer whose email is changing.
+     * @param newEmail The new email address.
+     * @return true if the email was changed, false if it is invalid, used by another customer or the customer is not
+     * registered.
+     */
+    public synchronized boolean changeEmail(Customer customer, String newEmail) {
+        if (customer == null || newEmail == null || findByUserID(customer.getUserID()) != customer) {
+            return false;
+        }
+        Customer owner = customersByEmail.get(newEmail);
+        if (owner == customer) {
+            return true;
+        }
+        if (owner != null) {
+            return false;
+        }
+        if (customer.getEmail() != null) {
+            customersByEmail.remove(customer.getEmail(), customer);
+        }
+        customer.setEmail(newEmail);
+        customersByEmail.put(newEmail, customer);
+        if (replica != null) {
+            replica.replace(customer);
+        }
+        return true;
+    }
+
+    /**
+     * Finds the customer with the given userID.
+     *
+     * @param userID The userID to search for.
+     * @return The customer if registered, null otherwise.
+     */
+    @Override
+    public Customer findByUserID(String userID) {
+        long start = Metrics.start();
+        Entry entry = userID == null ? null : customersByID.get(userID);
+        Metrics.FIND_CUSTOMER_BY_ID.record(start, entry != null);
+        return entry == null ? null : entry.customer;
+    }
+
+    /**
+     * Finds the customer registered with the given email.
+     *
+     * @param email The email to search for.
+     * @return The customer if registered, null otherwise.
+     */
+    @Override
+    public Customer findByEmail(String email) {
+        long start = Metrics.start();
+        Customer customer = email == null ? null : customersByEmail.get(email);
+        Metrics.FIND_CUSTOMER_BY_EMAIL.record(start, customer != null);
+        return customer;
+    }
+
+    /**
+     * Returns true if the given email is already registered, false otherwise.
+     *
+     * @param email The email to check.
+     */
+    @Override
+    public boolean containsEmail(String email) {
+        long start = Metrics.start();
+        boolean registered = email != null && customersByEmail.containsKey(email);
+        Metrics.FIND_CUSTOMER_BY_EMAIL.record(start, registered);
+        return registered;
+    }
+
+    /**
+     * Returns the registered customer that a copy found in another store
+     * stands for, so that searches and logins served by a replica hand out
+     * the one Customer, with its booking ledger and passenger, that bookings
+     * are made against.
+     *
+     * @param found A customer found in a replica, or null.
+     * @return The registered customer with the same userID, or null if there is none.
+     */
+    public Customer resolve(Customer found) {
+        Entry entry = found == null || found.getUserID() == null ? null : customersByID.get(found.getUserID());
+        return entry == null ? null : entry.customer;
+    }
+
+    @Override
+    public int size() {
+        return customersByID.size();
+    }
+
+    public boolean isEmpty() {
+        return customersByID.isEmpty();
+    }
+
+    /**
+     * Returns the registered customers in the order they were added. The
+     * returned list is a read-only snapshot; it is shared between callers until
+     * the repository changes again.
+     *
+     * @return The registered customers in registration order.
+     */
+    public List<Customer> asList() {
+        if (orderedViewStale) {
+            synchronized (this) {
+                if (orderedViewStale) {
+                    orderedViewStale = false;
+                    List<Entry> entries = new ArrayList<>(customersByID.values());
+                    entries.sort(Comparator.comparingLong(entry -> entry.sequence));
+                    List<Customer> customers = new ArrayList<>(entries.size());
+                    for (Entry entry : entries) {
+                        customers.add(entry.customer);
+                    }
+                    orderedView = Collections.unmodifiableList(customers);
+                }
+            }
+        }
+        return orderedView;
+    }
+
+    /**
+     * Index entry pairing a customer with their registration sequence number.
+     */
+    private static final class Entry {
+        private final Customer customer;
+        private final long sequence;
+
+        private Entry(Customer customer, long sequence) {
+            this.customer = customer;
+            this.sequence = sequence;
+        }
+    }
+}
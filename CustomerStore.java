@@ -0,0 +1,30 @@
+/**
+ * The customer lookups that searches and logins need, shared by the storage
+ * backends so that either one can serve them: the CustomerRepository, the
+ * ColumnarCustomerStore and the OffHeapCustomerStore.
+ */
+public interface CustomerStore {
+
+    /**
+     * @param userID The userID to look up.
+     * @return The customer with the given userID, or null if there is none.
+     */
+    Customer findByUserID(String userID);
+
+    /**
+     * @param email The email to look up.
+     * @return The customer with the given email, or null if there is none.
+     */
+    Customer findByEmail(String email);
+
+    /**
+     * @param email The email to check.
+     * @return true if a customer with the given email is stored.
+     */
+    boolean containsEmail(String email);
+
+    /**
+     * @return The number of customers stored.
+     */
+    int size();
+}
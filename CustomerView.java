@@ -0,0 +1,128 @@
+import java.util.List;
+
+/**
+ * A Customer that reads and writes its details in a ColumnarCustomerStore
+ * row instead of holding them itself. Views are created on demand and hold
+ * nothing but the store and the row, so they can be dropped right after use.
+ */
+final class CustomerView extends Customer {
+    private final ColumnarCustomerStore store; // Store holding the details
+    private final int row; // Row of the customer in the store
+
+    CustomerView(ColumnarCustomerStore store, int row) {
+        this.store = store;
+        this.row = row;
+    }
+
+    int getRow() {
+        return row;
+    }
+
+    @Override
+    public String getUserID() {
+        return store.userIDAt(row);
+    }
+
+    @Override
+    public String getName() {
+        return store.nameAt(row);
+    }
+
+    @Override
+    public String getEmail() {
+        return store.emailAt(row);
+    }
+
+    @Override
+    public String getPassword() {
+        return store.passwordAt(row);
+    }
+
+    @Override
+    public String getPhone() {
+        return store.phoneAt(row);
+    }
+
+    @Override
+    public String getAddress() {
+        return store.addressAt(row);
+    }
+
+    @Override
+    public int getAge() {
+        return store.ageAt(row);
+    }
+
+    @Override
+    public void setName(String name) {
+        store.setName(row, name);
+    }
+
+    /**
+     * Changes the email unless another customer of the store already uses it.
+     */
+    @Override
+    void setEmail(String email) {
+        store.changeEmail(row, email);
+    }
+
+    @Override
+    public void setPhone(String phone) {
+        store.setPhone(row, phone);
+    }
+
+    @Override
+    public void setAddress(String address) {
+        store.setAddress(row, address);
+    }
+
+    @Override
+    public void setAge(int age) {
+        store.setAge(row, age);
+    }
+
+    /**
+     * Bookings are kept in BookingLedgers, not in the store, and a view is
+     * created per lookup, so it cannot hold a ledger or passenger of its own.
+     */
+    @Override
+    public List<Flight> getFlightsRegisteredByUser() {
+        return List.of();
+    }
+
+    @Override
+    public List<Integer> getNumOfTicketsBookedByUser() {
+        return List.of();
+    }
+
+    /**
+     * @throws UnsupportedOperationException always; customers of the columnar store do not book.
+     */
+    @Override
+    public BookingLedger getBookingLedger() {
+        throw new UnsupportedOperationException("Customers of the columnar store have no booking ledger");
+    }
+
+    /**
+     * @throws UnsupportedOperationException always; customers of the columnar store do not book.
+     */
+    @Override
+    public Passenger asPassenger(String passportNumber) {
+        throw new UnsupportedOperationException("Customers of the columnar store have no passenger");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CustomerView && ((CustomerView) o).store == store && ((CustomerView) o).row == row;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * System.identityHashCode(store) + row;
+    }
+
+    @Override
+    public String toString() {
+        return "Customer[" + getUserID() + ", " + getName() + ", " + getEmail() + "]";
+    }
+}
@@ -0,0 +1,131 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Index of scheduled flights by route and departure instant.
+ * <p>
+ * Each route, i.e. pair of departure and destination city, has its own
+ * skip list ordered by departure instant and flight number, so a time-window
+ * query seeks to the start of the window in O(log n) and then walks only the
+ * k flights it returns. Flights whose departure time cannot be parsed are not
+ * indexed. Reads are lock-free; callers serialize writes for the same flight.
+ * </p>
+ */
+public class DepartureIndex {
+    private final ConcurrentHashMap<String, ConcurrentSkipListSet<Entry>> departuresByRoute = new ConcurrentHashMap<>(); // Departures of each route
+    private final ConcurrentHashMap<String, Entry> entriesByFlight = new ConcurrentHashMap<>(); // Indexed entry of each flight by normalized flight number
+
+    /**
+     * Indexes a flight under its current route and departure time, replacing
+     * any entry the flight had before.
+     *
+     * @param flight The flight to index.
+     * @return true if the flight was indexed, false if its flight number, route or departure time is unknown.
+     */
+    public boolean add(Flight flight) {
+        String flightKey = FlightRegistry.normalize(flight.getFlightNumber());
+        if (flightKey == null) {
+            return false;
+        }
+        remove(flightKey);
+        String routeKey = routeKey(flight.getFromWhichCity(), flight.getToWhichCity());
+        if (routeKey == null || !flight.hasKnownDeparture()) {
+            return false;
+        }
+        Entry entry = new Entry(flight.getDepartureEpochSecond(), flightKey, flight, routeKey);
+        departuresByRoute.computeIfAbsent(routeKey, key -> new ConcurrentSkipListSet<>()).add(entry);
+        entriesByFlight.put(flightKey, entry);
+        return true;
+    }
+
+    /**
+     * Removes a flight from the index.
+     *
+     * @param flightNumber The flight number of the flight to remove.
+     */
+    public void remove(String flightNumber) {
+        String flightKey = FlightRegistry.normalize(flightNumber);
+        Entry entry = flightKey == null ? null : entriesByFlight.remove(flightKey);
+        if (entry != null) {
+            departuresByRoute.get(entry.routeKey).remove(entry);
+        }
+    }
+
+    /**
+     * Returns one page of the flights on a route departing within a time window.
+     *
+     * @param fromCity       The departure city.
+     * @param toCity         The destination city.
+     * @param startInclusive The start of the window in seconds since the epoch.
+     * @param endExclusive   The end of the window in seconds since the epoch.
+     * @param after          The cursor returned with the previous page, or null for the first page.
+     * @param pageSize       The maximum number of flights to return.
+     * @return The flights of the page in departure order.
+     */
+    public DeparturePage page(String fromCity, String toCity, long startInclusive, long endExclusive,
+                              DeparturePage.Cursor after, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        String routeKey = routeKey(fromCity, toCity);
+        ConcurrentSkipListSet<Entry> departures = routeKey == null ? null : departuresByRoute.get(routeKey);
+        List<Flight> flights = new ArrayList<>(Math.min(pageSize, 64));
+        if (departures == null) {
+            return new DeparturePage(flights, null);
+        }
+        boolean resume = after != null && after.departureEpochSecond >= startInclusive;
+        Entry lower = resume ? new Entry(after.departureEpochSecond, after.flightKey, null, null)
+                : new Entry(startInclusive, "", null, null);
+        Entry upper = new Entry(endExclusive, "", null, null);
+        if (lower.compareTo(upper) >= 0) {
+            return new DeparturePage(flights, null);
+        }
+        NavigableSet<Entry> window = departures.subSet(lower, !resume, upper, false);
+        Iterator<Entry> iterator = window.iterator();
+        Entry last = null;
+        while (flights.size() < pageSize && iterator.hasNext()) {
+            last = iterator.next();
+            flights.add(last.flight);
+        }
+        DeparturePage.Cursor nextCursor = last != null && iterator.hasNext()
+                ? new DeparturePage.Cursor(last.departureEpochSecond, last.flightKey) : null;
+        return new DeparturePage(flights, nextCursor);
+    }
+
+    private static String routeKey(String fromCity, String toCity) {
+        if (fromCity == null || toCity == null || fromCity.isBlank() || toCity.isBlank()) {
+            return null;
+        }
+        return fromCity.trim().toLowerCase(Locale.ROOT) + '\n' + toCity.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Immutable index entry, so a flight can be found and removed even after its
+     * fields were changed. Ordered by departure and then by flight number; the
+     * empty flight number sorts before all others and marks window bounds.
+     */
+    private static final class Entry implements Comparable<Entry> {
+        final long departureEpochSecond;
+        final String flightKey;
+        final Flight flight;
+        final String routeKey;
+
+        Entry(long departureEpochSecond, String flightKey, Flight flight, String routeKey) {
+            this.departureEpochSecond = departureEpochSecond;
+            this.flightKey = flightKey;
+            this.flight = flight;
+            this.routeKey = routeKey;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byDeparture = Long.compare(departureEpochSecond, other.departureEpochSecond);
+            return byDeparture != 0 ? byDeparture : flightKey.compareTo(other.flightKey);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of flights departing within a time window, in departure order,
+ * together with the cursor to pass back to get the next page.
+ */
+public final class DeparturePage {
+    private final List<Flight> flights; // Flights of this page in departure order
+    private final Cursor nextCursor; // Position after the last flight of this page, null if this is the last page
+
+    DeparturePage(List<Flight> flights, Cursor nextCursor) {
+        this.flights = Collections.unmodifiableList(flights);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Flight> getFlights() {
+        return flights;
+    }
+
+    /**
+     * @return true if more flights depart within the window after this page.
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    /**
+     * @return The cursor for the next page, or null if this is the last page.
+     */
+    public Cursor getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Position in the departure order of a route: a departure instant and the
+     * flight number that breaks ties between flights departing at that instant.
+     * Cursors stay valid when flights are added or removed in between pages.
+     */
+    public static final class Cursor {
+        final long departureEpochSecond; // Departure of the last flight returned
+        final String flightKey; // Normalized flight number of the last flight returned
+
+        Cursor(long departureEpochSecond, String flightKey) {
+            this.departureEpochSecond = departureEpochSecond;
+            this.flightKey = flightKey;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Computes the block time of flights, from pushback at the origin gate to
+ * arrival at the destination gate, and with it their arrival. As described in
+ * FlightDistance.displayMeasurementInstructions, the block time is the
+ * great-circle distance between the two cities flown at a constant ground
+ * speed, 450 knots unless changed, plus an optional allowance for taxiing.
+ * <p>
+ * Results are cached in primitive fields on each Flight, so reading an ETA is
+ * a field read and nobody repeats the haversine. update() refreshes a single
+ * flight; once attached with FlightScheduler.setEtaService(), the scheduler
+ * calls it for every flight it schedules or reschedules. Changing the speed
+ * model recomputes the whole schedule in parallel with fork/join, in
+ * fixed-size chunks of flights.
+ * </p>
+ */
+public class EtaService {
+    public static final double DEFAULT_GROUND_SPEED_KNOTS = 450; // Ground speed the guidelines assume
+    private static final double KM_PER_NAUTICAL_MILE = 1.852;
+    private static final int CHUNK_SIZE = 2048; // Flights updated by one task
+
+    private final FlightScheduler flightScheduler; // Flights whose ETAs are maintained
+    private final RouteDistanceMatrix distanceMatrix; // Distances between the cities flown
+    private final ForkJoinPool pool; // Runs the recomputation of the schedule
+    private volatile SpeedModel speedModel = new SpeedModel(DEFAULT_GROUND_SPEED_KNOTS, 0); // Current speed model
+
+    /**
+     * Creates a service over the shared distance matrix that recomputes on the common fork/join pool.
+     *
+     * @param flightScheduler The scheduler holding the flights.
+     */
+    public EtaService(FlightScheduler flightScheduler) {
+        this(flightScheduler, RouteDistanceMatrix.getInstance(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a service over the given distances that recomputes on the given pool.
+     *
+     * @param flightScheduler The scheduler holding the flights.
+     * @param distanceMatrix  Distances between the cities served.
+     * @param pool            The pool the schedule is recomputed on.
+     */
+    public EtaService(FlightScheduler flightScheduler, RouteDistanceMatrix distanceMatrix, ForkJoinPool pool) {
+        this.flightScheduler = flightScheduler;
+        this.distanceMatrix = distanceMatrix;
+        this.pool = pool;
+    }
+
+    public double getGroundSpeedKnots() {
+        return speedModel.groundSpeedKnots;
+    }
+
+    public int getTaxiMinutes() {
+        return speedModel.taxiMinutes;
+    }
+
+    /**
+     * Changes the speed model and recomputes the ETAs of every scheduled flight.
+     *
+     * @param groundSpeedKnots The ground speed in knots.
+     * @param taxiMinutes      Minutes added to every flight for taxiing at both ends.
+     * @return The number of flights whose block time is known.
+     * @throws IllegalArgumentException if the speed is not positive or the taxi allowance is negative.
+     */
+    public synchronized int setSpeedModel(double groundSpeedKnots, int taxiMinutes) {
+        if (!(groundSpeedKnots > 0) || Double.isInfinite(groundSpeedKnots) || taxiMinutes < 0) {
+            throw new IllegalArgumentException("Ground speed must be positive and taxi minutes not negative: "
+                    + groundSpeedKnots + " knots, " + taxiMinutes + " minutes");
+        }
+        speedModel = new SpeedModel(groundSpeedKnots, taxiMinutes);
+        return recomputeAll();
+    }
+
+    /**
+     * Recomputes the ETAs of every scheduled flight in parallel with the current speed model.
+     *
+     * @return The number of flights whose block time is known.
+     */
+    public synchronized int recomputeAll() {
+        List<Flight> flightList = flightScheduler.getFlightList();
+        Flight[] flights = flightList.toArray(new Flight[0]);
+        if (flights.length == 0) {
+            return 0;
+        }
+        return pool.invoke(new UpdateTask(flights, speedModel, 0, flights.length));
+    }
+
+    /**
+     * Computes and stores the block time and arrival of one flight with the current speed model.
+     *
+     * @param flight The flight to update.
+     * @return true if the block time is known, false if the distance of the flight is unknown.
+     */
+    public boolean update(Flight flight) {
+        return update(flight, speedModel);
+    }
+
+    /**
+     * @param fromCity Name of the departure city.
+     * @param toCity   Name of the destination city.
+     * @return The block time between the two cities in minutes with the current speed model, or -1 if either city
+     * is not served.
+     */
+    public int blockTimeInMinutes(String fromCity, String toCity) {
+        double distanceInKm = distanceMatrix.distanceInKm(fromCity, toCity);
+        return Double.isNaN(distanceInKm) ? FlightTimes.UNKNOWN_FLIGHT_TIME
+                : speedModel.blockTimeInMinutes(distanceInKm);
+    }
+
+    private boolean update(Flight flight, SpeedModel model) {
+        double distanceInKm = distanceMatrix.distanceInKm(flight.getFromWhichCity(), flight.getToWhichCity());
+        if (Double.isNaN(distanceInKm) && flight.getDistanceInKm() > 0) {
+            // A city missing from the matrix; use the distance the flight was created with
+            distanceInKm = flight.getDistanceInKm();
+        }
+        int blockTime = Double.isNaN(distanceInKm) ? FlightTimes.UNKNOWN_FLIGHT_TIME
+                : model.blockTimeInMinutes(distanceInKm);
+        flight.setBlockTimeInMinutes(blockTime);
+        return blockTime != FlightTimes.UNKNOWN_FLIGHT_TIME;
+    }
+
+    /**
+     * Ground speed and taxi allowance, replaced as a whole so a recomputation never mixes two models.
+     */
+    private static final class SpeedModel {
+        private final double groundSpeedKnots;
+        private final int taxiMinutes;
+
+        private SpeedModel(double groundSpeedKnots, int taxiMinutes) {
+            this.groundSpeedKnots = groundSpeedKnots;
+            this.taxiMinutes = taxiMinutes;
+        }
+
+        private int blockTimeInMinutes(double distanceInKm) {
+            double hours = distanceInKm / KM_PER_NAUTICAL_MILE / groundSpeedKnots;
+            return (int) Math.min(Integer.MAX_VALUE, Math.round(hours * 60) + taxiMinutes);
+        }
+    }
+
+    /**
+     * Updates a range of flights, splitting it until each task has at most one chunk.
+     */
+    private final class UpdateTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+        private final Flight[] flights;
+        private final SpeedModel model;
+        private final int from;
+        private final int to;
+
+        private UpdateTask(Flight[] flights, SpeedModel model, int from, int to) {
+            this.flights = flights;
+            this.model = model;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (to - from > CHUNK_SIZE) {
+                int middle = (from + to) >>> 1;
+                UpdateTask right = new UpdateTask(flights, model, middle, to);
+                right.fork();
+                int known = new UpdateTask(flights, model, from, middle).compute();
+                return known + right.join();
+            }
+            int known = 0;
+            for (int i = from; i < to; i++) {
+                if (update(flights[i], model)) {
+                    known++;
+                }
+            }
+            return known;
+        }
+    }
+}
@@ -1,5 +1,7 @@
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Represents a flight in the airline management system.
@@ -13,10 +15,18 @@ public class Flight {
     private double distanceInMiles; // Distance in miles
     private double distanceInKm; // Distance in kilometers
     private String flightTime; // Estimated flight time
-    private int numOfSeatsInTheFlight; // Total number of seats available
-    private List<Passenger> listOfRegisteredPassengers; // List of passengers registered for the flight
+    private int flightTimeInMinutes; // Flight time parsed into minutes, FlightTimes.UNKNOWN_FLIGHT_TIME if it is not parsable
+    private final SeatInventory seatInventory; // Seats still available for booking
+    private volatile SeatMap seatMap; // Seat assignments, created on first use
+    private final Object rosterLock = new Object(); // Serializes changes to the roster
+    private volatile FlightRoster roster = FlightRoster.EMPTY; // Registered passengers and their tickets, replaced on every change
+    private final Map<Passenger, int[]> seatsByPassenger = new HashMap<>(); // Seats each passenger holds, guarded by rosterLock
     private String destination; // Destination
-    private String departureTime; // Departure time
+    // The departure and arrival times are written under the flight's monitor and read without a lock
+    private volatile String departureTime; // Departure time
+    private volatile long departureEpochSecond = FlightTimes.UNKNOWN_DEPARTURE; // Departure time parsed into seconds since the epoch
+    private volatile int blockTimeInMinutes = FlightTimes.UNKNOWN_FLIGHT_TIME; // Gate-to-gate time computed by the EtaService
+    private volatile long arrivalEpochSecond = FlightTimes.UNKNOWN_DEPARTURE; // Departure plus block time, unknown if either is
 
     /**
      * Constructor to initialize a Flight object.
@@ -39,14 +49,17 @@ public class Flight {
         this.distanceInMiles = distanceInMiles;
         this.distanceInKm = distanceInKm;
         this.flightTime = flightTime;
-        this.numOfSeatsInTheFlight = numOfSeatsInTheFlight;
-        this.listOfRegisteredPassengers = new ArrayList<>();
+        this.flightTimeInMinutes = FlightTimes.parseFlightTime(flightTime);
+        this.seatInventory = new SeatInventory(numOfSeatsInTheFlight);
     }
 
     public Flight(String flightNumber, String destination, String departureTime) {
         this.flightNumber = flightNumber;
         this.destination = destination;
         this.departureTime = departureTime;
+        this.departureEpochSecond = FlightTimes.parseDepartureTime(departureTime);
+        this.flightTimeInMinutes = FlightTimes.UNKNOWN_FLIGHT_TIME;
+        this.seatInventory = new SeatInventory(0);
     }
 
     // Getters and Setters
@@ -104,28 +117,151 @@ public class Flight {
 
     public void setFlightTime(String flightTime) {
         this.flightTime = flightTime;
+        this.flightTimeInMinutes = FlightTimes.parseFlightTime(flightTime);
+    }
+
+    /**
+     * @return The flight time in minutes, or -1 if the flight time is not in a known format.
+     */
+    public int getFlightTimeInMinutes() {
+        return flightTimeInMinutes;
     }
 
     public int getNumOfSeatsInTheFlight() {
-        return numOfSeatsInTheFlight;
+        return seatInventory.getAvailableSeats();
+    }
+
+    /**
+     * Sets the seats available, e.g. when a snapshot is restored. Not journaled; the seat count of a scheduled flight
+     * only changes through bookings and cancellations.
+     */
+    void setNumOfSeatsInTheFlight(int numOfSeatsInTheFlight) {
+        seatInventory.setAvailableSeats(numOfSeatsInTheFlight);
     }
 
-    public void setNumOfSeatsInTheFlight(int numOfSeatsInTheFlight) {
-        this.numOfSeatsInTheFlight = numOfSeatsInTheFlight;
+    public SeatInventory getSeatInventory() {
+        return seatInventory;
+    }
+
+    /**
+     * Gets the seat assignments of the flight, creating an empty seat map on
+     * first use. The cabin is sized for the seats still available plus the
+     * tickets already booked; bookings made before the seat map existed, and
+     * any made without tryBookSeats(), hold no particular seats. Every
+     * cancellation frees the seats its tickets held, so the seat map always
+     * has at least as many free seats as the inventory has available.
+     *
+     * @return The seat map.
+     */
+    public SeatMap getSeatMap() {
+        SeatMap map = seatMap;
+        if (map == null) {
+            synchronized (this) {
+                map = seatMap;
+                if (map == null) {
+                    int numOfBookedTickets = roster.getTotalTickets();
+                    map = new SeatMap(CabinLayout.forCapacity(seatInventory.getAvailableSeats() + numOfBookedTickets));
+                    seatMap = map;
+                }
+            }
+        }
+        return map;
     }
 
+    /**
+     * @return The passengers registered for the flight and their tickets as of the latest change, read without locking.
+     */
+    public FlightRoster getRoster() {
+        return roster;
+    }
+
+    /**
+     * @return A read-only list of the passengers registered for the flight, in registration order.
+     */
     public List<Passenger> getListOfRegisteredPassengers() {
-        return listOfRegisteredPassengers;
+        return roster.getPassengers();
+    }
+
+    public int getNumOfRegisteredPassengers() {
+        return roster.size();
     }
 
     public String getDestination() {
         return destination;
     }
 
+    public void setDestination(String destination) {
+        this.destination = destination;
+    }
+
     public String getDepartureTime() {
         return departureTime;
     }
 
+    /**
+     * Sets the departure time. Use FlightScheduler.rescheduleFlight() for a
+     * scheduled flight, so that its departure index stays up to date.
+     *
+     * @param departureTime The departure time, e.g. "2026-10-18T08:30Z".
+     */
+    public synchronized void setDepartureTime(String departureTime) {
+        this.departureTime = departureTime;
+        this.departureEpochSecond = FlightTimes.parseDepartureTime(departureTime);
+        updateArrival();
+    }
+
+    /**
+     * @return The departure in seconds since the epoch, or Long.MIN_VALUE if the departure time is not in a known format.
+     */
+    public long getDepartureEpochSecond() {
+        return departureEpochSecond;
+    }
+
+    /**
+     * @return true if the departure time could be parsed.
+     */
+    public boolean hasKnownDeparture() {
+        return departureEpochSecond != FlightTimes.UNKNOWN_DEPARTURE;
+    }
+
+    /**
+     * @return The gate-to-gate time in minutes computed by the EtaService, or -1 if it has not been computed.
+     */
+    public int getBlockTimeInMinutes() {
+        return blockTimeInMinutes;
+    }
+
+    /**
+     * Stores the block time computed by the EtaService and the arrival it implies.
+     *
+     * @param blockTimeInMinutes The block time in minutes, or FlightTimes.UNKNOWN_FLIGHT_TIME.
+     */
+    synchronized void setBlockTimeInMinutes(int blockTimeInMinutes) {
+        this.blockTimeInMinutes = blockTimeInMinutes;
+        updateArrival();
+    }
+
+    /**
+     * @return The arrival at the gate in seconds since the epoch, or Long.MIN_VALUE if the departure or block time is
+     * unknown.
+     */
+    public long getArrivalEpochSecond() {
+        return arrivalEpochSecond;
+    }
+
+    /**
+     * @return true if both the departure and the block time are known.
+     */
+    public boolean hasKnownArrival() {
+        return arrivalEpochSecond != FlightTimes.UNKNOWN_DEPARTURE;
+    }
+
+    private void updateArrival() {
+        arrivalEpochSecond = departureEpochSecond == FlightTimes.UNKNOWN_DEPARTURE
+                || blockTimeInMinutes == FlightTimes.UNKNOWN_FLIGHT_TIME
+                ? FlightTimes.UNKNOWN_DEPARTURE : departureEpochSecond + blockTimeInMinutes * 60L;
+    }
+
     /**
      * Adds a passenger to the flight.
      *
@@ -133,11 +269,14 @@ public class Flight {
      * @return true if the passenger was added successfully, false otherwise.
      */
     public boolean addPassenger(Passenger passenger) {
-        if (passenger != null && !listOfRegisteredPassengers.contains(passenger)) {
-            listOfRegisteredPassengers.add(passenger);
-            return true;
+        if (passenger == null) {
+            return false;
+        }
+        synchronized (rosterLock) {
+            FlightRoster current = roster;
+            roster = current.withTickets(passenger, 0);
+            return roster != current;
         }
-        return false;
     }
 
     /**
@@ -147,7 +286,195 @@ public class Flight {
      * @return true if the passenger was removed successfully, false otherwise.
      */
     public boolean removePassenger(Passenger passenger) {
-        return listOfRegisteredPassengers.remove(passenger);
+        if (passenger == null) {
+            return false;
+        }
+        synchronized (rosterLock) {
+            FlightRoster current = roster;
+            roster = current.withoutTickets(passenger, Integer.MAX_VALUE);
+            return roster != current;
+        }
+    }
+
+    /**
+     * Adds booked tickets to the passenger's ledger and to the roster,
+     * registering the passenger if needed. Both change under the roster lock,
+     * so the roster always agrees with the ledgers, and the booking is
+     * appended to the journal under the same lock, so the journal lists the
+     * changes of a flight in the order they were made. Called by
+     * FlightReservation once the seats are reserved.
+     *
+     * @param passenger    The passenger who booked.
+     * @param numOfTickets The number of tickets booked.
+     * @param seats        The seats assigned to the tickets in the seat map, or null if none were assigned.
+     * @param journal      The journal to record the booking in, or null if it is not persisted.
+     */
+    void addTickets(Passenger passenger, int numOfTickets, int[] seats, BookingJournal journal) {
+        synchronized (rosterLock) {
+            passenger.getBookingLedger().addTickets(this, numOfTickets);
+            roster = roster.withTickets(passenger, numOfTickets);
+            if (seats != null && seats.length > 0) {
+                int[] held = seatsByPassenger.getOrDefault(passenger, new int[0]);
+                int[] newHeld = Arrays.copyOf(held, held.length + seats.length);
+                System.arraycopy(seats, 0, newHeld, held.length, seats.length);
+                seatsByPassenger.put(passenger, newHeld);
+            }
+            if (journal != null && seats != null && seats.length > 0) {
+                journal.recordSeatBooking(this, passenger, seats);
+            } else if (journal != null) {
+                journal.recordBooking(this, passenger, numOfTickets);
+            }
+        }
+    }
+
+    /**
+     * Takes canceled tickets off the passenger's ledger and off the roster,
+     * dropping the flight from the ledger and the passenger from the roster
+     * once no tickets are left, and appends the cancellation to the journal
+     * under the roster lock. Tickets without an assigned seat are canceled
+     * first; once only seated tickets are left, the seats assigned last are
+     * freed in the seat map. Called by FlightReservation.
+     *
+     * @param passenger    The passenger who canceled.
+     * @param numOfTickets The number of tickets canceled.
+     * @param journal      The journal to record the cancellation in, or null if it is not persisted.
+     * @return The number of tickets left, or -1 if the passenger holds fewer tickets, in which case nothing changes.
+     */
+    int removeTickets(Passenger passenger, int numOfTickets, BookingJournal journal) {
+        synchronized (rosterLock) {
+            int remainingTickets = passenger.getBookingLedger().removeTickets(this, numOfTickets);
+            if (remainingTickets >= 0) {
+                roster = roster.withoutTickets(passenger, numOfTickets);
+                int[] held = seatsByPassenger.get(passenger);
+                if (held != null && held.length > remainingTickets) {
+                    // More seats are held than tickets are left; free the ones assigned last
+                    releaseHeldSeats(passenger, Arrays.copyOfRange(held, remainingTickets, held.length),
+                            Arrays.copyOf(held, remainingTickets));
+                }
+                if (journal != null) {
+                    journal.recordCancellation(this, passenger, numOfTickets);
+                }
+            }
+            return remainingTickets;
+        }
+    }
+
+    /**
+     * Adds the bookings of a group to the ledgers and the roster like
+     * addTickets(), all under one hold of the roster lock, and records the
+     * whole group with a single journal append.
+     *
+     * @param passengers   The passengers who booked.
+     * @param numOfTickets The number of tickets each passenger booked.
+     * @param count        The number of bookings in the arrays to add.
+     * @param journal      The journal to record the bookings in, or null if they are not persisted.
+     */
+    void addGroupTickets(Passenger[] passengers, int[] numOfTickets, int count, BookingJournal journal) {
+        synchronized (rosterLock) {
+            FlightRoster newRoster = roster;
+            for (int i = 0; i < count; i++) {
+                passengers[i].getBookingLedger().addTickets(this, numOfTickets[i]);
+                newRoster = newRoster.withTickets(passengers[i], numOfTickets[i]);
+            }
+            roster = newRoster;
+            if (journal != null) {
+                journal.recordGroupBooking(this, passengers, numOfTickets, count);
+            }
+        }
+    }
+
+    /**
+     * Cancels the tickets of particular seats held by the passenger, taking
+     * them off the ledger and the roster and freeing the seats, all under the
+     * roster lock like removeTickets().
+     *
+     * @param passenger The passenger who canceled.
+     * @param seats     The seats to cancel, each held by the passenger.
+     * @param journal   The journal to record the cancellation in, or null if it is not persisted.
+     * @return The number of tickets left, or -1 if the passenger does not hold every one of the seats, in which
+     * case nothing changes.
+     */
+    int removeSeats(Passenger passenger, int[] seats, BookingJournal journal) {
+        synchronized (rosterLock) {
+            int[] held = seatsByPassenger.get(passenger);
+            if (held == null || seats.length > held.length) {
+                return -1;
+            }
+            // Strike each seat off a copy of the held seats, so a seat listed twice is rejected too
+            int[] kept = held.clone();
+            int numOfKept = kept.length;
+            for (int seat : seats) {
+                int i = 0;
+                while (i < numOfKept && kept[i] != seat) {
+                    i++;
+                }
+                if (i == numOfKept) {
+                    return -1;
+                }
+                System.arraycopy(kept, i + 1, kept, i, numOfKept - i - 1);
+                numOfKept--;
+            }
+            int remainingTickets = passenger.getBookingLedger().removeTickets(this, seats.length);
+            if (remainingTickets < 0) {
+                return -1;
+            }
+            roster = roster.withoutTickets(passenger, seats.length);
+            releaseHeldSeats(passenger, seats, Arrays.copyOf(kept, numOfKept));
+            if (journal != null) {
+                journal.recordSeatCancellation(this, passenger, seats);
+            }
+            return remainingTickets;
+        }
+    }
+
+    /**
+     * Frees seats in the seat map and records the seats the passenger keeps. Called under the roster lock.
+     */
+    private void releaseHeldSeats(Passenger passenger, int[] released, int[] kept) {
+        if (kept.length == 0) {
+            seatsByPassenger.remove(passenger);
+        } else {
+            seatsByPassenger.put(passenger, kept);
+        }
+        getSeatMap().release(released);
+    }
+
+    /**
+     * Takes particular seats in the seat map for a passenger whose tickets
+     * are already booked, e.g. when restoring the seat assignments of a
+     * snapshot. Seats that are out of range or already taken are skipped.
+     *
+     * @param passenger The passenger holding the seats.
+     * @param seats     The seats to take, in the order they were assigned.
+     * @return The number of seats taken.
+     */
+    int restoreSeats(Passenger passenger, int[] seats) {
+        synchronized (rosterLock) {
+            SeatMap map = getSeatMap();
+            int[] held = seatsByPassenger.getOrDefault(passenger, new int[0]);
+            int[] newHeld = Arrays.copyOf(held, held.length + seats.length);
+            int numOfHeld = held.length;
+            for (int seat : seats) {
+                if (seat >= 0 && seat < map.getLayout().getNumOfSeats() && map.assignSeat(seat)) {
+                    newHeld[numOfHeld++] = seat;
+                }
+            }
+            if (numOfHeld > 0) {
+                seatsByPassenger.put(passenger, Arrays.copyOf(newHeld, numOfHeld));
+            }
+            return numOfHeld - held.length;
+        }
+    }
+
+    /**
+     * @param passenger The passenger to look up.
+     * @return The seats the passenger holds on the flight, in the order they were assigned; empty if none.
+     */
+    public int[] getSeats(Passenger passenger) {
+        synchronized (rosterLock) {
+            int[] held = seatsByPassenger.get(passenger);
+            return held == null ? new int[0] : held.clone();
+        }
     }
 
     /**
@@ -157,13 +484,14 @@ public class Flight {
      * @return true if the passenger is registered, false otherwise.
      */
     public boolean isPassengerRegistered(Passenger passenger) {
-        return listOfRegisteredPassengers.contains(passenger);
+        return roster.contains(passenger);
     }
 
     /**
      * Displays the list of registered passengers for the flight.
      */
     public void displayRegisteredPassengers() {
+        List<Passenger> listOfRegisteredPassengers = getListOfRegisteredPassengers();
         if (listOfRegisteredPassengers.isEmpty()) {
             System.out.println("No passengers registered for flight " + flightNumber);
         } else {
@@ -184,12 +512,17 @@ public class Flight {
 
     @Override
     public int hashCode() {
-        return flightNumber.toLowerCase().hashCode();
+        // Case-insensitive hash consistent with equalsIgnoreCase(), computed without allocating a lower-cased copy
+        int h = 0;
+        for (int i = 0; i < flightNumber.length(); i++) {
+            h = 31 * h + Character.toLowerCase(Character.toUpperCase(flightNumber.charAt(i)));
+        }
+        return h;
     }
 
     @Override
     public String toString() {
         return String.format("Flight Number: %s, From: %s, To: %s, Gate: %s, Distance: %.2f miles (%.2f km), Flight Time: %s, Available Seats: %d",
-                flightNumber, fromWhichCity, toWhichCity, gate, distanceInMiles, distanceInKm, flightTime, numOfSeatsInTheFlight);
+                flightNumber, fromWhichCity, toWhichCity, gate, distanceInMiles, distanceInKm, flightTime, seatInventory.getAvailableSeats());
     }
 }
\ No newline at end of file
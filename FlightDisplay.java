@@ -2,8 +2,14 @@ import java.util.List;
 
 /**
  * Implements the DisplayClass interface to display flight and passenger information.
+ * Tables are formatted by a TableRenderer; the display methods render to System.out
+ * and the write methods render to any destination the renderer supports.
  */
 public class FlightDisplay implements DisplayClass {
+    private static final String FLIGHTS_SEPARATOR =
+            "+------+-------------------+-------------------+-------------------+-------------------+";
+    private static final String USERS_SEPARATOR =
+            "+------+------------+------------+----------------------------------+---------+-----------------------------+-------------------------------------+-------------------------+----------------+";
 
     /**
      * Displays all flights registered by a specific passenger.
@@ -12,27 +18,43 @@ public class FlightDisplay implements DisplayClass {
      */
     @Override
     public void displayFlightsRegisteredByOneUser(Passenger passenger) {
+        TableRenderer renderer = new TableRenderer(System.out);
+        writeFlightsRegisteredByOneUser(passenger, renderer);
+        renderer.flush();
+    }
+
+    /**
+     * Writes all flights registered by a specific passenger.
+     *
+     * @param passenger The passenger whose flights are to be written.
+     * @param renderer  The renderer to write the table to.
+     */
+    public void writeFlightsRegisteredByOneUser(Passenger passenger, TableRenderer renderer) {
         if (passenger == null) {
-            System.out.println("Invalid passenger.");
+            renderer.line("Invalid passenger.");
             return;
         }
 
-        List<Flight> flights = passenger.getFlightsRegisteredByUser();
-        List<Integer> tickets = passenger.getNumOfTicketsBookedByUser();
+        // One snapshot for the whole table, so bookings made meanwhile neither break nor skew it
+        LedgerSnapshot bookings = passenger.getBookingLedger().snapshot();
 
-        if (flights.isEmpty()) {
-            System.out.println("No flights registered for passenger " + passenger.getName());
+        if (bookings.isEmpty()) {
+            renderer.text("No flights registered for passenger ").text(String.valueOf(passenger.getName())).newline();
         } else {
-            System.out.println("Flights registered by passenger " + passenger.getName() + ":");
-            System.out.println("+------+-------------------+-------------------+-------------------+-------------------+");
-            System.out.println("| Num  | Flight Number     | Departure City    | Destination City  | Tickets Booked    |");
-            System.out.println("+------+-------------------+-------------------+-------------------+-------------------+");
-            for (int i = 0; i < flights.size(); i++) {
-                Flight flight = flights.get(i);
-                System.out.printf("| %-4d | %-17s | %-17s | %-17s | %-17d |%n",
-                        (i + 1), flight.getFlightNumber(), flight.getFromWhichCity(), flight.getToWhichCity(), tickets.get(i));
+            renderer.text("Flights registered by passenger ").text(String.valueOf(passenger.getName())).line(":");
+            renderer.line(FLIGHTS_SEPARATOR);
+            renderer.line("| Num  | Flight Number     | Departure City    | Destination City  | Tickets Booked    |");
+            renderer.line(FLIGHTS_SEPARATOR);
+            for (int i = 0; i < bookings.size(); i++) {
+                Flight flight = bookings.getFlight(i);
+                renderer.text("| ").left(i + 1, 4)
+                        .text(" | ").left(flight.getFlightNumber(), 17)
+                        .text(" | ").left(flight.getFromWhichCity(), 17)
+                        .text(" | ").left(flight.getToWhichCity(), 17)
+                        .text(" | ").left(bookings.getTickets(i), 17)
+                        .text(" |").newline();
             }
-            System.out.println("+------+-------------------+-------------------+-------------------+-------------------+");
+            renderer.line(FLIGHTS_SEPARATOR);
         }
     }
 
@@ -43,13 +65,25 @@ public class FlightDisplay implements DisplayClass {
      */
     @Override
     public void displayRegisteredUsersForAllFlight(List<Flight> flightList) {
+        TableRenderer renderer = new TableRenderer(System.out);
+        writeRegisteredUsersForAllFlight(flightList, renderer);
+        renderer.flush();
+    }
+
+    /**
+     * Writes all registered passengers for all flights.
+     *
+     * @param flightList The list of flights to write registered passengers for.
+     * @param renderer   The renderer to write the tables to.
+     */
+    public void writeRegisteredUsersForAllFlight(List<Flight> flightList, TableRenderer renderer) {
         if (flightList == null || flightList.isEmpty()) {
-            System.out.println("No flights available.");
+            renderer.line("No flights available.");
             return;
         }
 
         for (Flight flight : flightList) {
-            displayRegisteredUsersForASpecificFlight(flight);
+            writeRegisteredUsersForASpecificFlight(flight, renderer);
         }
     }
 
@@ -61,16 +95,31 @@ public class FlightDisplay implements DisplayClass {
      */
     @Override
     public void displayHeaderForUsers(Flight flight, List<Passenger> passengers) {
+        TableRenderer renderer = new TableRenderer(System.out);
+        writeHeaderForUsers(flight, passengers, renderer);
+        renderer.flush();
+    }
+
+    /**
+     * Writes the header for the list of registered passengers for a flight.
+     *
+     * @param flight     The flight for which the header is written.
+     * @param passengers The list of passengers registered for the flight.
+     * @param renderer   The renderer to write the header to.
+     */
+    public void writeHeaderForUsers(Flight flight, List<Passenger> passengers, TableRenderer renderer) {
         if (flight == null || passengers == null) {
-            System.out.println("Invalid flight or passenger list.");
+            renderer.line("Invalid flight or passenger list.");
             return;
         }
 
-        System.out.printf("%n%65s Displaying Registered Customers for Flight No. \"%-6s\" %s %n%n",
-                "+++++++++++++", flight.getFlightNumber(), "+++++++++++++");
-        System.out.println("+------+------------+------------+----------------------------------+---------+-----------------------------+-------------------------------------+-------------------------+----------------+");
-        System.out.println("| Num  | UserID     | Name       | Email                            | Age     | Phone Number                | Address                             | Tickets Booked          |");
-        System.out.println("+------+------------+------------+----------------------------------+---------+-----------------------------+-------------------------------------+-------------------------+----------------+");
+        renderer.newline()
+                .right("+++++++++++++", 65)
+                .text(" Displaying Registered Customers for Flight No. \"").left(flight.getFlightNumber(), 6)
+                .text("\" +++++++++++++ ").newline().newline();
+        renderer.line(USERS_SEPARATOR);
+        renderer.line("| Num  | UserID     | Name       | Email                            | Age     | Phone Number                | Address                             | Tickets Booked          |");
+        renderer.line(USERS_SEPARATOR);
     }
 
     /**
@@ -80,23 +129,42 @@ public class FlightDisplay implements DisplayClass {
      */
     @Override
     public void displayRegisteredUsersForASpecificFlight(Flight flight) {
+        TableRenderer renderer = new TableRenderer(System.out);
+        writeRegisteredUsersForASpecificFlight(flight, renderer);
+        renderer.flush();
+    }
+
+    /**
+     * Writes all registered passengers for a specific flight.
+     *
+     * @param flight   The flight for which registered passengers are written.
+     * @param renderer The renderer to write the table to.
+     */
+    public void writeRegisteredUsersForASpecificFlight(Flight flight, TableRenderer renderer) {
         if (flight == null) {
-            System.out.println("Invalid flight.");
+            renderer.line("Invalid flight.");
             return;
         }
 
-        List<Passenger> passengers = flight.getListOfRegisteredPassengers();
-        if (passengers.isEmpty()) {
-            System.out.println("No passengers registered for flight " + flight.getFlightNumber());
+        // One roster for the whole manifest: passengers and ticket counts as of the same moment
+        FlightRoster roster = flight.getRoster();
+        if (roster.isEmpty()) {
+            renderer.text("No passengers registered for flight ").text(flight.getFlightNumber()).newline();
         } else {
-            displayHeaderForUsers(flight, passengers);
-            for (int i = 0; i < passengers.size(); i++) {
-                Passenger passenger = passengers.get(i);
-                System.out.printf("| %-4d | %-10s | %-10s | %-32s | %-7d | %-27s | %-35s | %-23d |%n",
-                        (i + 1), passenger.getUserID(), passenger.getName(), passenger.getEmail(),
-                        passenger.getAge(), passenger.getPhone(), passenger.getAddress(), passenger.getNumOfTicketsBookedByUser().get(i));
+            writeHeaderForUsers(flight, roster.getPassengers(), renderer);
+            for (int i = 0; i < roster.size(); i++) {
+                Passenger passenger = roster.getPassenger(i);
+                renderer.text("| ").left(i + 1, 4)
+                        .text(" | ").left(passenger.getUserID(), 10)
+                        .text(" | ").left(passenger.getName(), 10)
+                        .text(" | ").left(passenger.getEmail(), 32)
+                        .text(" | ").left(passenger.getAge(), 7)
+                        .text(" | ").left(passenger.getPhone(), 27)
+                        .text(" | ").left(passenger.getAddress(), 35)
+                        .text(" | ").left(roster.getTickets(i), 23)
+                        .text(" |").newline();
             }
-            System.out.println("+------+------------+------------+----------------------------------+---------+-----------------------------+-------------------------------------+-------------------------+----------------+");
+            renderer.line(USERS_SEPARATOR);
         }
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,8 @@
 public abstract class FlightDistance {
     public abstract String toString(int i);
 
+    public abstract double calculateDistanceInKm(double lat1, double lon1, double lat2, double lon2);
+
     public abstract String[] calculateDistance(double lat1, double lon1, double lat2, double lon2);
 
     public void displayMeasurementInstructions() {
@@ -0,0 +1,141 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hash-indexed store of scheduled flights keyed by normalized flight number.
+ * Lookups, adds and removes are constant time; the insertion-ordered list view
+ * is rebuilt lazily only when it is read after the registry has changed.
+ */
+public class FlightRegistry {
+    private final ConcurrentHashMap<String, Entry> flightsByNumber = new ConcurrentHashMap<>(); // Index of flights by normalized number
+    private final AtomicLong nextSequence = new AtomicLong(); // Insertion order of registered flights
+    private volatile List<Flight> orderedView = Collections.emptyList(); // Cached insertion-ordered view
+    private volatile boolean orderedViewStale; // Set whenever the registry changes
+
+    /**
+     * Normalizes a flight number into the key used by the index.
+     *
+     * @param flightNumber The flight number to normalize.
+     * @return The trimmed, lower-cased flight number, or null if it is blank.
+     */
+    static String normalize(String flightNumber) {
+        if (flightNumber == null) {
+            return null;
+        }
+        String key = flightNumber.trim();
+        return key.isEmpty() ? null : key.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Registers a flight unless one with the same flight number already exists.
+     *
+     * @param flight The flight to register.
+     * @return true if the flight was added, false if it was invalid or already registered.
+     */
+    public boolean add(Flight flight) {
+        String key = flight == null ? null : normalize(flight.getFlightNumber());
+        if (key == null) {
+            return false;
+        }
+        if (flightsByNumber.putIfAbsent(key, new Entry(flight, nextSequence.getAndIncrement())) != null) {
+            return false;
+        }
+        orderedViewStale = true;
+        return true;
+    }
+
+    /**
+     * Removes the flight with the given flight number.
+     *
+     * @param flightNumber The flight number of the flight to remove.
+     * @return The removed flight, or null if no such flight was registered.
+     */
+    public Flight remove(String flightNumber) {
+        String key = normalize(flightNumber);
+        if (key == null) {
+            return null;
+        }
+        Entry removed = flightsByNumber.remove(key);
+        if (removed == null) {
+            return null;
+        }
+        orderedViewStale = true;
+        return removed.flight;
+    }
+
+    /**
+     * Finds the flight with the given flight number.
+     *
+     * @param flightNumber The flight number to search for.
+     * @return The flight if registered, null otherwise.
+     */
+    public Flight find(String flightNumber) {
+        String key = normalize(flightNumber);
+        if (key == null) {
+            return null;
+        }
+        Entry entry = flightsByNumber.get(key);
+        return entry == null ? null : entry.flight;
+    }
+
+    /**
+     * Checks whether a flight with the given flight number is registered.
+     *
+     * @param flightNumber The flight number to check.
+     * @return true if the flight is registered, false otherwise.
+     */
+    public boolean contains(String flightNumber) {
+        return find(flightNumber) != null;
+    }
+
+    public int size() {
+        return flightsByNumber.size();
+    }
+
+    public boolean isEmpty() {
+        return flightsByNumber.isEmpty();
+    }
+
+    /**
+     * Returns the registered flights in the order they were added. The returned
+     * list is a read-only snapshot; it is shared between callers until the
+     * registry changes again.
+     *
+     * @return The registered flights in insertion order.
+     */
+    public List<Flight> asList() {
+        if (orderedViewStale) {
+            synchronized (this) {
+                if (orderedViewStale) {
+                    orderedViewStale = false;
+                    List<Entry> entries = new ArrayList<>(flightsByNumber.values());
+                    entries.sort(Comparator.comparingLong(entry -> entry.sequence));
+                    List<Flight> flights = new ArrayList<>(entries.size());
+                    for (Entry entry : entries) {
+                        flights.add(entry.flight);
+                    }
+                    orderedView = Collections.unmodifiableList(flights);
+                }
+            }
+        }
+        return orderedView;
+    }
+
+    /**
+     * Index entry pairing a flight with its insertion sequence number.
+     */
+    private static final class Entry {
+        private final Flight flight;
+        private final long sequence;
+
+        private Entry(Flight flight, long sequence) {
+            this.flight = flight;
+            this.sequence = sequence;
+        }
+    }
+}
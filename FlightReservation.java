@@ -1,10 +1,53 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Handles flight booking and cancellation for passengers.
  * Ensures that flight seats are managed correctly and passengers are registered or unregistered from flights.
+ * Passengers can wait on sold-out flights; their requests are booked automatically when cancellations free seats,
+ * and while any request is waiting on a flight, new bookings of it are refused so they cannot take the freed seats.
  */
 public class FlightReservation {
+    private volatile BookingJournal journal; // Records bookings and cancellations, null if they are not persisted
+    private final ConcurrentHashMap<Flight, Waitlist> waitlists = new ConcurrentHashMap<>(); // Created on first use
+    private volatile Executor waitlistExecutor = ForkJoinPool.commonPool(); // Runs waitlist promotions and their callbacks
+
+    /**
+     * Sets the journal that successful bookings and cancellations are appended to.
+     *
+     * @param journal The journal to append to, or null to stop journaling.
+     */
+    public void setJournal(BookingJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Sets the executor waitlist promotions and listener callbacks run on.
+     *
+     * @param executor The executor to use; the common fork/join pool by default.
+     */
+    public void setWaitlistExecutor(Executor executor) {
+        this.waitlistExecutor = executor;
+    }
+
+    /**
+     * Makes sure the journal can record a change before the change is made.
+     *
+     * @throws IllegalStateException if the journal is full.
+     */
+    private void checkJournalCapacity() {
+        BookingJournal journal = this.journal;
+        if (journal != null) {
+            journal.checkCapacity();
+        }
+    }
 
     /**
      * Books a flight for a passenger with the specified number of tickets.
@@ -19,19 +62,7 @@ public class FlightReservation {
             return;
         }
 
-        if (flight.getNumOfSeatsInTheFlight() >= numOfTickets) {
-            // Update available seats in the flight
-            flight.setNumOfSeatsInTheFlight(flight.getNumOfSeatsInTheFlight() - numOfTickets);
-
-            // Add the flight to the passenger's list of registered flights
-            passenger.getFlightsRegisteredByUser().add(flight);
-
-            // Add the number of tickets to the passenger's list of booked tickets
-            passenger.getNumOfTicketsBookedByUser().add(numOfTickets);
-
-            // Add the passenger to the flight's list of registered passengers
-            flight.addPassenger(passenger);
-
+        if (tryBook(flight, passenger, numOfTickets)) {
             System.out.printf("Successfully booked %d tickets for flight %s for passenger %s.%n",
                     numOfTickets, flight.getFlightNumber(), passenger.getName());
         } else {
@@ -39,6 +70,168 @@ public class FlightReservation {
         }
     }
 
+    /**
+     * Books a flight for a passenger without printing anything.
+     *
+     * @param flight       The flight to be booked.
+     * @param passenger    The passenger booking the flight.
+     * @param numOfTickets The number of tickets to book.
+     * @return true if the tickets were booked, false if the input is invalid, not enough seats are available or
+     * requests are waiting on the flight.
+     * @throws IllegalStateException if the journal is full; nothing is changed then.
+     */
+    public boolean tryBook(Flight flight, Passenger passenger, int numOfTickets) {
+        long start = Metrics.start();
+        boolean booked = false;
+        if (flight != null && passenger != null && numOfTickets > 0 && !hasWaitlist(flight)) {
+            checkJournalCapacity();
+            // Atomically take the seats from the flight's inventory so concurrent bookings cannot oversell it
+            booked = flight.getSeatInventory().tryReserve(numOfTickets);
+            if (booked) {
+                registerBooking(flight, passenger, numOfTickets, null);
+            }
+        }
+        Metrics.BOOK.record(start, booked);
+        return booked;
+    }
+
+    /**
+     * Books a flight and assigns seats to the tickets, keeping the group in
+     * one row if possible and otherwise in as few blocks as possible.
+     * Nothing is printed.
+     *
+     * @param flight       The flight to be booked.
+     * @param passenger    The passenger booking the flight.
+     * @param numOfTickets The number of tickets to book.
+     * @return The assigned seats, to be shown with the flight's CabinLayout, or null if nothing was booked, e.g.
+     * because requests are waiting on the flight.
+     * @throws IllegalStateException if the journal is full; nothing is changed then.
+     */
+    public int[] tryBookSeats(Flight flight, Passenger passenger, int numOfTickets) {
+        long start = Metrics.start();
+        int[] seats = null;
+        if (flight != null && passenger != null && numOfTickets > 0 && !hasWaitlist(flight)) {
+            checkJournalCapacity();
+            // Created before the tickets are reserved, so a new seat map is sized for them too
+            SeatMap seatMap = flight.getSeatMap();
+            if (flight.getSeatInventory().tryReserve(numOfTickets)) {
+                seats = seatMap.assign(numOfTickets);
+                if (seats == null) {
+                    // The seat count was raised beyond the cabin after the seat map was created
+                    flight.getSeatInventory().release(numOfTickets);
+                } else {
+                    registerBooking(flight, passenger, numOfTickets, seats);
+                }
+            }
+        }
+        Metrics.BOOK.record(start, seats != null);
+        return seats;
+    }
+
+    /**
+     * Books particular seats, e.g. when replaying a journal, taking the
+     * tickets from the inventory and the seats from the seat map.
+     *
+     * @param flight    The flight to be booked.
+     * @param passenger The passenger booking the flight.
+     * @param seats     The seats to book.
+     * @return true if the seats were booked, false if not enough tickets are available or a seat is taken.
+     */
+    boolean restoreSeatBooking(Flight flight, Passenger passenger, int[] seats) {
+        SeatMap seatMap = flight.getSeatMap();
+        if (seats.length == 0 || !flight.getSeatInventory().tryReserve(seats.length)) {
+            return false;
+        }
+        for (int i = 0; i < seats.length; i++) {
+            if (seats[i] < 0 || seats[i] >= seatMap.getLayout().getNumOfSeats() || !seatMap.assignSeat(seats[i])) {
+                seatMap.release(Arrays.copyOf(seats, i));
+                flight.getSeatInventory().release(seats.length);
+                return false;
+            }
+        }
+        registerBooking(flight, passenger, seats.length, seats);
+        return true;
+    }
+
+    /**
+     * Books a batch of requests. Requests are grouped by flight and the seats of
+     * each group are taken from the flight's inventory in a single step; only if
+     * a flight cannot seat its whole group are the requests of that group
+     * reserved one by one, in the order they were submitted. The bookings of a
+     * group are then registered together and journaled as a single record.
+     * Requests for a flight that others are waiting on get NOT_ENOUGH_SEATS.
+     * Nothing is printed.
+     *
+     * @param requests The booking requests to process.
+     * @return One result per request, in the same order as the requests.
+     * @throws IllegalStateException if the journal is full; nothing is changed then.
+     */
+    public List<BookingResult> bookFlights(Collection<BookingRequest> requests) {
+        BookingRequest[] batch = requests.toArray(new BookingRequest[0]);
+        BookingResult.Status[] statuses = new BookingResult.Status[batch.length];
+
+        // Group the positions of the valid requests by flight
+        Map<Flight, List<Integer>> requestsByFlight = new LinkedHashMap<>();
+        for (int i = 0; i < batch.length; i++) {
+            if (batch[i] == null || !batch[i].isValid()) {
+                statuses[i] = BookingResult.Status.INVALID_REQUEST;
+            } else {
+                requestsByFlight.computeIfAbsent(batch[i].getFlight(), f -> new ArrayList<>()).add(i);
+            }
+        }
+        if (!requestsByFlight.isEmpty()) {
+            checkJournalCapacity();
+        }
+
+        for (Map.Entry<Flight, List<Integer>> group : requestsByFlight.entrySet()) {
+            SeatInventory seatInventory = group.getKey().getSeatInventory();
+            long totalTickets = 0;
+            for (int i : group.getValue()) {
+                totalTickets += batch[i].getNumOfTickets();
+            }
+            boolean waitlisted = hasWaitlist(group.getKey());
+            boolean groupReserved = !waitlisted && totalTickets <= Integer.MAX_VALUE
+                    && seatInventory.tryReserve((int) totalTickets);
+            Passenger[] passengers = new Passenger[group.getValue().size()];
+            int[] numOfTickets = new int[passengers.length];
+            int numOfBooked = 0;
+            for (int i : group.getValue()) {
+                BookingRequest request = batch[i];
+                if (groupReserved || !waitlisted && seatInventory.tryReserve(request.getNumOfTickets())) {
+                    passengers[numOfBooked] = request.getPassenger();
+                    numOfTickets[numOfBooked++] = request.getNumOfTickets();
+                    statuses[i] = BookingResult.Status.BOOKED;
+                } else {
+                    statuses[i] = BookingResult.Status.NOT_ENOUGH_SEATS;
+                }
+            }
+            if (numOfBooked > 0) {
+                // Register the whole group under one hold of the roster lock and commit it with one journal append
+                group.getKey().addGroupTickets(passengers, numOfTickets, numOfBooked, journal);
+            }
+        }
+
+        BookingResult[] results = new BookingResult[batch.length];
+        for (int i = 0; i < batch.length; i++) {
+            results[i] = new BookingResult(batch[i], statuses[i]);
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Records a booking whose seats have already been reserved on the flight.
+     *
+     * @param flight       The booked flight.
+     * @param passenger    The passenger who booked the flight.
+     * @param numOfTickets The number of tickets booked.
+     * @param seats        The seats assigned to the tickets, or null if none were.
+     */
+    private void registerBooking(Flight flight, Passenger passenger, int numOfTickets, int[] seats) {
+        // Add the tickets to the passenger's ledger and the flight's roster, registering either side if it is new,
+        // and journal the booking under the same lock
+        flight.addTickets(passenger, numOfTickets, seats, journal);
+    }
+
     /**
      * Cancels a flight booking for a passenger and returns the tickets to the flight's available seats.
      *
@@ -52,27 +245,8 @@ public class FlightReservation {
             return;
         }
 
-        // Get the index of the flight in the passenger's list of registered flights
-        int index = passenger.getFlightsRegisteredByUser().indexOf(flight);
-
-        if (index != -1) {
-            // Get the number of tickets booked for this flight
-            int bookedTickets = passenger.getNumOfTicketsBookedByUser().get(index);
-
-            if (bookedTickets >= numOfTickets) {
-                // Update the number of available seats in the flight
-                flight.setNumOfSeatsInTheFlight(flight.getNumOfSeatsInTheFlight() + numOfTickets);
-
-                // Update the number of tickets booked by the passenger
-                passenger.getNumOfTicketsBookedByUser().set(index, bookedTickets - numOfTickets);
-
-                // If no tickets are left, remove the flight from the passenger's list
-                if (passenger.getNumOfTicketsBookedByUser().get(index) == 0) {
-                    passenger.getFlightsRegisteredByUser().remove(index);
-                    passenger.getNumOfTicketsBookedByUser().remove(index);
-                    flight.removePassenger(passenger); // Remove the passenger from the flight's list
-                }
-
+        if (passenger.getBookingLedger().contains(flight)) {
+            if (tryCancel(flight, passenger, numOfTickets)) {
                 System.out.printf("Successfully canceled %d tickets for flight %s for passenger %s.%n",
                         numOfTickets, flight.getFlightNumber(), passenger.getName());
             } else {
@@ -83,6 +257,191 @@ public class FlightReservation {
         }
     }
 
+    /**
+     * Cancels tickets of a passenger without printing anything.
+     *
+     * @param flight       The flight to be canceled.
+     * @param passenger    The passenger canceling the flight.
+     * @param numOfTickets The number of tickets to cancel.
+     * @return true if the tickets were canceled, false if the input is invalid or the passenger holds fewer tickets.
+     * @throws IllegalStateException if the journal is full; nothing is changed then.
+     */
+    public boolean tryCancel(Flight flight, Passenger passenger, int numOfTickets) {
+        long start = Metrics.start();
+        boolean canceled = cancelTickets(flight, passenger, numOfTickets);
+        Metrics.CANCEL.record(start, canceled);
+        if (canceled) {
+            promoteWaitlist(flight);
+        }
+        return canceled;
+    }
+
+    private boolean cancelTickets(Flight flight, Passenger passenger, int numOfTickets) {
+        if (flight == null || passenger == null || numOfTickets <= 0
+                || passenger.getBookingLedger().getTickets(flight) < numOfTickets) {
+            return false;
+        }
+        checkJournalCapacity();
+
+        // Take the tickets off the passenger's ledger and the flight's roster; each side drops the other once none are left.
+        // Seats the passenger no longer has tickets for are freed, and the cancellation is journaled under the same lock
+        if (flight.removeTickets(passenger, numOfTickets, journal) < 0) {
+            return false;
+        }
+
+        // Atomically return the seats to the flight's inventory
+        flight.getSeatInventory().release(numOfTickets);
+        return true;
+    }
+
+    /**
+     * Cancels tickets booked with tryBookSeats() and frees their seats.
+     *
+     * @param flight    The flight to be canceled.
+     * @param passenger The passenger canceling the flight.
+     * @param seats     The seats returned by tryBookSeats(), or some of them.
+     * @return true if the tickets were canceled, false if the input is invalid or the passenger does not hold every
+     * one of the seats, in which case nothing is canceled.
+     * @throws IllegalStateException if the journal is full; nothing is changed then.
+     */
+    public boolean tryCancelSeats(Flight flight, Passenger passenger, int[] seats) {
+        long start = Metrics.start();
+        boolean canceled = false;
+        if (flight != null && passenger != null && seats != null && seats.length > 0
+                && holdsSeats(flight, passenger, seats)) {
+            checkJournalCapacity();
+            // Frees the seats in the seat map along with the tickets, under the flight's roster lock
+            if (flight.removeSeats(passenger, seats, journal) >= 0) {
+                flight.getSeatInventory().release(seats.length);
+                canceled = true;
+            }
+        }
+        Metrics.CANCEL.record(start, canceled);
+        if (canceled) {
+            promoteWaitlist(flight);
+        }
+        return canceled;
+    }
+
+    /**
+     * Checks the seats before the journal is, so that a request for seats
+     * the passenger does not hold is refused even when the journal is full.
+     * Flight.removeSeats() checks them again under the roster lock.
+     */
+    private static boolean holdsSeats(Flight flight, Passenger passenger, int[] seats) {
+        int[] held = flight.getSeats(passenger);
+        Arrays.sort(held);
+        for (int seat : seats) {
+            if (Arrays.binarySearch(held, seat) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Puts a request on the waitlist of a flight. It is booked as soon as
+     * enough seats are free and every request ahead of it has been served;
+     * requests with a higher priority go first, equal priorities in the order
+     * they joined. Bookings made while it waits are refused, so freed seats
+     * go to the waitlist first. The promoted tickets are given seats like
+     * tryBookSeats() does, unless the cabin cannot hold them. If seats are
+     * free right now the request is booked shortly after joining, so a client
+     * can join straight after a failed tryBook().
+     *
+     * @param flight       The flight to wait on.
+     * @param passenger    The passenger waiting.
+     * @param numOfTickets The number of tickets to book.
+     * @param priority     The priority of the request; 0 for plain first come, first served.
+     * @param listener     Called on the waitlist executor once the tickets are booked, may be null.
+     * @return The entry, to check its state or leave the waitlist with.
+     * @throws IllegalArgumentException if the flight or passenger is null or numOfTickets is not positive.
+     */
+    public WaitlistEntry joinWaitlist(Flight flight, Passenger passenger, int numOfTickets, int priority,
+                                      WaitlistListener listener) {
+        if (flight == null || passenger == null || numOfTickets <= 0) {
+            throw new IllegalArgumentException("Flight, passenger, and number of tickets must be valid.");
+        }
+        WaitlistEntry entry = waitlists.computeIfAbsent(flight, f -> new Waitlist())
+                .add(flight, passenger, numOfTickets, priority, listener);
+        // Seats may have been freed between the caller's failed booking and joining
+        promoteWaitlist(flight);
+        return entry;
+    }
+
+    /**
+     * Takes a request off its flight's waitlist.
+     *
+     * @param entry The entry returned by joinWaitlist().
+     * @return true if the request was still waiting, false if it was already booked or withdrawn.
+     */
+    public boolean leaveWaitlist(WaitlistEntry entry) {
+        Waitlist waitlist = entry == null ? null : waitlists.get(entry.getFlight());
+        return waitlist != null && waitlist.withdraw(entry);
+    }
+
+    /**
+     * @param flight The flight to check.
+     * @return The number of requests waiting on the flight.
+     */
+    public int getWaitlistSize(Flight flight) {
+        Waitlist waitlist = waitlists.get(flight);
+        return waitlist == null ? 0 : waitlist.size();
+    }
+
+    /**
+     * Drops the waitlist of a flight that was removed from the schedule,
+     * withdrawing its requests without calling their listeners.
+     *
+     * @param flight The removed flight.
+     */
+    public void discardWaitlist(Flight flight) {
+        Waitlist waitlist = flight == null ? null : waitlists.remove(flight);
+        if (waitlist != null) {
+            waitlist.withdrawAll();
+        }
+    }
+
+    private boolean hasWaitlist(Flight flight) {
+        Waitlist waitlist = waitlists.get(flight);
+        return waitlist != null && waitlist.hasWaiting();
+    }
+
+    private void promoteWaitlist(Flight flight) {
+        Waitlist waitlist = waitlists.get(flight);
+        if (waitlist != null && waitlist.hasWaiting()) {
+            waitlist.signal(waitlistExecutor, this::promote);
+        }
+    }
+
+    /**
+     * Books the tickets of a waitlisted request if enough seats are free.
+     *
+     * @return false if there are not enough seats, true if the entry was booked or had been withdrawn meanwhile.
+     */
+    private boolean promote(WaitlistEntry entry) {
+        Flight flight = entry.getFlight();
+        try {
+            checkJournalCapacity();
+        } catch (IllegalStateException e) {
+            // Keep the entry waiting until a checkpoint has made room in the journal
+            return false;
+        }
+        // Created before the tickets are reserved, so a new seat map is sized for them too
+        SeatMap seatMap = flight.getSeatMap();
+        if (!flight.getSeatInventory().tryReserve(entry.getNumOfTickets())) {
+            return false;
+        }
+        if (entry.finish(WaitlistEntry.PROMOTED)) {
+            // Null if the seat count was raised beyond the cabin, which books the tickets without seats like tryBook()
+            int[] seats = seatMap.assign(entry.getNumOfTickets());
+            registerBooking(flight, entry.getPassenger(), entry.getNumOfTickets(), seats);
+        } else {
+            flight.getSeatInventory().release(entry.getNumOfTickets());
+        }
+        return true;
+    }
+
     /**
      * Displays all flights registered by a passenger.
      *
@@ -94,16 +453,15 @@ public class FlightReservation {
             return;
         }
 
-        List<Flight> flights = passenger.getFlightsRegisteredByUser();
-        List<Integer> tickets = passenger.getNumOfTicketsBookedByUser();
+        LedgerSnapshot bookings = passenger.getBookingLedger().snapshot();
 
-        if (flights.isEmpty()) {
+        if (bookings.isEmpty()) {
             System.out.println("No flights registered for passenger " + passenger.getName());
         } else {
             System.out.println("Flights registered by passenger " + passenger.getName() + ":");
-            for (int i = 0; i < flights.size(); i++) {
+            for (int i = 0; i < bookings.size(); i++) {
                 System.out.printf("Flight: %s, Tickets Booked: %d%n",
-                        flights.get(i).getFlightNumber(), tickets.get(i));
+                        bookings.getFlight(i).getFlightNumber(), bookings.getTickets(i));
             }
         }
     }
@@ -0,0 +1,203 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An immutable point-in-time view of the passengers registered on a flight
+ * and the tickets each of them holds, in registration order.
+ * <p>
+ * A flight publishes a new roster on every change by copying the previous
+ * one, so readers take the current roster with a single volatile read and
+ * can render it at leisure while bookings go on; they never lock, never see
+ * a half-applied booking and never get a ConcurrentModificationException.
+ * The version grows by one with every change, so two rosters of the same
+ * flight can be ordered and a reader can tell whether anything changed.
+ * </p>
+ * <p>
+ * Passengers are found through an open-addressing hash index of positions
+ * keyed by passport number, published with the arrays, so lookups are O(1).
+ * Changing the tickets of a registered passenger copies only the ticket
+ * array and shares the passengers and index; registering or unregistering a
+ * passenger copies the arrays and the index. Every change therefore costs one
+ * O(n) array copy, without any comparisons.
+ * </p>
+ */
+public final class FlightRoster {
+    static final FlightRoster EMPTY = new FlightRoster(0, new Passenger[0], new int[0], 0, new int[2]);
+
+    private final long version; // Number of changes the flight's roster had seen when this view was taken
+    private final Passenger[] passengers; // Registered passengers, in registration order
+    private final int[] tickets; // Tickets held by the passenger at the same position
+    private final int totalTickets; // Sum of tickets
+    private final int[] slots; // Hash index of positions + 1 by passport number, 0 marks an empty slot; never changed
+
+    private FlightRoster(long version, Passenger[] passengers, int[] tickets, int totalTickets, int[] slots) {
+        this.version = version;
+        this.passengers = passengers;
+        this.tickets = tickets;
+        this.totalTickets = totalTickets;
+        this.slots = slots;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return passengers.length;
+    }
+
+    public boolean isEmpty() {
+        return passengers.length == 0;
+    }
+
+    public Passenger getPassenger(int index) {
+        return passengers[index];
+    }
+
+    /**
+     * @param index The position of a passenger in the roster.
+     * @return The tickets the passenger at that position held.
+     */
+    public int getTickets(int index) {
+        return tickets[index];
+    }
+
+    /**
+     * @param passenger The passenger to look up.
+     * @return The tickets the passenger held, or 0 if they were not registered.
+     */
+    public int getTickets(Passenger passenger) {
+        int position = positionOf(passenger);
+        return position < 0 ? 0 : tickets[position];
+    }
+
+    public boolean contains(Passenger passenger) {
+        return positionOf(passenger) >= 0;
+    }
+
+    /**
+     * @return The sum of the tickets held by all passengers.
+     */
+    public int getTotalTickets() {
+        return totalTickets;
+    }
+
+    /**
+     * @return The passengers as a read-only list backed by this roster.
+     */
+    public List<Passenger> getPassengers() {
+        return new AbstractList<Passenger>() {
+            @Override
+            public Passenger get(int index) {
+                return passengers[index];
+            }
+
+            @Override
+            public int size() {
+                return passengers.length;
+            }
+        };
+    }
+
+    /**
+     * Returns the roster after adding tickets to a passenger, registering the passenger if needed.
+     *
+     * @param numOfTickets The tickets to add, 0 to only register the passenger.
+     * @return The new roster, or this one if the passenger was registered and no tickets were added.
+     */
+    FlightRoster withTickets(Passenger passenger, int numOfTickets) {
+        int position = positionOf(passenger);
+        if (position >= 0) {
+            if (numOfTickets == 0) {
+                return this;
+            }
+            int[] newTickets = tickets.clone();
+            newTickets[position] += numOfTickets;
+            return new FlightRoster(version + 1, passengers, newTickets, totalTickets + numOfTickets, slots);
+        }
+        Passenger[] newPassengers = Arrays.copyOf(passengers, passengers.length + 1);
+        int[] newTickets = Arrays.copyOf(tickets, tickets.length + 1);
+        newPassengers[passengers.length] = passenger;
+        newTickets[tickets.length] = numOfTickets;
+        int[] newSlots;
+        if (newPassengers.length * 2 > slots.length) {
+            newSlots = buildIndex(newPassengers);
+        } else {
+            newSlots = slots.clone();
+            insert(newSlots, passenger.getPassportNumber(), passengers.length);
+        }
+        return new FlightRoster(version + 1, newPassengers, newTickets, totalTickets + numOfTickets, newSlots);
+    }
+
+    /**
+     * Returns the roster after taking tickets from a passenger, who is unregistered once none are left.
+     *
+     * @param numOfTickets The tickets to take, or Integer.MAX_VALUE to unregister the passenger outright.
+     * @return The new roster, or this one if the passenger was not registered.
+     */
+    FlightRoster withoutTickets(Passenger passenger, int numOfTickets) {
+        int position = positionOf(passenger);
+        if (position < 0) {
+            return this;
+        }
+        if (numOfTickets < tickets[position]) {
+            int[] newTickets = tickets.clone();
+            newTickets[position] -= numOfTickets;
+            return new FlightRoster(version + 1, passengers, newTickets, totalTickets - numOfTickets, slots);
+        }
+        int last = passengers.length - 1;
+        Passenger[] newPassengers = new Passenger[last];
+        int[] newTickets = new int[last];
+        System.arraycopy(passengers, 0, newPassengers, 0, position);
+        System.arraycopy(passengers, position + 1, newPassengers, position, last - position);
+        System.arraycopy(tickets, 0, newTickets, 0, position);
+        System.arraycopy(tickets, position + 1, newTickets, position, last - position);
+        // Everyone after the removed passenger moves up a position, so the index is rebuilt
+        return new FlightRoster(version + 1, newPassengers, newTickets, totalTickets - tickets[position],
+                buildIndex(newPassengers));
+    }
+
+    private int positionOf(Passenger passenger) {
+        if (passenger == null) {
+            return -1;
+        }
+        String passportNumber = passenger.getPassportNumber();
+        int mask = slots.length - 1;
+        for (int slot = mix(Objects.hashCode(passportNumber)) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            Passenger registered = passengers[slots[slot] - 1];
+            // Passengers are registered by passport number, but are nearly always the same object
+            if (registered == passenger
+                    || passportNumber != null && passportNumber.equals(registered.getPassportNumber())) {
+                return slots[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return An index of the given passengers with at most half of its slots used.
+     */
+    private static int[] buildIndex(Passenger[] passengers) {
+        int[] newSlots = new int[Math.max(2, Integer.highestOneBit(passengers.length) << 2)];
+        for (int i = 0; i < passengers.length; i++) {
+            insert(newSlots, passengers[i].getPassportNumber(), i);
+        }
+        return newSlots;
+    }
+
+    private static void insert(int[] slots, String passportNumber, int position) {
+        int mask = slots.length - 1;
+        int slot = mix(Objects.hashCode(passportNumber)) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = position + 1;
+    }
+
+    private static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -1,18 +1,182 @@
-import java.util.ArrayList;
+import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Handles the scheduling and management of flights in the airline system.
  * Allows adding, removing, and displaying flights.
  */
 public class FlightScheduler {
-    private List<Flight> flightList; // List of scheduled flights
+    private final FlightRegistry flightRegistry; // Scheduled flights indexed by flight number
+    private final DepartureIndex departureIndex = new DepartureIndex(); // Scheduled flights indexed by route and departure
+    private volatile BookingJournal journal; // Records schedule changes, null if they are not persisted
+    private volatile EtaService etaService; // Computes the ETAs of scheduled flights, null if none is attached
+    private volatile FlightReservation flightReservation; // Drops the waitlists of removed flights, null if none is attached
+    private final AtomicLong version = new AtomicLong(); // Incremented whenever a flight is added or removed
 
     /**
      * Constructor to initialize the FlightScheduler.
      */
     public FlightScheduler() {
-        this.flightList = new ArrayList<>();
+        this.flightRegistry = new FlightRegistry();
+    }
+
+    /**
+     * Sets the journal that scheduled and removed flights are appended to.
+     *
+     * @param journal The journal to append to, or null to stop journaling.
+     */
+    public void setJournal(BookingJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Sets the service that computes the block time and arrival of every
+     * flight as it is scheduled or rescheduled. Flights scheduled before are
+     * updated by EtaService.recomputeAll().
+     *
+     * @param etaService The service to use, or null to stop computing ETAs.
+     */
+    public void setEtaService(EtaService etaService) {
+        this.etaService = etaService;
+    }
+
+    /**
+     * Sets the reservation service whose waitlist of a flight is dropped when the flight is removed.
+     *
+     * @param flightReservation The service to notify, or null to notify none.
+     */
+    public void setFlightReservation(FlightReservation flightReservation) {
+        this.flightReservation = flightReservation;
+    }
+
+    private void updateEta(Flight flight) {
+        EtaService etaService = this.etaService;
+        if (etaService != null) {
+            etaService.update(flight);
+        }
+    }
+
+    /**
+     * Makes sure the journal can record a change before the change is made.
+     *
+     * @throws IllegalStateException if the journal is full.
+     */
+    private void checkJournalCapacity() {
+        BookingJournal journal = this.journal;
+        if (journal != null) {
+            journal.checkCapacity();
+        }
+    }
+
+    /**
+     * Schedules a new flight without printing anything.
+     *
+     * @param flight The flight to be scheduled.
+     * @return true if the flight was added, false if it is invalid or already scheduled.
+     */
+    public synchronized boolean addFlight(Flight flight) {
+        checkJournalCapacity();
+        if (!flightRegistry.add(flight)) {
+            return false;
+        }
+        departureIndex.add(flight);
+        version.incrementAndGet();
+        updateEta(flight);
+        BookingJournal journal = this.journal;
+        if (journal != null) {
+            journal.recordFlightScheduled(flight);
+        }
+        return true;
+    }
+
+    /**
+     * Removes a flight without printing anything, dropping its waitlist in the attached reservation service.
+     *
+     * @param flightNumber The flight number of the flight to be removed.
+     * @return The removed flight, or null if no such flight was scheduled.
+     */
+    public synchronized Flight deleteFlight(String flightNumber) {
+        checkJournalCapacity();
+        Flight removed = flightRegistry.remove(flightNumber);
+        if (removed != null) {
+            departureIndex.remove(flightNumber);
+            version.incrementAndGet();
+            FlightReservation flightReservation = this.flightReservation;
+            if (flightReservation != null) {
+                flightReservation.discardWaitlist(removed);
+            }
+        }
+        BookingJournal journal = this.journal;
+        if (removed != null && journal != null) {
+            journal.recordFlightRemoved(removed.getFlightNumber());
+        }
+        return removed;
+    }
+
+    /**
+     * Changes the departure time of a scheduled flight without printing anything,
+     * keeping the departure index up to date.
+     *
+     * @param flightNumber  The flight number of the flight to reschedule.
+     * @param departureTime The new departure time, e.g. "2026-10-18T08:30Z".
+     * @return true if the flight was rescheduled, false if no such flight is scheduled.
+     */
+    public synchronized boolean rescheduleFlight(String flightNumber, String departureTime) {
+        Flight flight = flightRegistry.find(flightNumber);
+        if (flight == null) {
+            return false;
+        }
+        checkJournalCapacity();
+        flight.setDepartureTime(departureTime);
+        departureIndex.add(flight);
+        updateEta(flight);
+        BookingJournal journal = this.journal;
+        if (journal != null) {
+            journal.recordFlightRescheduled(flight.getFlightNumber(), departureTime);
+        }
+        return true;
+    }
+
+    /**
+     * Finds the flights on a route departing within a time window, one page at
+     * a time. Only the flights of the requested page are visited and copied.
+     *
+     * @param fromCity    The departure city.
+     * @param toCity      The destination city.
+     * @param windowStart The start of the window, inclusive.
+     * @param windowEnd   The end of the window, exclusive.
+     * @param after       The cursor of the previous page, or null for the first page.
+     * @param pageSize    The maximum number of flights to return.
+     * @return The page of flights in departure order.
+     */
+    public DeparturePage findDepartures(String fromCity, String toCity, Instant windowStart, Instant windowEnd,
+                                        DeparturePage.Cursor after, int pageSize) {
+        return departureIndex.page(fromCity, toCity, windowStart.getEpochSecond(), windowEnd.getEpochSecond(), after,
+                pageSize);
+    }
+
+    /**
+     * Returns a number that changes whenever a flight is added or removed, so
+     * that data derived from the schedule can tell when it is out of date.
+     *
+     * @return The current version of the schedule.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Finds a flight by its flight number without printing anything.
+     *
+     * @param flightNumber The flight number to search for.
+     * @return The flight object if found, null otherwise.
+     */
+    public Flight lookupFlight(String flightNumber) {
+        long start = Metrics.start();
+        Flight flight = flightRegistry.find(flightNumber);
+        Metrics.FIND_FLIGHT.record(start, flight != null);
+        return flight;
     }
 
     /**
@@ -22,8 +186,7 @@ public class FlightScheduler {
      * @return true if the flight was added successfully, false otherwise.
      */
     public boolean scheduleFlight(Flight flight) {
-        if (flight != null && !flightList.contains(flight)) {
-            flightList.add(flight);
+        if (addFlight(flight)) {
             System.out.println("Flight scheduled successfully: " + flight.getFlightNumber());
             return true;
         } else {
@@ -44,16 +207,7 @@ public class FlightScheduler {
             return false;
         }
 
-        Flight flightToRemove = null;
-        for (Flight flight : flightList) {
-            if (flight.getFlightNumber().equalsIgnoreCase(flightNumber)) {
-                flightToRemove = flight;
-                break;
-            }
-        }
-
-        if (flightToRemove != null) {
-            flightList.remove(flightToRemove);
+        if (deleteFlight(flightNumber) != null) {
             System.out.println("Flight removed successfully: " + flightNumber);
             return true;
         } else {
@@ -66,11 +220,11 @@ public class FlightScheduler {
      * Displays all scheduled flights.
      */
     public void displayAllFlights() {
-        if (flightList.isEmpty()) {
+        if (flightRegistry.isEmpty()) {
             System.out.println("No flights scheduled.");
         } else {
             System.out.println("List of Scheduled Flights:");
-            for (Flight flight : flightList) {
+            for (Flight flight : flightRegistry.asList()) {
                 System.out.println(flight);
             }
         }
@@ -88,10 +242,9 @@ public class FlightScheduler {
             return null;
         }
 
-        for (Flight flight : flightList) {
-            if (flight.getFlightNumber().equalsIgnoreCase(flightNumber)) {
-                return flight;
-            }
+        Flight flight = lookupFlight(flightNumber);
+        if (flight != null) {
+            return flight;
         }
 
         System.out.println("Flight not found: " + flightNumber);
@@ -99,11 +252,12 @@ public class FlightScheduler {
     }
 
     /**
-     * Gets the list of all scheduled flights.
+     * Gets the list of all scheduled flights in the order they were scheduled.
+     * The list is a read-only view; use scheduleFlight() and removeFlight() to change it.
      *
      * @return The list of scheduled flights.
      */
     public List<Flight> getFlightList() {
-        return flightList;
+        return flightRegistry.asList();
     }
 }
\ No newline at end of file
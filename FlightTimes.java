@@ -0,0 +1,90 @@
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Parses the free-form departure and flight times stored on a Flight into
+ * primitive values that can be compared and indexed.
+ * <p>
+ * Departure times are ISO-8601 date-times such as "2026-10-18T08:30Z",
+ * "2026-10-18T08:30+05:00" or "2026-10-18 08:30"; times without an offset are
+ * taken as UTC. Flight times are durations written as "H:mm", e.g. "11:12",
+ * or ISO-8601 durations such as "PT3H30M".
+ * </p>
+ */
+final class FlightTimes {
+    static final long UNKNOWN_DEPARTURE = Long.MIN_VALUE; // Departure time that could not be parsed
+    static final int UNKNOWN_FLIGHT_TIME = -1; // Flight time that could not be parsed
+
+    private FlightTimes() {
+    }
+
+    /**
+     * @param departureTime The departure time as stored on the flight.
+     * @return The departure as seconds since the epoch, or UNKNOWN_DEPARTURE if it cannot be parsed.
+     */
+    static long parseDepartureTime(String departureTime) {
+        if (departureTime == null) {
+            return UNKNOWN_DEPARTURE;
+        }
+        String text = departureTime.trim();
+        // Cheap shape check, so free-form text does not cost a thrown exception
+        if (text.length() < 16 || text.charAt(4) != '-' || text.charAt(7) != '-') {
+            return UNKNOWN_DEPARTURE;
+        }
+        if (text.charAt(10) == ' ') {
+            text = text.substring(0, 10) + 'T' + text.substring(11);
+        }
+        try {
+            if (text.endsWith("Z") || text.indexOf('+', 10) > 0 || text.indexOf('-', 10) > 0) {
+                return OffsetDateTime.parse(text).toEpochSecond();
+            }
+            return LocalDateTime.parse(text).toEpochSecond(ZoneOffset.UTC);
+        } catch (DateTimeParseException e) {
+            return UNKNOWN_DEPARTURE;
+        }
+    }
+
+    /**
+     * @param flightTime The flight time as stored on the flight.
+     * @return The flight time in minutes, or UNKNOWN_FLIGHT_TIME if it cannot be parsed.
+     */
+    static int parseFlightTime(String flightTime) {
+        if (flightTime == null) {
+            return UNKNOWN_FLIGHT_TIME;
+        }
+        String text = flightTime.trim();
+        int colon = text.indexOf(':');
+        if (colon > 0 && colon == text.length() - 3) {
+            int hours = parseDigits(text, 0, colon);
+            int minutes = parseDigits(text, colon + 1, text.length());
+            return hours < 0 || minutes < 0 || minutes > 59 ? UNKNOWN_FLIGHT_TIME : hours * 60 + minutes;
+        }
+        if (text.startsWith("PT") || text.startsWith("pt")) {
+            try {
+                long minutes = Duration.parse(text).toMinutes();
+                return minutes < 0 || minutes > Integer.MAX_VALUE ? UNKNOWN_FLIGHT_TIME : (int) minutes;
+            } catch (DateTimeParseException e) {
+                return UNKNOWN_FLIGHT_TIME;
+            }
+        }
+        return UNKNOWN_FLIGHT_TIME;
+    }
+
+    private static int parseDigits(String text, int start, int end) {
+        if (end - start > 6) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
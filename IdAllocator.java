@@ -0,0 +1,189 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Hands out unique, random-looking IDs from a fixed range without locks.
+ * <p>
+ * IDs are drawn from a shared sequence counter through an affine permutation
+ * of the range, (multiplier * k + increment) mod size, so consecutive IDs are
+ * scattered over the range yet no ID is ever produced twice and no rejection
+ * sampling is needed. A bitmap of used IDs lets callers reserve IDs assigned
+ * elsewhere, which are then skipped, and release IDs so they can be handed out
+ * again once the permutation is used up. Every ID costs one atomic increment
+ * and one compare-and-set on the bitmap.
+ * </p>
+ */
+public class IdAllocator {
+    private final int min; // Smallest ID
+    private final int size; // Number of IDs in the range
+    private final long multiplier; // Coprime to size, so the permutation is a bijection
+    private final long increment; // Offset of the permutation
+    private final AtomicLong sequence = new AtomicLong(); // Position in the permutation
+    private final AtomicLongArray used; // One bit per ID, set while the ID is in use
+    private final AtomicInteger scanStart = new AtomicInteger(); // Word where the search for released IDs starts
+
+    /**
+     * Creates an allocator for the IDs min (inclusive) to max (exclusive).
+     *
+     * @param min  The smallest ID.
+     * @param max  One more than the largest ID.
+     * @param seed Chooses the permutation; equal seeds produce the same ID order.
+     */
+    public IdAllocator(int min, int max, long seed) {
+        if (max <= min) {
+            throw new IllegalArgumentException("Empty ID range: " + min + " to " + max);
+        }
+        this.min = min;
+        this.size = max - min;
+        SplittableRandom random = new SplittableRandom(seed);
+        long candidate = size / 2 + random.nextInt(Math.max(1, size / 2)) | 1;
+        while (gcd(candidate, size) != 1) {
+            candidate += 2;
+        }
+        this.multiplier = candidate % size == 0 ? 1 : candidate;
+        this.increment = random.nextInt(size);
+        this.used = new AtomicLongArray((size + 63) / 64);
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /**
+     * Allocates an ID that is not in use.
+     *
+     * @return The allocated ID.
+     * @throws IllegalStateException if every ID in the range is in use.
+     */
+    public int allocate() {
+        while (true) {
+            long k = sequence.getAndIncrement();
+            if (k >= size) {
+                return allocateReleased();
+            }
+            int id = idAt(k);
+            if (markOffset(id - min)) {
+                return id;
+            }
+            // The ID was reserved with markUsed(), so move on to the next one
+        }
+    }
+
+    /**
+     * Returns the ID at a position of the permutation, without allocating it.
+     * Useful to derive the same unique IDs from an index on every run.
+     *
+     * @param k The position, from 0 to getSize() - 1.
+     * @return The ID at that position.
+     */
+    public int idAt(long k) {
+        if (k < 0 || k >= size) {
+            throw new IndexOutOfBoundsException("Position " + k + " outside 0 to " + (size - 1));
+        }
+        return min + (int) ((multiplier * k + increment) % size);
+    }
+
+    /**
+     * Once the permutation is used up, searches the bitmap for a released ID.
+     */
+    private int allocateReleased() {
+        int numOfWords = used.length();
+        int start = Math.floorMod(scanStart.get(), numOfWords);
+        for (int i = 0; i < numOfWords; i++) {
+            int word = (start + i) % numOfWords;
+            long bits = used.get(word);
+            while (bits != -1L) {
+                int bit = Long.numberOfTrailingZeros(~bits);
+                int offset = word * 64 + bit;
+                if (offset >= size) {
+                    break;
+                }
+                if (used.compareAndSet(word, bits, bits | (1L << bit))) {
+                    scanStart.set(word);
+                    return min + offset;
+                }
+                bits = used.get(word);
+            }
+        }
+        throw new IllegalStateException("No free IDs left between " + min + " and " + (min + size));
+    }
+
+    private boolean markOffset(int offset) {
+        int word = offset >>> 6;
+        long bit = 1L << offset;
+        while (true) {
+            long bits = used.get(word);
+            if ((bits & bit) != 0) {
+                return false;
+            }
+            if (used.compareAndSet(word, bits, bits | bit)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Reserves an ID that was assigned elsewhere, e.g. to a restored customer,
+     * so that it is never allocated.
+     *
+     * @param id The ID to reserve.
+     * @return true if the ID was free, false if it was already in use or is outside the range.
+     */
+    public boolean markUsed(int id) {
+        return contains(id) && markOffset(id - min);
+    }
+
+    /**
+     * Releases an ID so that it can be allocated again once the permutation is used up.
+     *
+     * @param id The ID to release.
+     * @return true if the ID was in use, false otherwise.
+     */
+    public boolean release(int id) {
+        if (!contains(id)) {
+            return false;
+        }
+        int offset = id - min;
+        int word = offset >>> 6;
+        long bit = 1L << offset;
+        while (true) {
+            long bits = used.get(word);
+            if ((bits & bit) == 0) {
+                return false;
+            }
+            if (used.compareAndSet(word, bits, bits & ~bit)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @param id The ID to check.
+     * @return true if the ID is in use.
+     */
+    public boolean isUsed(int id) {
+        if (!contains(id)) {
+            return false;
+        }
+        int offset = id - min;
+        return (used.get(offset >>> 6) & (1L << offset)) != 0;
+    }
+
+    private boolean contains(int id) {
+        return id >= min && id - min < size;
+    }
+
+    /**
+     * @return The number of IDs in the range.
+     */
+    public int getSize() {
+        return size;
+    }
+}
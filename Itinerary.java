@@ -0,0 +1,63 @@
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A route between two cities made of one or more connecting flights, as found
+ * by the RouteEngine.
+ */
+public final class Itinerary {
+    private final List<Flight> legs; // Flights in travel order
+    private final double totalDistanceInKm; // Sum of the great-circle distances of the legs
+
+    Itinerary(List<Flight> legs, double totalDistanceInKm) {
+        this.legs = Collections.unmodifiableList(legs);
+        this.totalDistanceInKm = totalDistanceInKm;
+    }
+
+    /**
+     * @return The flights of the itinerary in travel order.
+     */
+    public List<Flight> getLegs() {
+        return legs;
+    }
+
+    public int getNumOfLegs() {
+        return legs.size();
+    }
+
+    /**
+     * @return The number of times the passenger changes planes.
+     */
+    public int getNumOfConnections() {
+        return Math.max(0, legs.size() - 1);
+    }
+
+    public double getTotalDistanceInKm() {
+        return totalDistanceInKm;
+    }
+
+    public double getTotalDistanceInMiles() {
+        return totalDistanceInKm * RouteDistanceMatrix.MILES_PER_KM;
+    }
+
+    public String getFromWhichCity() {
+        return legs.isEmpty() ? null : legs.get(0).getFromWhichCity();
+    }
+
+    public String getToWhichCity() {
+        return legs.isEmpty() ? null : legs.get(legs.size() - 1).getToWhichCity();
+    }
+
+    @Override
+    public String toString() {
+        if (legs.isEmpty()) {
+            return "No route";
+        }
+        StringBuilder route = new StringBuilder(getFromWhichCity());
+        for (Flight leg : legs) {
+            route.append(" -> ").append(leg.getToWhichCity()).append(" (").append(leg.getFlightNumber()).append(')');
+        }
+        return route.append(String.format(", %d connection(s), %.1f km", getNumOfConnections(), totalDistanceInKm))
+                .toString();
+    }
+}
@@ -0,0 +1,154 @@
+/**
+ * Builds a JSON document into a StringBuilder. Commas between members and
+ * array elements are inserted automatically; nesting is tracked with a small
+ * stack of flags rather than objects, so writing never allocates beyond the
+ * text itself.
+ */
+final class JsonWriter {
+    private final StringBuilder json = new StringBuilder(256); // The document written so far
+    private long needsComma; // Bit i is set if the container at depth i already has a member
+    private int depth; // Number of open objects and arrays, at most 63
+
+    JsonWriter beginObject() {
+        return open('{');
+    }
+
+    JsonWriter endObject() {
+        return close('}');
+    }
+
+    JsonWriter beginArray() {
+        return open('[');
+    }
+
+    JsonWriter endArray() {
+        return close(']');
+    }
+
+    /**
+     * Starts a member of the current object; follow it with a value or a nested object or array.
+     */
+    JsonWriter name(String name) {
+        separate();
+        appendString(name);
+        json.append(':');
+        // The value that follows must not be preceded by a comma
+        needsComma &= ~(1L << depth);
+        return this;
+    }
+
+    JsonWriter value(String value) {
+        separate();
+        if (value == null) {
+            json.append("null");
+        } else {
+            appendString(value);
+        }
+        return this;
+    }
+
+    JsonWriter value(long value) {
+        separate();
+        json.append(value);
+        return this;
+    }
+
+    JsonWriter value(double value) {
+        separate();
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            json.append("null");
+        } else {
+            json.append(value);
+        }
+        return this;
+    }
+
+    JsonWriter value(boolean value) {
+        separate();
+        json.append(value);
+        return this;
+    }
+
+    JsonWriter field(String name, String value) {
+        return name(name).value(value);
+    }
+
+    JsonWriter field(String name, long value) {
+        return name(name).value(value);
+    }
+
+    JsonWriter field(String name, double value) {
+        return name(name).value(value);
+    }
+
+    JsonWriter field(String name, boolean value) {
+        return name(name).value(value);
+    }
+
+    private JsonWriter open(char bracket) {
+        if (depth == 63) {
+            throw new IllegalStateException("JSON nested too deeply");
+        }
+        separate();
+        json.append(bracket);
+        depth++;
+        needsComma &= ~(1L << depth);
+        return this;
+    }
+
+    private JsonWriter close(char bracket) {
+        if (depth == 0) {
+            throw new IllegalStateException("No open JSON object or array");
+        }
+        depth--;
+        json.append(bracket);
+        return this;
+    }
+
+    /**
+     * Writes the comma before a member or element unless it is the first one.
+     */
+    private void separate() {
+        long bit = 1L << depth;
+        if ((needsComma & bit) != 0) {
+            json.append(',');
+        }
+        needsComma |= bit;
+    }
+
+    private void appendString(String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+
+    @Override
+    public String toString() {
+        return json.toString();
+    }
+}
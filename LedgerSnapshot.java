@@ -0,0 +1,41 @@
+import java.util.Arrays;
+
+/**
+ * An immutable point-in-time view of a passenger's BookingLedger: the booked
+ * flights and the tickets held on each, at the same index. The ledger
+ * publishes a new snapshot with every change, so reading one never locks and
+ * the flights and ticket counts always belong together.
+ */
+public final class LedgerSnapshot {
+    static final LedgerSnapshot EMPTY = new LedgerSnapshot(0, new Flight[0], new int[0], 0);
+
+    private final long version; // Number of changes the ledger had seen when this view was taken
+    private final Flight[] flights; // Booked flights
+    private final int[] tickets; // Tickets held on the flight at the same index
+
+    LedgerSnapshot(long version, Flight[] flights, int[] tickets, int size) {
+        this.version = version;
+        this.flights = Arrays.copyOf(flights, size);
+        this.tickets = Arrays.copyOf(tickets, size);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return flights.length;
+    }
+
+    public boolean isEmpty() {
+        return flights.length == 0;
+    }
+
+    public Flight getFlight(int index) {
+        return flights[index];
+    }
+
+    public int getTickets(int index) {
+        return tickets[index];
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * Outcome of one BulkLoader run: how many rows were read, loaded and rejected,
+ * how long it took and why the first rejected row was rejected.
+ */
+public final class LoadReport {
+    private final String source; // File the rows were read from
+    private final long rowsRead; // Data rows read, not counting a header row
+    private final long rowsLoaded; // Rows that were inserted
+    private final long rowsRejected; // Malformed or duplicate rows
+    private final long elapsedNanos; // Time taken to read and insert all rows
+    private final String firstError; // Why the first row was rejected, null if none was
+
+    LoadReport(String source, long rowsRead, long rowsLoaded, long rowsRejected, long elapsedNanos, String firstError) {
+        this.source = source;
+        this.rowsRead = rowsRead;
+        this.rowsLoaded = rowsLoaded;
+        this.rowsRejected = rowsRejected;
+        this.elapsedNanos = elapsedNanos;
+        this.firstError = firstError;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getRowsLoaded() {
+        return rowsLoaded;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public String getFirstError() {
+        return firstError;
+    }
+
+    /**
+     * @return The number of rows read per second.
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rowsRead * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        String report = String.format("%s: loaded %,d of %,d rows (%,d rejected) in %,d ms, %,.0f rows/sec",
+                source, rowsLoaded, rowsRead, rowsRejected, elapsedNanos / 1_000_000, getRowsPerSecond());
+        return firstError == null ? report : report + "; first rejected row: " + firstError;
+    }
+}
@@ -0,0 +1,126 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms of the hot paths of the airline system.
+ * <p>
+ * Metrics are on by default and switched off with -Dairline.metrics=false.
+ * The switch is a static final constant, so when it is off the JIT compiles
+ * the instrumentation away entirely; when it is on an operation costs two
+ * System.nanoTime() calls, a few uncontended atomic adds and, only while a
+ * Flight Recorder recording enables it, one OperationEvent.
+ * </p>
+ * <p>
+ * Use snapshotJson() or printSnapshot() to read the current values.
+ * </p>
+ */
+public final class Metrics {
+    public static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("airline.metrics"));
+
+    private static final List<OperationStats> operations = new ArrayList<>(); // In registration order
+
+    public static final OperationStats BOOK = register("FlightReservation.book");
+    public static final OperationStats CANCEL = register("FlightReservation.cancel");
+    public static final OperationStats FIND_FLIGHT = register("FlightScheduler.findFlight");
+    public static final OperationStats FIND_CUSTOMER_BY_ID = register("CustomerRepository.findByUserID");
+    public static final OperationStats FIND_CUSTOMER_BY_EMAIL = register("CustomerRepository.findByEmail");
+    public static final OperationStats AUTHENTICATE_PASSENGER = register("AuthenticationService.authenticatePassenger");
+    public static final OperationStats AUTHENTICATE_ADMIN = register("AuthenticationService.authenticateAdmin");
+
+    private static final LongAdder seatReserveRetries = new LongAdder(); // Lost compare-and-set races on seat inventories
+
+    private Metrics() {
+    }
+
+    private static OperationStats register(String name) {
+        OperationStats stats = new OperationStats(name);
+        operations.add(stats);
+        return stats;
+    }
+
+    /**
+     * Starts timing an operation.
+     *
+     * @return The start time to pass to OperationStats.record(), or 0 if metrics are disabled.
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Counts a seat reservation that lost a race with another thread and had to retry.
+     */
+    static void recordSeatReserveRetry() {
+        if (ENABLED) {
+            seatReserveRetries.increment();
+        }
+    }
+
+    public static long getSeatReserveRetries() {
+        return seatReserveRetries.sum();
+    }
+
+    public static List<OperationStats> getOperations() {
+        return Collections.unmodifiableList(operations);
+    }
+
+    /**
+     * Clears all counters and histograms.
+     */
+    public static void reset() {
+        for (OperationStats stats : operations) {
+            stats.reset();
+        }
+        seatReserveRetries.reset();
+    }
+
+    /**
+     * @return The current values as a JSON object, latencies in microseconds.
+     */
+    public static String snapshotJson() {
+        JsonWriter json = new JsonWriter().beginObject().field("enabled", ENABLED).name("operations").beginArray();
+        for (OperationStats stats : operations) {
+            LatencyHistogram latency = stats.getLatency();
+            json.beginObject()
+                    .field("name", stats.getName())
+                    .field("calls", stats.getCalls())
+                    .field("failures", stats.getFailures())
+                    .field("meanMicros", latency.getMeanNanos() / 1e3)
+                    .field("p50Micros", latency.getPercentileNanos(0.50) / 1e3)
+                    .field("p99Micros", latency.getPercentileNanos(0.99) / 1e3)
+                    .field("p999Micros", latency.getPercentileNanos(0.999) / 1e3)
+                    .field("maxMicros", latency.getMaxNanos() / 1e3)
+                    .endObject();
+        }
+        return json.endArray().field("seatReserveRetries", getSeatReserveRetries()).endObject().toString();
+    }
+
+    /**
+     * Prints the current values as a table, latencies in microseconds.
+     */
+    public static void printSnapshot() {
+        TableRenderer renderer = new TableRenderer(System.out);
+        renderer.left("Operation", 46).right("Calls", 12).right("Failures", 12).right("Mean", 10)
+                .right("p50", 10).right("p99", 10).right("p99.9", 10).right("Max", 12).newline();
+        for (OperationStats stats : operations) {
+            LatencyHistogram latency = stats.getLatency();
+            renderer.left(stats.getName(), 46)
+                    .right(stats.getCalls(), 12)
+                    .right(stats.getFailures(), 12)
+                    .right(micros(Math.round(latency.getMeanNanos())), 10)
+                    .right(micros(latency.getPercentileNanos(0.50)), 10)
+                    .right(micros(latency.getPercentileNanos(0.99)), 10)
+                    .right(micros(latency.getPercentileNanos(0.999)), 10)
+                    .right(micros(latency.getMaxNanos()), 12)
+                    .newline();
+        }
+        renderer.line("Seat reservation retries: " + getSeatReserveRetries());
+        renderer.flush();
+    }
+
+    private static String micros(long nanos) {
+        return String.format("%.1f", nanos / 1e3);
+    }
+}
@@ -0,0 +1,675 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Stores customers and their bookings as fixed-layout records outside the
+ * Java heap, in one direct or memory-mapped buffer, so that the garbage
+ * collector never sees them. The buffer holds, in order:
+ * <ul>
+ *     <li>a header with the capacities and counts;</li>
+ *     <li>customer records of {@value #CUSTOMER_RECORD_SIZE} bytes, each field
+ *     length-prefixed UTF-8 in a slot of fixed width;</li>
+ *     <li>booking records of {@value #BOOKING_RECORD_SIZE} bytes holding a
+ *     customer record, a flight number and a number of tickets;</li>
+ *     <li>open-addressing hash indexes of customer records by userID and by
+ *     email, and of booking records by customer and flight.</li>
+ * </ul>
+ * Because the indexes live in the buffer too, a store mapped from a file with
+ * {@link #open(Path, int, int)} is ready for lookups as soon as the file is
+ * mapped: a restart reads no records and rebuilds nothing, and the pages are
+ * loaded by the operating system as they are touched.
+ * <p>
+ * Capacities are fixed when the store is created and the whole store must
+ * fit in 2 GiB, about seven million customers. Records are append-only:
+ * removing a customer only unlinks it from the indexes, and replacing one,
+ * as every edit copied from a CustomerRepository does, takes a new record.
+ * The customer capacity must therefore leave room for the edits expected
+ * over the store's life as well as for the customers. Writes are
+ * serialized; lookups take no lock and return a new Customer copied from the
+ * record, so editing it does not change the store. Searches and logins
+ * through Customer.useCustomerStore resolve such copies to the registered
+ * Customer, which holds the booking ledger. A mapped file is written
+ * through {@link #force()}; a crash in the middle of a write can leave the
+ * file inconsistent, so the BookingJournal stays the durable record.
+ * </p>
+ * <p>
+ * The booking records are only kept for callers that use the store on its
+ * own, through addTickets() and removeTickets(); the reservation flow does
+ * not write them, and the bookings of the running system live in the
+ * customers' booking ledgers.
+ * </p>
+ */
+public final class OffHeapCustomerStore implements ReplicaCustomerStore, Closeable {
+    private static final int MAGIC = 0x5343484F; // "OHCS" in little-endian order
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+
+    // Header fields
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 4;
+    private static final int HEADER_CUSTOMER_CAPACITY = 8;
+    private static final int HEADER_BOOKING_CAPACITY = 12;
+    private static final int HEADER_NUM_OF_RECORDS = 16;
+    private static final int HEADER_NUM_OF_CUSTOMERS = 20;
+    private static final int HEADER_NUM_OF_BOOKINGS = 24;
+
+    // Customer record fields, as offset and width; string slots start with a length byte
+    private static final int CUSTOMER_RECORD_SIZE = 256;
+    private static final int USER_ID_HASH = 0;
+    private static final int EMAIL_HASH = 4;
+    private static final int STATE = 8; // LIVE or REMOVED
+    private static final int AGE = 9;
+    private static final int USER_ID = 12, USER_ID_WIDTH = 20;
+    private static final int NAME = 32, NAME_WIDTH = 48;
+    private static final int EMAIL = 80, EMAIL_WIDTH = 64;
+    private static final int PASSWORD = 144, PASSWORD_WIDTH = 32;
+    private static final int PHONE = 176, PHONE_WIDTH = 24;
+    private static final int ADDRESS = 200, ADDRESS_WIDTH = 56;
+    private static final byte LIVE = 1;
+    private static final byte REMOVED = 2;
+
+    // Booking record fields
+    private static final int BOOKING_RECORD_SIZE = 32;
+    private static final int BOOKING_CUSTOMER = 0;
+    private static final int BOOKING_TICKETS = 4;
+    private static final int BOOKING_FLIGHT = 8, BOOKING_FLIGHT_WIDTH = 24;
+
+    private static final int EMPTY_SLOT = 0; // Index slots hold record + 1, so 0 marks an empty slot
+    private static final int DELETED_SLOT = -1; // Index slot of a removed customer; probing continues past it
+    // Ordered access to index slots and ticket counts, which lock-free lookups read
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final ByteBuffer buffer; // The whole store, little-endian
+    private final FileChannel channel; // File the buffer is mapped from, null if it is only in memory
+    private final int customerCapacity;
+    private final int bookingCapacity;
+    private final int customerSlots; // Slots of each customer index, a power of two at least twice the capacity
+    private final int bookingSlots;
+    private final int customersStart; // Offsets of the regions within the buffer
+    private final int bookingsStart;
+    private final int idIndexStart;
+    private final int emailIndexStart;
+    private final int bookingIndexStart;
+    private int numOfRecords; // Customer records used, including removed ones, guarded by this
+    private int numOfCustomers; // Customer records that are not removed, guarded by this
+    private int numOfBookings; // Booking records used, guarded by this
+
+    private OffHeapCustomerStore(ByteBuffer buffer, FileChannel channel, int customerCapacity, int bookingCapacity) {
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        this.channel = channel;
+        this.customerCapacity = customerCapacity;
+        this.bookingCapacity = bookingCapacity;
+        this.customerSlots = slotsFor(customerCapacity);
+        this.bookingSlots = slotsFor(bookingCapacity);
+        this.customersStart = HEADER_SIZE;
+        this.bookingsStart = customersStart + customerCapacity * CUSTOMER_RECORD_SIZE;
+        this.idIndexStart = bookingsStart + bookingCapacity * BOOKING_RECORD_SIZE;
+        this.emailIndexStart = idIndexStart + customerSlots * 4;
+        this.bookingIndexStart = emailIndexStart + customerSlots * 4;
+    }
+
+    /**
+     * Creates an empty store in a direct buffer, which lasts as long as the process.
+     *
+     * @param customerCapacity The most customer records the store can hold, removed ones included.
+     * @param bookingCapacity  The most distinct customer and flight pairs the store can hold.
+     * @throws IllegalArgumentException if a capacity is negative or the store would not fit in 2 GiB.
+     */
+    public static OffHeapCustomerStore allocate(int customerCapacity, int bookingCapacity) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(checkedSize(customerCapacity, bookingCapacity));
+        OffHeapCustomerStore store = new OffHeapCustomerStore(buffer, null, customerCapacity, bookingCapacity);
+        store.writeHeader();
+        return store;
+    }
+
+    /**
+     * Maps a store from a file. An existing store is used as it is, with the
+     * capacities it was created with; a missing or empty file is sized for
+     * the given capacities and initialized as an empty store.
+     *
+     * @param file             The file holding the store.
+     * @param customerCapacity The most customer records a new store can hold.
+     * @param bookingCapacity  The most distinct customer and flight pairs a new store can hold.
+     * @throws IOException              if the file cannot be mapped or is not a store of this format.
+     * @throws IllegalArgumentException if a new store would not fit in 2 GiB.
+     */
+    public static OffHeapCustomerStore open(Path file, int customerCapacity, int bookingCapacity) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                int size = checkedSize(customerCapacity, bookingCapacity);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                OffHeapCustomerStore store = new OffHeapCustomerStore(buffer, channel, customerCapacity, bookingCapacity);
+                store.writeHeader();
+                return store;
+            }
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Not a customer store: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(HEADER_MAGIC) != MAGIC || buffer.getInt(HEADER_VERSION) != FORMAT_VERSION) {
+                throw new IOException("Not a customer store of version " + FORMAT_VERSION + ": " + file);
+            }
+            int storedCustomerCapacity = buffer.getInt(HEADER_CUSTOMER_CAPACITY);
+            int storedBookingCapacity = buffer.getInt(HEADER_BOOKING_CAPACITY);
+            if (storedCustomerCapacity < 0 || storedBookingCapacity < 0
+                    || sizeOf(storedCustomerCapacity, storedBookingCapacity) != channel.size()) {
+                throw new IOException("Customer store is truncated or corrupt: " + file);
+            }
+            OffHeapCustomerStore store = new OffHeapCustomerStore(buffer, channel, storedCustomerCapacity,
+                    storedBookingCapacity);
+            store.readHeader();
+            return store;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Copies the customers of a repository into a new direct store.
+     *
+     * @param customerRepository The repository to copy.
+     * @param spareRecords       Customer records left free for later additions and edits.
+     * @param bookingCapacity    The most distinct customer and flight pairs the store can hold.
+     * @throws IllegalArgumentException if a customer does not fit the record layout.
+     */
+    public static OffHeapCustomerStore copyOf(CustomerRepository customerRepository, int spareRecords,
+                                              int bookingCapacity) {
+        List<Customer> customers = customerRepository.asList();
+        OffHeapCustomerStore store = allocate(customers.size() + spareRecords, bookingCapacity);
+        for (Customer customer : customers) {
+            store.add(customer);
+        }
+        return store;
+    }
+
+    //        ************************************************************ Customers ************************************************************
+
+    /**
+     * Adds a customer unless their userID or email is already stored.
+     *
+     * @param customer The customer to copy into the store.
+     * @return true if the customer was added, false if it was invalid or a duplicate.
+     * @throws IllegalArgumentException if the age is outside 0..255 or a field is longer than its slot.
+     * @throws IllegalStateException    if every customer record is used.
+     */
+    public boolean add(Customer customer) {
+        return customer != null && add(customer.getUserID(), customer.getName(), customer.getEmail(),
+                customer.getPassword(), customer.getPhone(), customer.getAddress(), customer.getAge());
+    }
+
+    /**
+     * Adds a customer unless their userID or email is already stored.
+     *
+     * @return true if the customer was added, false if the userID or email is missing or a duplicate.
+     * @throws IllegalArgumentException if the age is outside 0..255 or a field is longer than its slot.
+     * @throws IllegalStateException    if every customer record is used.
+     */
+    public synchronized boolean add(String userID, String name, String email, String password, String phone,
+                                    String address, int age) {
+        if (userID == null || email == null) {
+            return false;
+        }
+        if (age < 0 || age > 255) {
+            throw new IllegalArgumentException("Age must be between 0 and 255: " + age);
+        }
+        byte[] idBytes = encode(userID, USER_ID_WIDTH, "userID");
+        byte[] emailBytes = encode(email, EMAIL_WIDTH, "email");
+        byte[] nameBytes = encode(name, NAME_WIDTH, "name");
+        byte[] passwordBytes = encode(password, PASSWORD_WIDTH, "password");
+        byte[] phoneBytes = encode(phone, PHONE_WIDTH, "phone");
+        byte[] addressBytes = encode(address, ADDRESS_WIDTH, "address");
+        if (findRecord(idIndexStart, userID.hashCode(), USER_ID, idBytes) >= 0
+                || findRecord(emailIndexStart, email.hashCode(), EMAIL, emailBytes) >= 0) {
+            return false;
+        }
+        if (numOfRecords == customerCapacity) {
+            throw new IllegalStateException("Customer store is full: " + customerCapacity + " records");
+        }
+        int record = numOfRecords;
+        int offset = customerOffset(record);
+        buffer.putInt(offset + USER_ID_HASH, userID.hashCode());
+        buffer.putInt(offset + EMAIL_HASH, email.hashCode());
+        buffer.put(offset + STATE, LIVE);
+        buffer.put(offset + AGE, (byte) age);
+        putField(offset + USER_ID, idBytes);
+        putField(offset + NAME, nameBytes);
+        putField(offset + EMAIL, emailBytes);
+        putField(offset + PASSWORD, passwordBytes);
+        putField(offset + PHONE, phoneBytes);
+        putField(offset + ADDRESS, addressBytes);
+        insert(idIndexStart, customerSlots, userID.hashCode(), record);
+        insert(emailIndexStart, customerSlots, email.hashCode(), record);
+        numOfRecords++;
+        numOfCustomers++;
+        writeCounts();
+        return true;
+    }
+
+    /**
+     * Removes the customer with the given userID from both indexes. Their record and bookings are not reused.
+     *
+     * @return true if the customer was stored.
+     */
+    public synchronized boolean remove(String userID) {
+        if (userID == null) {
+            return false;
+        }
+        byte[] idBytes = userID.getBytes(StandardCharsets.UTF_8);
+        int idSlot = findSlot(idIndexStart, userID.hashCode(), USER_ID, idBytes);
+        if (idSlot < 0) {
+            return false;
+        }
+        int record = (int) INTS.getAcquire(buffer, idSlot) - 1;
+        int offset = customerOffset(record);
+        byte[] emailBytes = readBytes(offset + EMAIL);
+        int emailSlot = findSlot(emailIndexStart, buffer.getInt(offset + EMAIL_HASH), EMAIL, emailBytes);
+        INTS.setRelease(buffer, idSlot, DELETED_SLOT);
+        if (emailSlot >= 0) {
+            INTS.setRelease(buffer, emailSlot, DELETED_SLOT);
+        }
+        buffer.put(offset + STATE, REMOVED);
+        numOfCustomers--;
+        writeCounts();
+        return true;
+    }
+
+    /**
+     * Stores a copy of the customer, dropping any stored customer with the
+     * same userID or email. A customer stored with the same details is left
+     * as it is, so that reattaching the store uses no records. Otherwise the
+     * customer takes a new record, and the details and free records are
+     * checked before anything is dropped, so a failed replace leaves the
+     * store as it was.
+     *
+     * @throws IllegalArgumentException if the userID or email is missing, the age is outside 0..255 or a field is
+     *                                  longer than its slot.
+     * @throws IllegalStateException    if every customer record is used.
+     */
+    @Override
+    public synchronized void replace(Customer customer) {
+        int record = findCustomerRecord(customer.getUserID());
+        if (record >= 0 && readCustomer(record).hasSameDetails(customer)) {
+            return;
+        }
+        checkFits(customer);
+        if (numOfRecords == customerCapacity) {
+            throw new IllegalStateException("Customer store is full: " + customerCapacity + " records");
+        }
+        remove(customer.getUserID());
+        record = findRecordByEmail(customer.getEmail());
+        if (record >= 0) {
+            remove(readString(customerOffset(record) + USER_ID));
+        }
+        add(customer);
+    }
+
+    /**
+     * Throws what add() would throw for the customer, without changing the store.
+     */
+    private static void checkFits(Customer customer) {
+        if (customer.getUserID() == null || customer.getEmail() == null) {
+            throw new IllegalArgumentException("A stored customer needs a userID and an email");
+        }
+        if (customer.getAge() < 0 || customer.getAge() > 255) {
+            throw new IllegalArgumentException("Age must be between 0 and 255: " + customer.getAge());
+        }
+        encode(customer.getUserID(), USER_ID_WIDTH, "userID");
+        encode(customer.getEmail(), EMAIL_WIDTH, "email");
+        encode(customer.getName(), NAME_WIDTH, "name");
+        encode(customer.getPassword(), PASSWORD_WIDTH, "password");
+        encode(customer.getPhone(), PHONE_WIDTH, "phone");
+        encode(customer.getAddress(), ADDRESS_WIDTH, "address");
+    }
+
+    @Override
+    public void delete(String userID) {
+        remove(userID);
+    }
+
+    @Override
+    public Customer findByUserID(String userID) {
+        long start = Metrics.start();
+        int record = userID == null ? -1 : findRecord(idIndexStart, userID.hashCode(), USER_ID,
+                userID.getBytes(StandardCharsets.UTF_8));
+        Metrics.FIND_CUSTOMER_BY_ID.record(start, record >= 0);
+        return record < 0 ? null : readCustomer(record);
+    }
+
+    @Override
+    public Customer findByEmail(String email) {
+        long start = Metrics.start();
+        int record = findRecordByEmail(email);
+        Metrics.FIND_CUSTOMER_BY_EMAIL.record(start, record >= 0);
+        return record < 0 ? null : readCustomer(record);
+    }
+
+    @Override
+    public boolean containsEmail(String email) {
+        long start = Metrics.start();
+        boolean registered = findRecordByEmail(email) >= 0;
+        Metrics.FIND_CUSTOMER_BY_EMAIL.record(start, registered);
+        return registered;
+    }
+
+    @Override
+    public synchronized int size() {
+        return numOfCustomers;
+    }
+
+    //        ************************************************************ Bookings ************************************************************
+
+    /**
+     * Adds tickets to the booking of a customer on a flight, creating the booking if it is the first.
+     *
+     * @return The tickets the customer now holds on the flight, or -1 if the customer is not stored or the flight
+     * number is blank.
+     * @throws IllegalArgumentException if the number of tickets is not positive or the flight number is too long.
+     * @throws IllegalStateException    if a new booking is needed and every booking record is used.
+     */
+    public synchronized int addTickets(String userID, String flightNumber, int numOfTickets) {
+        if (numOfTickets <= 0) {
+            throw new IllegalArgumentException("Number of tickets must be positive: " + numOfTickets);
+        }
+        int customer = findCustomerRecord(userID);
+        String key = FlightRegistry.normalize(flightNumber);
+        if (customer < 0 || key == null) {
+            return -1;
+        }
+        byte[] flightBytes = encode(key, BOOKING_FLIGHT_WIDTH, "flight number");
+        int booking = findBooking(customer, key.hashCode(), flightBytes);
+        if (booking < 0) {
+            if (numOfBookings == bookingCapacity) {
+                throw new IllegalStateException("Customer store is full: " + bookingCapacity + " bookings");
+            }
+            booking = numOfBookings++;
+            int offset = bookingOffset(booking);
+            buffer.putInt(offset + BOOKING_CUSTOMER, customer);
+            buffer.putInt(offset + BOOKING_TICKETS, 0);
+            putField(offset + BOOKING_FLIGHT, flightBytes);
+            insert(bookingIndexStart, bookingSlots, bookingHash(customer, key.hashCode()), booking);
+        }
+        int offset = bookingOffset(booking) + BOOKING_TICKETS;
+        int tickets = (int) INTS.getAcquire(buffer, offset) + numOfTickets;
+        INTS.setRelease(buffer, offset, tickets);
+        writeCounts();
+        return tickets;
+    }
+
+    /**
+     * Takes tickets off the booking of a customer on a flight.
+     *
+     * @return The tickets the customer still holds on the flight, or -1 if they held fewer than requested.
+     */
+    public synchronized int removeTickets(String userID, String flightNumber, int numOfTickets) {
+        int offset = bookingTicketsOffset(userID, flightNumber);
+        int tickets = offset < 0 ? 0 : (int) INTS.getAcquire(buffer, offset);
+        if (numOfTickets <= 0 || tickets < numOfTickets) {
+            return -1;
+        }
+        INTS.setRelease(buffer, offset, tickets - numOfTickets);
+        writeCounts();
+        return tickets - numOfTickets;
+    }
+
+    /**
+     * @return The tickets the customer holds on the flight, 0 if they hold none or are not stored.
+     */
+    public int getTickets(String userID, String flightNumber) {
+        int offset = bookingTicketsOffset(userID, flightNumber);
+        return offset < 0 ? 0 : (int) INTS.getAcquire(buffer, offset);
+    }
+
+    //        ************************************************************ Storage ************************************************************
+
+    /**
+     * Writes the changes to a mapped store to its file; does nothing for a direct store.
+     */
+    public void force() {
+        if (buffer instanceof MappedByteBuffer) {
+            ((MappedByteBuffer) buffer).force();
+        }
+    }
+
+    /**
+     * Writes a mapped store to its file and closes the file. The mapping lasts until the store is garbage.
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            force();
+            channel.close();
+        }
+    }
+
+    public int getCustomerCapacity() {
+        return customerCapacity;
+    }
+
+    public int getBookingCapacity() {
+        return bookingCapacity;
+    }
+
+    /**
+     * @return The customer records still free for additions and edits.
+     */
+    public synchronized int getFreeRecords() {
+        return customerCapacity - numOfRecords;
+    }
+
+    /**
+     * @return The bytes of off-heap memory or file the store occupies.
+     */
+    public long getSizeInBytes() {
+        return buffer.capacity();
+    }
+
+    public boolean isMapped() {
+        return channel != null;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("OffHeapCustomerStore[%d/%d customers, %d/%d bookings, %s]", size(), customerCapacity,
+                numOfBookings, bookingCapacity, isMapped() ? "mapped" : "direct");
+    }
+
+    //        ************************************************************ Layout ************************************************************
+
+    private static int slotsFor(int capacity) {
+        return Integer.highestOneBit(Math.max(capacity, 1)) << 2;
+    }
+
+    private static long sizeOf(int customerCapacity, int bookingCapacity) {
+        return HEADER_SIZE + (long) customerCapacity * CUSTOMER_RECORD_SIZE
+                + (long) bookingCapacity * BOOKING_RECORD_SIZE
+                + (2L * slotsFor(customerCapacity) + slotsFor(bookingCapacity)) * 4;
+    }
+
+    private static int checkedSize(int customerCapacity, int bookingCapacity) {
+        if (customerCapacity < 0 || bookingCapacity < 0 || customerCapacity > (1 << 28) || bookingCapacity > (1 << 28)) {
+            throw new IllegalArgumentException("Capacities must be between 0 and 2^28");
+        }
+        long size = sizeOf(customerCapacity, bookingCapacity);
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A store of " + customerCapacity + " customers and "
+                    + bookingCapacity + " bookings needs " + size + " bytes, more than 2 GiB");
+        }
+        return (int) size;
+    }
+
+    private void writeHeader() {
+        buffer.putInt(HEADER_MAGIC, MAGIC);
+        buffer.putInt(HEADER_VERSION, FORMAT_VERSION);
+        buffer.putInt(HEADER_CUSTOMER_CAPACITY, customerCapacity);
+        buffer.putInt(HEADER_BOOKING_CAPACITY, bookingCapacity);
+        writeCounts();
+    }
+
+    private synchronized void readHeader() {
+        numOfRecords = buffer.getInt(HEADER_NUM_OF_RECORDS);
+        numOfCustomers = buffer.getInt(HEADER_NUM_OF_CUSTOMERS);
+        numOfBookings = buffer.getInt(HEADER_NUM_OF_BOOKINGS);
+    }
+
+    /**
+     * Stores the counts in the header, so that a mapped store reopens with them.
+     */
+    private void writeCounts() {
+        buffer.putInt(HEADER_NUM_OF_RECORDS, numOfRecords);
+        buffer.putInt(HEADER_NUM_OF_CUSTOMERS, numOfCustomers);
+        buffer.putInt(HEADER_NUM_OF_BOOKINGS, numOfBookings);
+    }
+
+    private int customerOffset(int record) {
+        return customersStart + record * CUSTOMER_RECORD_SIZE;
+    }
+
+    private int bookingOffset(int booking) {
+        return bookingsStart + booking * BOOKING_RECORD_SIZE;
+    }
+
+    private static byte[] encode(String value, int width, String field) {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= width) {
+            throw new IllegalArgumentException("The " + field + " is longer than " + (width - 1) + " bytes: " + value);
+        }
+        return bytes;
+    }
+
+    private void putField(int offset, byte[] bytes) {
+        buffer.put(offset, (byte) bytes.length);
+        buffer.put(offset + 1, bytes);
+    }
+
+    private byte[] readBytes(int offset) {
+        byte[] bytes = new byte[buffer.get(offset) & 0xFF];
+        buffer.get(offset + 1, bytes);
+        return bytes;
+    }
+
+    private String readString(int offset) {
+        return new String(readBytes(offset), StandardCharsets.UTF_8);
+    }
+
+    private boolean fieldEquals(int offset, byte[] bytes) {
+        if ((buffer.get(offset) & 0xFF) != bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (buffer.get(offset + 1 + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Customer readCustomer(int record) {
+        int offset = customerOffset(record);
+        return new Customer(readString(offset + USER_ID), readString(offset + NAME), readString(offset + EMAIL),
+                readString(offset + PASSWORD), readString(offset + PHONE), readString(offset + ADDRESS),
+                buffer.get(offset + AGE) & 0xFF);
+    }
+
+    //        ************************************************************ Indexes ************************************************************
+
+    private static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int bookingHash(int customer, int flightHash) {
+        return customer * 31 + flightHash;
+    }
+
+    private int findCustomerRecord(String userID) {
+        return userID == null ? -1 : findRecord(idIndexStart, userID.hashCode(), USER_ID,
+                userID.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private int findRecordByEmail(String email) {
+        return email == null ? -1 : findRecord(emailIndexStart, email.hashCode(), EMAIL,
+                email.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private int findRecord(int indexStart, int hash, int field, byte[] key) {
+        int slot = findSlot(indexStart, hash, field, key);
+        return slot < 0 ? -1 : (int) INTS.getAcquire(buffer, slot) - 1;
+    }
+
+    /**
+     * Probes a customer index for the record whose field holds the given key.
+     *
+     * @return The buffer offset of the slot pointing at the record, or -1 if there is none.
+     */
+    private int findSlot(int indexStart, int hash, int field, byte[] key) {
+        int hashField = field == USER_ID ? USER_ID_HASH : EMAIL_HASH;
+        int mask = customerSlots - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int entry = (int) INTS.getAcquire(buffer, indexStart + slot * 4);
+            if (entry == EMPTY_SLOT) {
+                return -1;
+            }
+            if (entry != DELETED_SLOT) {
+                int offset = customerOffset(entry - 1);
+                if (buffer.getInt(offset + hashField) == hash && fieldEquals(offset + field, key)) {
+                    return indexStart + slot * 4;
+                }
+            }
+        }
+    }
+
+    private int findBooking(int customer, int flightHash, byte[] flightBytes) {
+        int mask = bookingSlots - 1;
+        for (int slot = mix(bookingHash(customer, flightHash)) & mask; ; slot = (slot + 1) & mask) {
+            int entry = (int) INTS.getAcquire(buffer, bookingIndexStart + slot * 4);
+            if (entry == EMPTY_SLOT) {
+                return -1;
+            }
+            int offset = bookingOffset(entry - 1);
+            if (buffer.getInt(offset + BOOKING_CUSTOMER) == customer && fieldEquals(offset + BOOKING_FLIGHT, flightBytes)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    private int bookingTicketsOffset(String userID, String flightNumber) {
+        int customer = findCustomerRecord(userID);
+        String key = FlightRegistry.normalize(flightNumber);
+        if (customer < 0 || key == null) {
+            return -1;
+        }
+        int booking = findBooking(customer, key.hashCode(), key.getBytes(StandardCharsets.UTF_8));
+        return booking < 0 ? -1 : bookingOffset(booking) + BOOKING_TICKETS;
+    }
+
+    /**
+     * Points the first empty or deleted slot of the probe sequence at the record. The slot is written with
+     * release semantics after the record, so a lookup that reads the slot also sees the whole record.
+     */
+    private void insert(int indexStart, int slots, int hash, int record) {
+        int mask = slots - 1;
+        int slot = mix(hash) & mask;
+        while (true) {
+            int entry = buffer.getInt(indexStart + slot * 4);
+            if (entry == EMPTY_SLOT || entry == DELETED_SLOT) {
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        INTS.setRelease(buffer, indexStart + slot * 4, record + 1);
+    }
+}
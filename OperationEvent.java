@@ -0,0 +1,28 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event committed for every instrumented airline operation
+ * while a recording has it enabled, e.g. with
+ * -XX:StartFlightRecording:settings=profile and jfr print --events airline.Operation.
+ */
+@Name("airline.Operation")
+@Label("Airline Operation")
+@Category("Airline")
+@Description("A booking, cancellation, lookup or login handled by the airline system")
+@StackTrace(false)
+final class OperationEvent extends jdk.jfr.Event {
+    @Label("Operation")
+    String operation; // Name of the operation, as in the metrics snapshot
+
+    @Label("Latency")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency; // Time the operation took
+
+    @Label("Succeeded")
+    boolean succeeded; // False if the booking failed, the lookup found nothing or the login was refused
+}
@@ -0,0 +1,64 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call counter, failure counter and latency histogram of one instrumented
+ * operation. Operations are timed with Metrics.start() and finished with
+ * record(); both do nothing when metrics are disabled.
+ */
+public final class OperationStats {
+    private final String name; // Name shown in snapshots and JFR events
+    private final LongAdder calls = new LongAdder(); // Completed calls
+    private final LongAdder failures = new LongAdder(); // Calls that did not succeed
+    private final LatencyHistogram latency = new LatencyHistogram(); // Latency of all calls
+
+    OperationStats(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records a completed call.
+     *
+     * @param startNanos The value Metrics.start() returned when the call began.
+     * @param succeeded  Whether the call succeeded.
+     */
+    public void record(long startNanos, boolean succeeded) {
+        if (!Metrics.ENABLED) {
+            return;
+        }
+        long nanos = System.nanoTime() - startNanos;
+        calls.increment();
+        if (!succeeded) {
+            failures.increment();
+        }
+        latency.record(nanos);
+        OperationEvent event = new OperationEvent();
+        if (event.isEnabled()) {
+            event.operation = name;
+            event.latency = nanos;
+            event.succeeded = succeeded;
+            event.commit();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    void reset() {
+        calls.reset();
+        failures.reset();
+        latency.reset();
+    }
+}
@@ -1,18 +1,26 @@
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
 /**
  * Represents a passenger user in the system.
  * Passengers can book and cancel flights.
+ * <p>
+ * A registered customer books as the passenger returned by
+ * Customer.asPassenger, which holds no copy of the customer's details: its
+ * identity is read from the customer and its tickets are recorded in the
+ * customer's BookingLedger, and its userID, email and password are only
+ * changed through the customer. Passengers created with the public
+ * constructor have no account and keep their own details and ledger.
+ * Passengers are keyed by passport number, so every passenger needs one.
+ * </p>
  */
 public class Passenger extends User {
     private String name; // Full name of the passenger
     private String phone; // Phone number of the passenger
     private String address; // Address of the passenger
     private int age; // Age of the passenger
-    private List<Flight> flightsRegisteredByUser = new ArrayList<>(); // List of flights booked by the passenger
-    private List<Integer> numOfTicketsBookedByUser = new ArrayList<>(); // List of tickets booked for each flight
+    private final Customer customer; // Account the passenger's identity belongs to, null if they have none
+    private final BookingLedger bookingLedger; // Tickets booked by the passenger on each flight, the customer's if linked
     private String passportNumber; // Unique passport number
 
     /**
@@ -26,6 +34,7 @@ public class Passenger extends User {
      * @param address  Address of the passenger.
      * @param age      Age of the passenger.
      * @param passportNumber Unique passport number.
+     * @throws IllegalArgumentException if the passport number is null or blank.
      */
     public Passenger(String userID, String email, String password, String name, String phone, String address, int age, String passportNumber) {
         super(userID, email, password);
@@ -33,64 +42,131 @@ public class Passenger extends User {
         this.phone = phone;
         this.address = address;
         this.age = age;
-        this.passportNumber = passportNumber;
+        this.passportNumber = checkPassport(passportNumber);
+        this.customer = null;
+        this.bookingLedger = new BookingLedger();
+    }
+
+    /**
+     * Creates the passenger a customer books as. Use Customer.asPassenger,
+     * which makes sure a customer has only one.
+     *
+     * @param customer       The customer whose identity and ledger the passenger shares.
+     * @param passportNumber Unique passport number.
+     * @throws IllegalArgumentException if the passport number is null or blank.
+     */
+    Passenger(Customer customer, String passportNumber) {
+        super(null, null, null);
+        this.customer = customer;
+        this.bookingLedger = customer.getBookingLedger();
+        this.passportNumber = checkPassport(passportNumber);
+    }
+
+    /**
+     * @return The customer whose identity the passenger shares, or null if the passenger has no account.
+     */
+    public Customer getCustomer() {
+        return customer;
     }
 
     // Getters and Setters
     public String getName() {
-        return name;
+        return customer != null ? customer.getName() : name;
     }
 
     public void setName(String name) {
-        this.name = name;
+        if (customer != null) {
+            customer.setName(name);
+        } else {
+            this.name = name;
+        }
     }
 
     public String getPhone() {
-        return phone;
+        return customer != null ? customer.getPhone() : phone;
     }
 
     public void setPhone(String phone) {
-        this.phone = phone;
+        if (customer != null) {
+            customer.setPhone(phone);
+        } else {
+            this.phone = phone;
+        }
     }
 
     public String getAddress() {
-        return address;
+        return customer != null ? customer.getAddress() : address;
     }
 
     public void setAddress(String address) {
-        this.address = address;
+        if (customer != null) {
+            customer.setAddress(address);
+        } else {
+            this.address = address;
+        }
     }
 
     public int getAge() {
-        return age;
+        return customer != null ? customer.getAge() : age;
     }
 
     public void setAge(int age) {
-        this.age = age;
+        if (customer != null) {
+            customer.setAge(age);
+        } else {
+            this.age = age;
+        }
     }
 
     public String getPassportNumber() {
         return passportNumber;
     }
 
+    /**
+     * @throws IllegalArgumentException if the passport number is null or blank.
+     */
     public void setPassportNumber(String passportNumber) {
-        this.passportNumber = passportNumber;
+        this.passportNumber = checkPassport(passportNumber);
     }
 
+    /**
+     * @return A read-only view of the flights booked by the passenger.
+     */
     public List<Flight> getFlightsRegisteredByUser() {
-        return flightsRegisteredByUser;
+        return bookingLedger.getFlightsView();
     }
 
+    /**
+     * @return A read-only view of the tickets booked on each flight, parallel to getFlightsRegisteredByUser().
+     */
     public List<Integer> getNumOfTicketsBookedByUser() {
-        return numOfTicketsBookedByUser;
+        return bookingLedger.getTicketsView();
+    }
+
+    public BookingLedger getBookingLedger() {
+        return bookingLedger;
     }
 
+    @Override
     public String getUserID() {
-        return super.getUserID();
+        return customer != null ? customer.getUserID() : super.getUserID();
     }
 
+    @Override
     public String getEmail() {
-        return super.getEmail();
+        return customer != null ? customer.getEmail() : super.getEmail();
+    }
+
+    @Override
+    public String getPassword() {
+        return customer != null ? customer.getPassword() : super.getPassword();
+    }
+
+    private static String checkPassport(String passportNumber) {
+        if (passportNumber == null || passportNumber.isBlank()) {
+            throw new IllegalArgumentException("A passenger needs a passport number");
+        }
+        return passportNumber;
     }
 
     /**
@@ -104,12 +180,11 @@ public class Passenger extends User {
             System.out.println("Invalid flight or number of tickets.");
             return;
         }
-        if (flightsRegisteredByUser.contains(flight)) {
+        if (bookingLedger.contains(flight)) {
             System.out.println("Flight is already booked: " + flight.getFlightNumber());
             return;
         }
-        flightsRegisteredByUser.add(flight);
-        numOfTicketsBookedByUser.add(numOfTickets);
+        bookingLedger.addTickets(flight, numOfTickets);
         System.out.println("Flight booked successfully: " + flight.getFlightNumber());
     }
 
@@ -123,10 +198,7 @@ public class Passenger extends User {
             System.out.println("Invalid flight.");
             return;
         }
-        int index = flightsRegisteredByUser.indexOf(flight);
-        if (index != -1) {
-            flightsRegisteredByUser.remove(index);
-            numOfTicketsBookedByUser.remove(index);
+        if (bookingLedger.removeFlight(flight) > 0) {
             System.out.println("Flight canceled successfully: " + flight.getFlightNumber());
         } else {
             System.out.println("Flight not found in bookings.");
@@ -150,10 +222,10 @@ public class Passenger extends User {
     public String toString() {
         return String.format("Passenger: %s, Name: %s, Phone: %s, Address: %s, Age: %d, Passport Number: %s",
                 super.toString(),
-                name != null ? name : "N/A",
-                phone != null ? phone : "N/A",
-                address != null ? address : "N/A",
-                age,
+                getName() != null ? getName() : "N/A",
+                getPhone() != null ? getPhone() : "N/A",
+                getAddress() != null ? getAddress() : "N/A",
+                getAge(),
                 passportNumber != null ? passportNumber : "N/A");
     }
 }
\ No newline at end of file
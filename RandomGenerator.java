@@ -1,10 +1,18 @@
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class RandomGenerator {
 
     //        ************************************************************ Fields ************************************************************
 
     private String randomNum;
+    /*  Unique customer IDs are drawn from 20000 to 999999, as before, but without repeats  */
+    private static final IdAllocator customerIDs = new IdAllocator(20000, 1000000, System.nanoTime());
+    /*  Flight number allocators, one per letter count and number range  */
+    private static final ConcurrentHashMap<Long, IdAllocator> flightNumbers = new ConcurrentHashMap<>();
+    /*  Flight numbers handed out so far, one key space per letter count covering the numbers 0 to 499 of every range  */
+    private static final ConcurrentHashMap<Integer, IdAllocator> issuedFlightNumbers = new ConcurrentHashMap<>();
+    private static final int FLIGHT_NUMBERS_PER_LETTERS = 500;
     /*  City name is at the 0-index, its latitude is on the 1-index and longitude on the 2-index*/
     private static final String[][] destinations = {
             {"Karachi", "24.871940", "66.988060"}, {"Bangkok", "13.921430", "100.595337"}, {"Jakarta", "-6.174760", "106.827072"},
@@ -27,15 +35,9 @@ public class RandomGenerator {
     //        ************************************************************ Behaviours/Methods ************************************************************
 
 
-    /* Generates Random ID for the Customers....*/
+    /* Generates a unique Random ID for the Customers, never handing out the same ID twice....*/
     public void randomIDGen() {
-        Random rand = new Random();
-        String randomID = Integer.toString(rand.nextInt(1000000));
-
-        while (Integer.parseInt(randomID) < 20000) {
-            randomID = Integer.toString(rand.nextInt(1000000));
-        }
-        setRandomNum(randomID);
+        setRandomNum(Integer.toString(customerIDs.allocate()));
     }
 
     /*This method sets the destinations for each of the flights from the above destinations randomly.....*/
@@ -72,19 +74,48 @@ public class RandomGenerator {
         return numOfSeats;
     }
 
-    /*Generates the Unique Flight Number....*/
+    /*Generates the Unique Flight Number: the letters followed by a number from 75 / divisible to 499 / divisible.
+      Every flight number is handed out once, also across different divisors, whose ranges overlap; see IdAllocator....*/
     public String randomFlightNumbGen(int uptoHowManyLettersRequired, int divisible) {
-        Random random = new Random();
-        StringBuilder randomAlphabets = new StringBuilder();
+        int lowest = 75 / divisible;
+        int numOfNumbers = 499 / divisible - lowest + 1;
+        int numOfLetterCombinations = 1;
         for (int i = 0; i < uptoHowManyLettersRequired; i++) {
-            randomAlphabets.append((char) (random.nextInt(26) + 'a'));
+            numOfLetterCombinations = Math.multiplyExact(numOfLetterCombinations, 26);
+        }
+        int numOfFlightNumbers = Math.multiplyExact(numOfLetterCombinations, numOfNumbers);
+        IdAllocator allocator = flightNumbers.computeIfAbsent(((long) uptoHowManyLettersRequired << 32) | divisible,
+                key -> new IdAllocator(0, numOfFlightNumbers, System.nanoTime()));
+        int numOfAllFlightNumbers = Math.multiplyExact(numOfLetterCombinations, FLIGHT_NUMBERS_PER_LETTERS);
+        IdAllocator issued = issuedFlightNumbers.computeIfAbsent(uptoHowManyLettersRequired,
+                key -> new IdAllocator(0, numOfAllFlightNumbers, 0));
+        int id = allocator.allocate();
+        // Skip numbers another divisor with the same letter count already handed out; allocate() throws once the
+        // range is used up
+        while (!issued.markUsed(id / numOfNumbers * FLIGHT_NUMBERS_PER_LETTERS + lowest + id % numOfNumbers)) {
+            id = allocator.allocate();
         }
-        randomAlphabets.append("-").append(randomNumOfSeats() / divisible);
-        return randomAlphabets.toString();
+        char[] letters = new char[uptoHowManyLettersRequired];
+        int combination = id / numOfNumbers;
+        for (int i = uptoHowManyLettersRequired - 1; i >= 0; i--) {
+            letters[i] = (char) ('a' + combination % 26);
+            combination /= 26;
+        }
+        return new StringBuilder(uptoHowManyLettersRequired + 4).append(letters).append('-')
+                .append(lowest + id % numOfNumbers).toString();
     }
 
     //        ************************************************************ Setters & Getters ************************************************************
 
+    /* Returns a copy of the destinations table, each row being {city name, latitude, longitude}....*/
+    static String[][] getDestinations() {
+        String[][] copy = new String[destinations.length][];
+        for (int i = 0; i < destinations.length; i++) {
+            copy[i] = destinations[i].clone();
+        }
+        return copy;
+    }
+
     public void setRandomNum(String randomNum) {
         this.randomNum = randomNum;
     }
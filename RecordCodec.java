@@ -0,0 +1,100 @@
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes the binary records written by BookingJournal and BookingSnapshot.
+ * A codec is a growable, reusable buffer that one record at a time is written
+ * into; strings are stored as their UTF-8 length followed by the bytes, with a
+ * length of -1 standing for null.
+ */
+final class RecordCodec {
+    private ByteBuffer buffer; // Record being encoded
+
+    RecordCodec(int initialCapacity) {
+        this.buffer = ByteBuffer.allocate(initialCapacity);
+    }
+
+    /**
+     * Starts a new record, discarding the previous one.
+     */
+    RecordCodec clear() {
+        buffer.clear();
+        return this;
+    }
+
+    RecordCodec putByte(byte value) {
+        ensure(1).put(value);
+        return this;
+    }
+
+    RecordCodec putInt(int value) {
+        ensure(4).putInt(value);
+        return this;
+    }
+
+    RecordCodec putLong(long value) {
+        ensure(8).putLong(value);
+        return this;
+    }
+
+    RecordCodec putDouble(double value) {
+        ensure(8).putDouble(value);
+        return this;
+    }
+
+    RecordCodec putString(String value) {
+        if (value == null) {
+            return putInt(-1);
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensure(4 + bytes.length).putInt(bytes.length).put(bytes);
+        return this;
+    }
+
+    /**
+     * @return The encoded record, flipped for reading.
+     */
+    ByteBuffer encoded() {
+        ByteBuffer encoded = buffer.duplicate();
+        encoded.flip();
+        return encoded;
+    }
+
+    private ByteBuffer ensure(int numOfBytes) {
+        if (buffer.remaining() < numOfBytes) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + numOfBytes));
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+        return buffer;
+    }
+
+    /**
+     * Reads a string written by putString().
+     *
+     * @param in The buffer to read from.
+     * @return The string, which may be null.
+     * @throws BufferUnderflowException if the buffer ends inside the string.
+     */
+    static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String value;
+        if (in.hasArray()) {
+            value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+}
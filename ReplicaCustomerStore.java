@@ -0,0 +1,27 @@
+/**
+ * A CustomerStore that the CustomerRepository keeps in step with itself:
+ * once attached with CustomerRepository.setReplica, every customer the
+ * repository adds, edits or removes is copied into it under the repository's
+ * lock, so a search or login served by the replica sees the same customers
+ * as the repository.
+ */
+public interface ReplicaCustomerStore extends CustomerStore {
+
+    /**
+     * Copies the customer into the store, first dropping any stored customer
+     * with the same userID or email. Does nothing if the customer is already
+     * stored with the same details.
+     *
+     * @param customer The customer to store.
+     * @throws IllegalArgumentException if the store cannot hold the customer's details.
+     * @throws IllegalStateException    if the store is full.
+     */
+    void replace(Customer customer);
+
+    /**
+     * Drops the customer with the given userID, if stored.
+     *
+     * @param userID The userID of the customer to drop.
+     */
+    void delete(String userID);
+}
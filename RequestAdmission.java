@@ -0,0 +1,64 @@
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounds the work a server takes on: at most maxConcurrent requests run at
+ * once and at most maxQueued more wait, each for a limited time, for one of
+ * them to finish. Requests beyond that are turned away at once.
+ */
+final class RequestAdmission {
+    private final Semaphore running; // One permit per request allowed to run
+    private final AtomicInteger waiting = new AtomicInteger(); // Requests currently waiting for a permit
+    private final AtomicLong rejected = new AtomicLong(); // Requests turned away so far
+    private final int maxQueued; // Most requests allowed to wait
+    private final long queueTimeoutMillis; // Longest a request waits before it is turned away
+
+    RequestAdmission(int maxConcurrent, int maxQueued, long queueTimeoutMillis) {
+        if (maxConcurrent <= 0 || maxQueued < 0) {
+            throw new IllegalArgumentException("maxConcurrent must be positive and maxQueued not negative");
+        }
+        this.running = new Semaphore(maxConcurrent, true);
+        this.maxQueued = maxQueued;
+        this.queueTimeoutMillis = queueTimeoutMillis;
+    }
+
+    /**
+     * Admits a request, waiting for a turn if the queue has room.
+     *
+     * @return true if the request may run and must call exit() when done, false if it was turned away.
+     */
+    boolean enter() {
+        if (running.tryAcquire()) {
+            return true;
+        }
+        if (waiting.incrementAndGet() > maxQueued) {
+            waiting.decrementAndGet();
+            rejected.incrementAndGet();
+            return false;
+        }
+        try {
+            if (running.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            waiting.decrementAndGet();
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Ends a request admitted by enter().
+     */
+    void exit() {
+        running.release();
+    }
+
+    long getRejected() {
+        return rejected.get();
+    }
+}
@@ -1,23 +1,42 @@
 public class RolesAndPermissions extends User {
+    //        ************************************************************ Fields ************************************************************
+
+    private static final AuthenticationService authenticationService = new AuthenticationService();
+
     //        ************************************************************ Behaviours/Methods ************************************************************
 
+    public RolesAndPermissions() {
+        super(null, null, null);
+    }
+
+    /**
+     * Registers an admin with the specified credentials.
+     * @param username of the imaginary admin
+     * @param password of the imaginary admin
+     * @return -1 if the username is already taken, else index of the admin.
+     */
+    public int registerPrivilegedUser(String username, String password) {
+        return authenticationService.registerAdmin(username, password);
+    }
+
     /**
      * Checks if the admin with specified credentials is registered or not.
      * @param username of the imaginary admin
      * @param password of the imaginary admin
-     * @return -1 if admin not found, else index of the admin in the array.
+     * @return -1 if admin not found, else index of the admin.
      */
     public int isPrivilegedUserOrNot(String username, String password) {
-        int isFound = -1;
-        for (int i = 0; i < adminUserNameAndPassword.length; i++) {
-            if (username.equals(adminUserNameAndPassword[i][0])) {
-                if (password.equals(adminUserNameAndPassword[i][1])) {
-                    isFound = i;
-                    break;
-                }
-            }
-        }
-        return isFound;
+        return authenticationService.authenticateAdmin(username, password);
+    }
+
+    /**
+     * Checks if the passenger with specified credentials is registered or not.
+     * @param email of the specified passenger
+     * @param password of the specified passenger
+     * @return the typed result of the login attempt, holding the customer if they are registered.
+     */
+    public AuthenticationResult authenticatePassenger(String email, String password) {
+        return authenticationService.authenticatePassenger(email, password);
     }
 
     /**
@@ -25,17 +44,11 @@ public class RolesAndPermissions extends User {
      * @param email of the specified passenger
      * @param password of the specified passenger
      * @return 1 with the userID if the passenger is registered, else 0
+     * @deprecated use {@link #authenticatePassenger(String, String)}, which does not need to be parsed.
      */
+    @Deprecated
     public String isPassengerRegistered(String email, String password) {
-        String isFound = "0";
-        for (Customer c : Customer.customerCollection) {
-            if (email.equals(c.getEmail())) {
-                if (password.equals(c.getPassword())) {
-                    isFound = "1-" + c.getUserID();
-                    break;
-                }
-            }
-        }
-        return isFound;
+        AuthenticationResult result = authenticatePassenger(email, password);
+        return result.isAuthenticated() ? "1-" + result.getUserID() : "0";
     }
 }
@@ -0,0 +1,136 @@
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Precomputed great-circle distances between every pair of cities served by
+ * the airline. The whole matrix is computed once into a flat primitive array,
+ * so distance lookups by city index or name are plain array reads and never
+ * allocate.
+ */
+public final class RouteDistanceMatrix {
+    public static final double MILES_PER_KM = 0.621371; // Statute miles in one kilometer
+
+    private final String[] cityNames; // City name of each index
+    private final double[] latitudes; // Latitude of each city in degrees
+    private final double[] longitudes; // Longitude of each city in degrees
+    private final double[] distancesInKm; // Row-major matrix of distances, [from * numOfCities + to]
+    private final Map<String, Integer> cityIndexByName = new HashMap<>(); // Exact city name to index
+    private final Map<String, Integer> cityIndexIgnoringCase = new TreeMap<>(String.CASE_INSENSITIVE_ORDER); // Fallback for differently cased names
+
+    /**
+     * Lazily creates the matrix for the destinations in RandomGenerator.
+     */
+    private static final class Holder {
+        private static final RouteDistanceMatrix INSTANCE =
+                new RouteDistanceMatrix(RandomGenerator.getDestinations(), new ConcreteFlightDistance());
+    }
+
+    /**
+     * @return The shared matrix over all destinations served by the airline.
+     */
+    public static RouteDistanceMatrix getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Computes the matrix for the given cities.
+     *
+     * @param cities         Rows of city name, latitude and longitude, as in RandomGenerator.
+     * @param flightDistance Formula used to calculate the distance between two coordinates.
+     */
+    public RouteDistanceMatrix(String[][] cities, FlightDistance flightDistance) {
+        int n = cities.length;
+        this.cityNames = new String[n];
+        this.latitudes = new double[n];
+        this.longitudes = new double[n];
+        this.distancesInKm = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            cityNames[i] = cities[i][0];
+            latitudes[i] = Double.parseDouble(cities[i][1]);
+            longitudes[i] = Double.parseDouble(cities[i][2]);
+            cityIndexByName.putIfAbsent(cityNames[i], i);
+            cityIndexIgnoringCase.putIfAbsent(cityNames[i], i);
+        }
+        // Distances are symmetric, so only the upper triangle is calculated
+        for (int from = 0; from < n; from++) {
+            for (int to = from + 1; to < n; to++) {
+                double distance = flightDistance.calculateDistanceInKm(latitudes[from], longitudes[from],
+                        latitudes[to], longitudes[to]);
+                distancesInKm[from * n + to] = distance;
+                distancesInKm[to * n + from] = distance;
+            }
+        }
+    }
+
+    public int getNumOfCities() {
+        return cityNames.length;
+    }
+
+    public String getCityName(int index) {
+        return cityNames[index];
+    }
+
+    public double getLatitude(int index) {
+        return latitudes[index];
+    }
+
+    public double getLongitude(int index) {
+        return longitudes[index];
+    }
+
+    /**
+     * Returns the index of the given city.
+     *
+     * @param cityName Name of the city; case is ignored if there is no exact match.
+     * @return The index of the city, or -1 if the city is not served.
+     */
+    public int indexOf(String cityName) {
+        if (cityName == null) {
+            return -1;
+        }
+        Integer index = cityIndexByName.get(cityName);
+        if (index == null) {
+            index = cityIndexIgnoringCase.get(cityName);
+        }
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * @param from Index of the departure city.
+     * @param to   Index of the destination city.
+     * @return The distance between the two cities in kilometers.
+     */
+    public double distanceInKm(int from, int to) {
+        return distancesInKm[from * cityNames.length + to];
+    }
+
+    /**
+     * @param from Index of the departure city.
+     * @param to   Index of the destination city.
+     * @return The distance between the two cities in statute miles.
+     */
+    public double distanceInMiles(int from, int to) {
+        return distanceInKm(from, to) * MILES_PER_KM;
+    }
+
+    /**
+     * @param fromCity Name of the departure city.
+     * @param toCity   Name of the destination city.
+     * @return The distance between the two cities in kilometers, or NaN if either city is not served.
+     */
+    public double distanceInKm(String fromCity, String toCity) {
+        int from = indexOf(fromCity);
+        int to = indexOf(toCity);
+        return from < 0 || to < 0 ? Double.NaN : distanceInKm(from, to);
+    }
+
+    /**
+     * @param fromCity Name of the departure city.
+     * @param toCity   Name of the destination city.
+     * @return The distance between the two cities in statute miles, or NaN if either city is not served.
+     */
+    public double distanceInMiles(String fromCity, String toCity) {
+        return distanceInKm(fromCity, toCity) * MILES_PER_KM;
+    }
+}
@@ -0,0 +1,351 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds itineraries with connecting flights between two cities.
+ * <p>
+ * The scheduled flights are turned into a graph with one node per city and
+ * one edge per city pair that has at least one flight, weighted with the
+ * great-circle distance from the RouteDistanceMatrix. Shortest routes are
+ * found with A*, using the great-circle distance to the destination as the
+ * estimate; routes with the fewest connections are found with Dijkstra on
+ * (legs, distance). Found routes are cached per city pair. The graph and its
+ * cache are rebuilt lazily on the first query after the FlightScheduler added
+ * or removed a flight.
+ * </p>
+ */
+public class RouteEngine {
+    private static final int MAX_CACHED_ROUTES = 10_000; // The cache is cleared once it holds this many routes
+    private static final Itinerary NO_ROUTE = new Itinerary(new ArrayList<>(), 0); // Cached when two cities are not connected
+
+    private final FlightScheduler flightScheduler; // Source of the flights
+    private final RouteDistanceMatrix distanceMatrix; // Edge weights and A* estimates
+    private volatile RouteGraph graph; // Graph of the schedule version it was built from, null until first used
+
+    /**
+     * Creates a route engine over the flights of a scheduler, using the shared distance matrix.
+     *
+     * @param flightScheduler The scheduler holding the flights.
+     */
+    public RouteEngine(FlightScheduler flightScheduler) {
+        this(flightScheduler, RouteDistanceMatrix.getInstance());
+    }
+
+    /**
+     * Creates a route engine over the flights of a scheduler.
+     *
+     * @param flightScheduler The scheduler holding the flights.
+     * @param distanceMatrix  The distances between the cities the flights connect.
+     */
+    public RouteEngine(FlightScheduler flightScheduler, RouteDistanceMatrix distanceMatrix) {
+        this.flightScheduler = flightScheduler;
+        this.distanceMatrix = distanceMatrix;
+    }
+
+    /**
+     * Finds the route with the shortest total distance.
+     *
+     * @param fromCity The city to depart from.
+     * @param toCity   The city to arrive at.
+     * @return The shortest itinerary, or null if the cities are unknown, equal or not connected.
+     */
+    public Itinerary findShortestRoute(String fromCity, String toCity) {
+        return findRoute(fromCity, toCity, false);
+    }
+
+    /**
+     * Finds the route with the fewest connections, and among those the shortest one.
+     *
+     * @param fromCity The city to depart from.
+     * @param toCity   The city to arrive at.
+     * @return The itinerary with the fewest legs, or null if the cities are unknown, equal or not connected.
+     */
+    public Itinerary findFewestHopsRoute(String fromCity, String toCity) {
+        return findRoute(fromCity, toCity, true);
+    }
+
+    private Itinerary findRoute(String fromCity, String toCity, boolean fewestHops) {
+        RouteGraph graph = currentGraph();
+        int from = graph.indexOf(fromCity);
+        int to = graph.indexOf(toCity);
+        if (from < 0 || to < 0 || from == to) {
+            return null;
+        }
+        long key = (((long) from * graph.numOfCities + to) << 1) | (fewestHops ? 1 : 0);
+        Itinerary itinerary = graph.cache.get(key);
+        if (itinerary == null) {
+            itinerary = graph.search(from, to, fewestHops, distanceMatrix);
+            if (graph.cache.size() >= MAX_CACHED_ROUTES) {
+                graph.cache.clear();
+            }
+            graph.cache.put(key, itinerary);
+        }
+        return itinerary == NO_ROUTE ? null : itinerary;
+    }
+
+    /**
+     * Returns the graph of the current schedule, rebuilding it if flights were
+     * added or removed since it was built.
+     */
+    private RouteGraph currentGraph() {
+        long version = flightScheduler.getVersion();
+        RouteGraph current = graph;
+        if (current != null && current.version == version) {
+            return current;
+        }
+        synchronized (this) {
+            current = graph;
+            if (current == null || current.version != version) {
+                // The version is read before the flights, so a graph is never newer than its version claims
+                current = new RouteGraph(version, flightScheduler.getFlightList(), distanceMatrix);
+                graph = current;
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Immutable adjacency graph of one version of the schedule, stored as
+     * compressed rows of edges, together with the routes found in it.
+     */
+    private static final class RouteGraph {
+        private final long version; // Schedule version the graph was built from
+        private final Map<String, Integer> cityIndexByKey = new HashMap<>(); // Normalized city name to node
+        private final int numOfCities; // Number of nodes
+        private final int[] matrixIndex; // Index of each node in the distance matrix, -1 if it is not in it
+        private final int[] firstEdge; // Edges of node i are firstEdge[i] until firstEdge[i + 1]
+        private final int[] edgeSource; // Departure node of each edge
+        private final int[] edgeTarget; // Arrival node of each edge
+        private final double[] edgeDistanceInKm; // Weight of each edge
+        private final Flight[][] edgeFlights; // Flights between the cities of each edge, in scheduling order
+        private final boolean greatCircleWeights; // All weights are matrix distances, so A* estimates are admissible
+        private final ConcurrentHashMap<Long, Itinerary> cache = new ConcurrentHashMap<>(); // Routes found so far
+
+        RouteGraph(long version, List<Flight> flights, RouteDistanceMatrix distanceMatrix) {
+            this.version = version;
+            List<String> cityNames = new ArrayList<>();
+            Map<Long, List<Flight>> flightsByPair = new LinkedHashMap<>();
+            for (Flight flight : flights) {
+                int from = addCity(flight.getFromWhichCity(), cityNames);
+                int to = addCity(flight.getToWhichCity(), cityNames);
+                if (from >= 0 && to >= 0 && from != to) {
+                    flightsByPair.computeIfAbsent(((long) from << 32) | to, pair -> new ArrayList<>()).add(flight);
+                }
+            }
+            numOfCities = cityNames.size();
+            matrixIndex = new int[numOfCities];
+            for (int i = 0; i < numOfCities; i++) {
+                matrixIndex[i] = distanceMatrix.indexOf(cityNames.get(i));
+            }
+
+            int numOfEdges = flightsByPair.size();
+            firstEdge = new int[numOfCities + 1];
+            for (long pair : flightsByPair.keySet()) {
+                firstEdge[(int) (pair >>> 32) + 1]++;
+            }
+            for (int i = 0; i < numOfCities; i++) {
+                firstEdge[i + 1] += firstEdge[i];
+            }
+            edgeSource = new int[numOfEdges];
+            edgeTarget = new int[numOfEdges];
+            edgeDistanceInKm = new double[numOfEdges];
+            edgeFlights = new Flight[numOfEdges][];
+            int[] nextEdge = Arrays.copyOf(firstEdge, numOfCities);
+            boolean allGreatCircle = true;
+            for (Map.Entry<Long, List<Flight>> pair : flightsByPair.entrySet()) {
+                int from = (int) (pair.getKey() >>> 32);
+                int to = (int) (long) pair.getKey();
+                int edge = nextEdge[from]++;
+                edgeSource[edge] = from;
+                edgeTarget[edge] = to;
+                edgeFlights[edge] = pair.getValue().toArray(new Flight[0]);
+                if (matrixIndex[from] >= 0 && matrixIndex[to] >= 0) {
+                    edgeDistanceInKm[edge] = distanceMatrix.distanceInKm(matrixIndex[from], matrixIndex[to]);
+                } else {
+                    // Cities outside the matrix fall back to the shortest distance stated by their flights
+                    double distance = Double.MAX_VALUE;
+                    for (Flight flight : edgeFlights[edge]) {
+                        distance = Math.min(distance, flight.getDistanceInKm());
+                    }
+                    edgeDistanceInKm[edge] = distance;
+                    allGreatCircle = false;
+                }
+            }
+            greatCircleWeights = allGreatCircle;
+        }
+
+        private int addCity(String cityName, List<String> cityNames) {
+            if (cityName == null || cityName.isBlank()) {
+                return -1;
+            }
+            Integer index = cityIndexByKey.putIfAbsent(normalize(cityName), cityNames.size());
+            if (index != null) {
+                return index;
+            }
+            cityNames.add(cityName.trim());
+            return cityNames.size() - 1;
+        }
+
+        int indexOf(String cityName) {
+            if (cityName == null) {
+                return -1;
+            }
+            Integer index = cityIndexByKey.get(normalize(cityName));
+            return index == null ? -1 : index;
+        }
+
+        private static String normalize(String cityName) {
+            return cityName.trim().toLowerCase(Locale.ROOT);
+        }
+
+        /**
+         * Searches a route, ordering nodes by (distance, legs) or by (legs, distance).
+         */
+        Itinerary search(int from, int to, boolean fewestHops, RouteDistanceMatrix distanceMatrix) {
+            double[] primary = new double[numOfCities];
+            double[] secondary = new double[numOfCities];
+            int[] viaEdge = new int[numOfCities];
+            boolean[] settled = new boolean[numOfCities];
+            Arrays.fill(primary, Double.POSITIVE_INFINITY);
+            Arrays.fill(viaEdge, -1);
+            primary[from] = 0;
+            boolean useEstimate = !fewestHops && greatCircleWeights;
+            NodeQueue queue = new NodeQueue(Math.max(16, numOfCities));
+            queue.add(from, 0, 0);
+            while (!queue.isEmpty()) {
+                int node = queue.poll();
+                if (settled[node]) {
+                    continue;
+                }
+                settled[node] = true;
+                if (node == to) {
+                    break;
+                }
+                for (int edge = firstEdge[node]; edge < firstEdge[node + 1]; edge++) {
+                    int next = edgeTarget[edge];
+                    if (settled[next]) {
+                        continue;
+                    }
+                    double nextPrimary = primary[node] + (fewestHops ? 1 : edgeDistanceInKm[edge]);
+                    double nextSecondary = secondary[node] + (fewestHops ? edgeDistanceInKm[edge] : 1);
+                    if (nextPrimary < primary[next] || (nextPrimary == primary[next] && nextSecondary < secondary[next])) {
+                        primary[next] = nextPrimary;
+                        secondary[next] = nextSecondary;
+                        viaEdge[next] = edge;
+                        double estimate = useEstimate
+                                ? distanceMatrix.distanceInKm(matrixIndex[next], matrixIndex[to]) : 0;
+                        queue.add(next, nextPrimary + estimate, nextSecondary);
+                    }
+                }
+            }
+            if (!settled[to]) {
+                return NO_ROUTE;
+            }
+            List<Flight> legs = new ArrayList<>();
+            for (int node = to; node != from; node = edgeSource[viaEdge[node]]) {
+                legs.add(pickFlight(edgeFlights[viaEdge[node]]));
+            }
+            Collections.reverse(legs);
+            return new Itinerary(legs, fewestHops ? secondary[to] : primary[to]);
+        }
+
+        /**
+         * Picks the first flight of a city pair that still has seats, or the first one if all are full.
+         */
+        private static Flight pickFlight(Flight[] flights) {
+            for (Flight flight : flights) {
+                if (flight.getNumOfSeatsInTheFlight() > 0) {
+                    return flight;
+                }
+            }
+            return flights[0];
+        }
+    }
+
+    /**
+     * Binary min-heap of nodes ordered by two keys. A node may be added again
+     * with smaller keys; the outdated entries are skipped by the search.
+     */
+    private static final class NodeQueue {
+        private int[] nodes;
+        private double[] primaryKeys;
+        private double[] secondaryKeys;
+        private int size;
+
+        NodeQueue(int capacity) {
+            nodes = new int[capacity];
+            primaryKeys = new double[capacity];
+            secondaryKeys = new double[capacity];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void add(int node, double primaryKey, double secondaryKey) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                primaryKeys = Arrays.copyOf(primaryKeys, size * 2);
+                secondaryKeys = Arrays.copyOf(secondaryKeys, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!less(primaryKey, secondaryKey, parent)) {
+                    break;
+                }
+                set(i, nodes[parent], primaryKeys[parent], secondaryKeys[parent]);
+                i = parent;
+            }
+            set(i, node, primaryKey, secondaryKey);
+        }
+
+        int poll() {
+            int top = nodes[0];
+            size--;
+            int node = nodes[size];
+            double primaryKey = primaryKeys[size];
+            double secondaryKey = secondaryKeys[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && less(primaryKeys[child + 1], secondaryKeys[child + 1], child)) {
+                    child++;
+                }
+                if (!less(primaryKeys[child], secondaryKeys[child], primaryKey, secondaryKey)) {
+                    break;
+                }
+                set(i, nodes[child], primaryKeys[child], secondaryKeys[child]);
+                i = child;
+            }
+            if (size > 0) {
+                set(i, node, primaryKey, secondaryKey);
+            }
+            return top;
+        }
+
+        private boolean less(double primaryKey, double secondaryKey, int index) {
+            return less(primaryKey, secondaryKey, primaryKeys[index], secondaryKeys[index]);
+        }
+
+        private static boolean less(double primaryKey, double secondaryKey, double otherPrimary, double otherSecondary) {
+            return primaryKey < otherPrimary || (primaryKey == otherPrimary && secondaryKey < otherSecondary);
+        }
+
+        private void set(int index, int node, double primaryKey, double secondaryKey) {
+            nodes[index] = node;
+            primaryKeys[index] = primaryKey;
+            secondaryKeys[index] = secondaryKey;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the number of unsold seats on a flight.
+ * Seats are reserved and released with compare-and-set, so concurrent bookings
+ * can never oversell a flight and never have to wait on a lock.
+ */
+public class SeatInventory {
+    private final AtomicInteger availableSeats; // Number of seats that can still be booked
+
+    /**
+     * Constructor to initialize a SeatInventory.
+     *
+     * @param availableSeats Number of seats that can be booked initially.
+     */
+    public SeatInventory(int availableSeats) {
+        this.availableSeats = new AtomicInteger(availableSeats);
+    }
+
+    /**
+     * Atomically reserves the given number of seats if that many are available.
+     *
+     * @param numOfSeats The number of seats to reserve.
+     * @return true if the seats were reserved, false if not enough seats are available.
+     */
+    public boolean tryReserve(int numOfSeats) {
+        if (numOfSeats <= 0) {
+            return false;
+        }
+        int available = availableSeats.get();
+        while (available >= numOfSeats) {
+            int witness = availableSeats.compareAndExchange(available, available - numOfSeats);
+            if (witness == available) {
+                return true;
+            }
+            available = witness;
+            Metrics.recordSeatReserveRetry();
+        }
+        return false;
+    }
+
+    /**
+     * Atomically returns previously reserved seats to the inventory.
+     *
+     * @param numOfSeats The number of seats to release.
+     */
+    public void release(int numOfSeats) {
+        if (numOfSeats > 0) {
+            availableSeats.addAndGet(numOfSeats);
+        }
+    }
+
+    public int getAvailableSeats() {
+        return availableSeats.get();
+    }
+
+    void setAvailableSeats(int numOfSeats) {
+        availableSeats.set(numOfSeats);
+    }
+
+    @Override
+    public String toString() {
+        return "Available Seats: " + availableSeats.get();
+    }
+}
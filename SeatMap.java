@@ -0,0 +1,293 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Seat assignments of one flight, one bit per seat.
+ * <p>
+ * Rows are packed into 64-bit words without crossing a word boundary, so a
+ * six-abreast row never straddles two words and a block of seats in one row
+ * can be found and taken with a handful of bit operations on a single word:
+ * the free bits are ANDed with shifted copies of themselves until only the
+ * starts of long enough runs remain, masked to starts that leave the run
+ * inside its row. Words are updated with compare-and-set, so concurrent
+ * bookings never lock and never get the same seat. No objects are created
+ * per seat; a 500-seat cabin fits in 63 words.
+ * </p>
+ */
+public final class SeatMap {
+    private final CabinLayout layout; // Rows and seat letters of the cabin
+    private final int seatsPerRow; // Bits per row
+    private final int rowsPerWord; // Rows packed into one word
+    private final AtomicLongArray words; // A set bit is a taken seat, or a bit that is not a seat at all
+    private final long[] runStarts; // runStarts[n]: bits where a run of n seats can start without leaving its row
+    private final AtomicInteger freeSeats; // Seats not taken nor promised to an assignment in progress
+
+    /**
+     * Constructor to initialize an empty SeatMap.
+     *
+     * @param layout The cabin layout.
+     */
+    public SeatMap(CabinLayout layout) {
+        this.layout = layout;
+        this.seatsPerRow = layout.getSeatsPerRow();
+        this.rowsPerWord = 64 / seatsPerRow;
+        int numOfWords = (layout.getNumOfRows() + rowsPerWord - 1) / rowsPerWord;
+        this.words = new AtomicLongArray(numOfWords);
+        this.freeSeats = new AtomicInteger(layout.getNumOfSeats());
+
+        long rowMask = lowBits(seatsPerRow);
+        long usedBits = 0;
+        for (int r = 0; r < rowsPerWord; r++) {
+            usedBits |= rowMask << (r * seatsPerRow);
+        }
+        this.runStarts = new long[seatsPerRow + 1];
+        for (int n = 1; n <= seatsPerRow; n++) {
+            long startsInRow = lowBits(seatsPerRow - n + 1);
+            for (int r = 0; r < rowsPerWord; r++) {
+                runStarts[n] |= startsInRow << (r * seatsPerRow);
+            }
+        }
+        // Bits past the last row of a word and past the last seat of the cabin are never free
+        for (int w = 0; w < numOfWords; w++) {
+            words.set(w, ~usedBits);
+        }
+        for (int seat = layout.getNumOfSeats(); seat < numOfWords * rowsPerWord * seatsPerRow; seat++) {
+            int w = wordOf(seat);
+            words.set(w, words.get(w) | bitOf(seat));
+        }
+    }
+
+    public CabinLayout getLayout() {
+        return layout;
+    }
+
+    public int getFreeSeats() {
+        return freeSeats.get();
+    }
+
+    /**
+     * @param seat The index of a seat.
+     * @return true if the seat is assigned.
+     */
+    public boolean isTaken(int seat) {
+        checkSeat(seat);
+        return (words.get(wordOf(seat)) & bitOf(seat)) != 0;
+    }
+
+    /**
+     * Assigns seats to a group, keeping it together as far as possible: the
+     * whole group in one row if it fits, otherwise in the largest blocks that
+     * are still free, front to back.
+     *
+     * @param numOfSeats The size of the group.
+     * @return The assigned seats, or null if fewer seats are free.
+     */
+    public int[] assign(int numOfSeats) {
+        if (numOfSeats <= 0 || !reserveCount(numOfSeats)) {
+            return null;
+        }
+        int[] seats = new int[numOfSeats];
+        int assigned = 0;
+        int blockSize = Math.min(numOfSeats, seatsPerRow);
+        while (assigned < numOfSeats) {
+            blockSize = Math.min(blockSize, numOfSeats - assigned);
+            int first = takeBlock(blockSize);
+            if (first < 0) {
+                if (blockSize > 1) {
+                    blockSize--;
+                } else {
+                    // The count reserved above guarantees a free seat, but a concurrent release may have freed it in
+                    // a word this scan had already passed while another assignment took the one it was heading for
+                    Thread.onSpinWait();
+                }
+                continue;
+            }
+            for (int i = 0; i < blockSize; i++) {
+                seats[assigned++] = first + i;
+            }
+        }
+        return seats;
+    }
+
+    /**
+     * Assigns a block of adjacent seats in one row.
+     *
+     * @param numOfSeats The size of the block, at most the number of seats in a row.
+     * @return The first seat of the block, or -1 if no row has such a block free.
+     */
+    public int assignBlock(int numOfSeats) {
+        if (numOfSeats <= 0 || numOfSeats > seatsPerRow || !reserveCount(numOfSeats)) {
+            return -1;
+        }
+        int first = takeBlock(numOfSeats);
+        if (first < 0) {
+            freeSeats.addAndGet(numOfSeats);
+        }
+        return first;
+    }
+
+    /**
+     * Assigns one particular seat.
+     *
+     * @param seat The index of the seat.
+     * @return true if the seat was free and is now assigned.
+     */
+    public boolean assignSeat(int seat) {
+        checkSeat(seat);
+        if (!reserveCount(1)) {
+            return false;
+        }
+        int w = wordOf(seat);
+        long bit = bitOf(seat);
+        long word = words.get(w);
+        while ((word & bit) == 0) {
+            long witness = words.compareAndExchange(w, word, word | bit);
+            if (witness == word) {
+                return true;
+            }
+            word = witness;
+        }
+        freeSeats.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Frees an assigned seat.
+     *
+     * @param seat The index of the seat.
+     * @return true if the seat was assigned.
+     */
+    public boolean release(int seat) {
+        checkSeat(seat);
+        return clearBits(wordOf(seat), bitOf(seat)) == 1;
+    }
+
+    /**
+     * Frees assigned seats, with one compare-and-set per word for seats that are listed next to each other.
+     *
+     * @param seats The indexes of the seats.
+     * @return The number of seats that were assigned.
+     */
+    public int release(int[] seats) {
+        int released = 0;
+        int i = 0;
+        while (i < seats.length) {
+            checkSeat(seats[i]);
+            int w = wordOf(seats[i]);
+            long bits = bitOf(seats[i++]);
+            while (i < seats.length && seats[i] >= 0 && seats[i] < layout.getNumOfSeats() && wordOf(seats[i]) == w) {
+                bits |= bitOf(seats[i++]);
+            }
+            released += clearBits(w, bits);
+        }
+        return released;
+    }
+
+    /**
+     * Clears the given bits of a word.
+     *
+     * @return The number of bits that were set.
+     */
+    private int clearBits(int w, long bits) {
+        long word = words.get(w);
+        while ((word & bits) != 0) {
+            long witness = words.compareAndExchange(w, word, word & ~bits);
+            if (witness == word) {
+                int cleared = Long.bitCount(word & bits);
+                freeSeats.addAndGet(cleared);
+                return cleared;
+            }
+            word = witness;
+        }
+        return 0;
+    }
+
+    private boolean reserveCount(int numOfSeats) {
+        int free = freeSeats.get();
+        while (free >= numOfSeats) {
+            int witness = freeSeats.compareAndExchange(free, free - numOfSeats);
+            if (witness == free) {
+                return true;
+            }
+            free = witness;
+        }
+        return false;
+    }
+
+    /**
+     * Takes the first free block of the given size whose count has already been reserved.
+     *
+     * @return The first seat of the block, or -1 if there is none.
+     */
+    private int takeBlock(int numOfSeats) {
+        long block = lowBits(numOfSeats);
+        for (int w = 0; w < words.length(); w++) {
+            long word = words.get(w);
+            long starts;
+            while ((starts = runsOf(~word, numOfSeats)) != 0) {
+                int bit = Long.numberOfTrailingZeros(starts);
+                long witness = words.compareAndExchange(w, word, word | (block << bit));
+                if (witness == word) {
+                    return (w * rowsPerWord + bit / seatsPerRow) * seatsPerRow + bit % seatsPerRow;
+                }
+                word = witness;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The bits of free where a run of numOfSeats free bits starts inside one row.
+     */
+    private long runsOf(long free, int numOfSeats) {
+        long starts = free;
+        int length = 1;
+        while (length < numOfSeats) {
+            int shift = Math.min(length, numOfSeats - length);
+            starts &= starts >>> shift;
+            length += shift;
+        }
+        return starts & runStarts[numOfSeats];
+    }
+
+    private int wordOf(int seat) {
+        return seat / seatsPerRow / rowsPerWord;
+    }
+
+    private long bitOf(int seat) {
+        return 1L << (seat / seatsPerRow % rowsPerWord * seatsPerRow + seat % seatsPerRow);
+    }
+
+    private void checkSeat(int seat) {
+        if (seat < 0 || seat >= layout.getNumOfSeats()) {
+            throw new IllegalArgumentException("No such seat: " + seat);
+        }
+    }
+
+    private static long lowBits(int n) {
+        return n == 64 ? -1L : (1L << n) - 1;
+    }
+
+    /**
+     * @return The seat map drawn row by row, X for a taken seat and the seat letter for a free one.
+     */
+    @Override
+    public String toString() {
+        StringBuilder map = new StringBuilder();
+        String pattern = layout.getRowPattern();
+        for (int row = 0; row < layout.getNumOfRows(); row++) {
+            map.append(String.format("%3d ", row + 1));
+            int seat = row * seatsPerRow;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (c == '-') {
+                    map.append("  ");
+                } else if (seat < layout.getNumOfSeats()) {
+                    map.append(isTaken(seat++) ? 'X' : c);
+                }
+            }
+            map.append(System.lineSeparator());
+        }
+        return map.toString();
+    }
+}
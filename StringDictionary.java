@@ -0,0 +1,50 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Assigns a small integer code to each distinct string, so that a column of
+ * repeated values such as city names or email domains stores one int per row
+ * and each distinct string once. Codes are handed out from 0 in order of
+ * first appearance and are never reused. Not thread-safe; the owning store
+ * guards it.
+ */
+final class StringDictionary {
+    private final HashMap<String, Integer> codes = new HashMap<>(); // Code of each distinct string
+    private final List<String> values = new ArrayList<>(); // String of each code
+
+    /**
+     * @return The code of the string, adding it if it is new; -1 for null.
+     */
+    int encode(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    /**
+     * @return The code of the string, or -1 if it has never been added.
+     */
+    int find(String value) {
+        Integer code = value == null ? null : codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    /**
+     * @return The string of the code; null for -1.
+     */
+    String decode(int code) {
+        return code < 0 ? null : values.get(code);
+    }
+
+    int size() {
+        return values.size();
+    }
+}
@@ -0,0 +1,158 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Formats table rows into a single reusable buffer and writes it to the
+ * destination in large chunks instead of one printf call per cell or row.
+ * Padding mirrors the "%-Ns", "%Ns" and "%-Nd" conversions used by the
+ * display code, so the rendered tables are identical to the printf output.
+ */
+public class TableRenderer {
+    private static final int FLUSH_THRESHOLD = 64 * 1024; // Buffered characters that trigger a write
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD + 1024); // Rows not written yet
+    private final Appendable appendable; // Text destination, null when writing to a channel
+    private final WritableByteChannel channel; // Byte destination, null when writing to an Appendable
+    private final CharsetEncoder encoder; // Encodes the buffer for the channel
+    private final ByteBuffer bytes; // Encoded chunk waiting to be written to the channel
+
+    /**
+     * Creates a renderer that writes to a text destination such as System.out.
+     *
+     * @param appendable The destination of the rendered text.
+     */
+    public TableRenderer(Appendable appendable) {
+        this.appendable = appendable;
+        this.channel = null;
+        this.encoder = null;
+        this.bytes = null;
+    }
+
+    /**
+     * Creates a renderer that writes UTF-8 encoded text to a channel.
+     *
+     * @param channel The destination of the rendered text.
+     */
+    public TableRenderer(WritableByteChannel channel) {
+        this.appendable = null;
+        this.channel = channel;
+        this.encoder = StandardCharsets.UTF_8.newEncoder();
+        this.bytes = ByteBuffer.allocateDirect(FLUSH_THRESHOLD * 2);
+    }
+
+    /**
+     * Appends text as is.
+     */
+    public TableRenderer text(CharSequence text) {
+        buffer.append(text);
+        return this;
+    }
+
+    /**
+     * Appends a character the given number of times.
+     */
+    public TableRenderer repeat(char c, int count) {
+        for (int i = 0; i < count; i++) {
+            buffer.append(c);
+        }
+        return this;
+    }
+
+    /**
+     * Appends a value left-aligned in a column, like "%-Ns".
+     */
+    public TableRenderer left(Object value, int width) {
+        int start = buffer.length();
+        buffer.append(value);
+        return repeat(' ', width - (buffer.length() - start));
+    }
+
+    /**
+     * Appends a number left-aligned in a column, like "%-Nd".
+     */
+    public TableRenderer left(long value, int width) {
+        int start = buffer.length();
+        buffer.append(value);
+        return repeat(' ', width - (buffer.length() - start));
+    }
+
+    /**
+     * Appends a value right-aligned in a column, like "%Ns".
+     */
+    public TableRenderer right(Object value, int width) {
+        String text = String.valueOf(value);
+        return repeat(' ', width - text.length()).text(text);
+    }
+
+    /**
+     * Ends the current line, writing the buffer out once it has grown large enough.
+     */
+    public TableRenderer newline() {
+        buffer.append(LINE_SEPARATOR);
+        if (buffer.length() >= FLUSH_THRESHOLD) {
+            flush();
+        }
+        return this;
+    }
+
+    /**
+     * Appends text followed by a line separator, like println.
+     */
+    public TableRenderer line(CharSequence text) {
+        return text(text).newline();
+    }
+
+    /**
+     * Writes everything buffered so far to the destination.
+     *
+     * @throws UncheckedIOException if the destination cannot be written to.
+     */
+    public void flush() {
+        if (buffer.length() == 0) {
+            return;
+        }
+        try {
+            if (appendable != null) {
+                appendable.append(buffer);
+            } else {
+                writeToChannel();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            buffer.setLength(0);
+        }
+    }
+
+    private void writeToChannel() throws IOException {
+        CharBuffer chars = CharBuffer.wrap(buffer);
+        encoder.reset();
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, true);
+            if (result.isError()) {
+                result.throwException();
+            }
+            if (result.isUnderflow()) {
+                encoder.flush(bytes);
+                drainBytes();
+                return;
+            }
+            drainBytes();
+        }
+    }
+
+    private void drainBytes() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+}
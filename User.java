@@ -27,7 +27,11 @@ public class User {
         return userID;
     }
 
-    public void setUserID(String userID) {
+    /**
+     * Not public: a Passenger that belongs to a Customer reads its account
+     * details from the customer, so they cannot be changed through it.
+     */
+    void setUserID(String userID) {
         this.userID = userID;
     }
 
@@ -35,7 +39,7 @@ public class User {
         return email;
     }
 
-    public void setEmail(String email) {
+    void setEmail(String email) {
         this.email = email;
     }
 
@@ -43,7 +47,7 @@ public class User {
         return password;
     }
 
-    public void setPassword(String password) {
+    void setPassword(String password) {
         this.password = password;
     }
 
@@ -55,11 +59,11 @@ public class User {
      * @return true if credentials match, false otherwise.
      */
     public boolean authenticate(String inputEmail, String inputPassword) {
-        return Objects.equals(this.email, inputEmail) && Objects.equals(this.password, inputPassword);
+        return Objects.equals(getEmail(), inputEmail) && Objects.equals(getPassword(), inputPassword);
     }
 
     @Override
     public String toString() {
-        return String.format("UserID: %s, Email: %s", userID, email);
+        return String.format("UserID: %s, Email: %s", getUserID(), getEmail());
     }
 }
\ No newline at end of file
@@ -0,0 +1,130 @@
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * The waitlist of one flight. Joining and leaving are lock-free skip-list
+ * operations. Promotion runs on an executor: any number of threads may
+ * signal that seats were freed, but only one drain runs at a time and a
+ * signal that arrives while it runs makes it go round once more, so no
+ * freed seat is missed and no two drains race for the same entries.
+ */
+final class Waitlist {
+    private final ConcurrentSkipListSet<WaitlistEntry> entries = new ConcurrentSkipListSet<>(); // In serving order
+    private final AtomicLong nextSequence = new AtomicLong(); // Orders entries of equal priority by arrival
+    private final AtomicInteger pendingSignals = new AtomicInteger(); // Non-zero while a drain is scheduled or running
+    private final AtomicInteger numOfWaiting = new AtomicInteger(); // Entries neither promoted nor withdrawn yet
+
+    WaitlistEntry add(Flight flight, Passenger passenger, int numOfTickets, int priority, WaitlistListener listener) {
+        WaitlistEntry entry = new WaitlistEntry(flight, passenger, numOfTickets, priority,
+                nextSequence.getAndIncrement(), listener);
+        numOfWaiting.incrementAndGet();
+        entries.add(entry);
+        return entry;
+    }
+
+    boolean withdraw(WaitlistEntry entry) {
+        if (!entry.finish(WaitlistEntry.WITHDRAWN)) {
+            return false;
+        }
+        numOfWaiting.decrementAndGet();
+        entries.remove(entry);
+        return true;
+    }
+
+    /**
+     * Withdraws every waiting entry, e.g. because the flight was removed. Their listeners are not called.
+     */
+    void withdrawAll() {
+        WaitlistEntry entry;
+        while ((entry = entries.pollFirst()) != null) {
+            if (entry.finish(WaitlistEntry.WITHDRAWN)) {
+                numOfWaiting.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * @return The number of waiting entries; walks the list, so use hasWaiting() on hot paths.
+     */
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Unlike the entry list, the count includes an entry the drain has taken off the list to promote, so bookings
+     * that defer to the waitlist cannot slip in while its head is being served.
+     *
+     * @return true if some entry is neither promoted nor withdrawn.
+     */
+    boolean hasWaiting() {
+        return numOfWaiting.get() > 0;
+    }
+
+    /**
+     * Schedules a drain unless one is already scheduled or running, in which case that one goes round again.
+     * If the executor rejects the drain, e.g. because it was shut down, the drain runs on the calling thread.
+     *
+     * @param executor The executor to drain on.
+     * @param promoter Books the tickets of an entry and marks it promoted, returning false if there are not
+     *                 enough seats.
+     */
+    void signal(Executor executor, Predicate<WaitlistEntry> promoter) {
+        if (pendingSignals.getAndIncrement() == 0) {
+            try {
+                executor.execute(() -> drain(promoter));
+            } catch (RejectedExecutionException e) {
+                // No drain is scheduled, so the count must not stay raised; drain on this thread instead, which
+                // brings it back to zero
+                drain(promoter);
+            }
+        }
+    }
+
+    private void drain(Predicate<WaitlistEntry> promoter) {
+        int signals = pendingSignals.get();
+        try {
+            do {
+                promoteWhileSeatsLast(promoter);
+                signals = pendingSignals.addAndGet(-signals);
+            } while (signals != 0);
+        } catch (RuntimeException | Error e) {
+            // Reset the count, so the next signal schedules a new drain instead of waiting for this one
+            pendingSignals.set(0);
+            throw e;
+        }
+    }
+
+    /**
+     * Promotes entries in serving order until the first one that does not fit,
+     * so a large group at the head is not overtaken by smaller requests behind it.
+     */
+    private void promoteWhileSeatsLast(Predicate<WaitlistEntry> promoter) {
+        WaitlistEntry head;
+        while ((head = entries.pollFirst()) != null) {
+            if (!head.isWaiting()) {
+                continue;
+            }
+            if (!promoter.test(head)) {
+                entries.add(head);
+                return;
+            }
+            if (!head.isPromoted()) {
+                // Withdrawn while the promoter booked it, which already took it off the count
+                continue;
+            }
+            numOfWaiting.decrementAndGet();
+            WaitlistListener listener = head.getListener();
+            if (listener != null) {
+                try {
+                    listener.onPromoted(head);
+                } catch (RuntimeException e) {
+                    System.err.println("Waitlist listener failed for " + head + ": " + e);
+                }
+            }
+        }
+    }
+}
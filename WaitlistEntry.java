@@ -0,0 +1,79 @@
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A request waiting on a sold-out flight. Entries are served by descending
+ * priority and, within a priority, in the order they joined the waitlist.
+ * The entry doubles as the handle for leaving the waitlist.
+ */
+public final class WaitlistEntry implements Comparable<WaitlistEntry> {
+    static final int WAITING = 0;
+    static final int PROMOTED = 1;
+    static final int WITHDRAWN = 2;
+
+    private final Flight flight; // The flight waited on
+    private final Passenger passenger; // The passenger waiting
+    private final int numOfTickets; // Tickets to book once seats free up
+    private final int priority; // Higher priorities are served first
+    private final long sequence; // Position among entries of the same priority
+    private final WaitlistListener listener; // Told about the promotion, may be null
+    private final AtomicInteger state = new AtomicInteger(WAITING); // WAITING until promoted or withdrawn, exactly once
+
+    WaitlistEntry(Flight flight, Passenger passenger, int numOfTickets, int priority, long sequence,
+                  WaitlistListener listener) {
+        this.flight = flight;
+        this.passenger = passenger;
+        this.numOfTickets = numOfTickets;
+        this.priority = priority;
+        this.sequence = sequence;
+        this.listener = listener;
+    }
+
+    public Flight getFlight() {
+        return flight;
+    }
+
+    public Passenger getPassenger() {
+        return passenger;
+    }
+
+    public int getNumOfTickets() {
+        return numOfTickets;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public boolean isWaiting() {
+        return state.get() == WAITING;
+    }
+
+    public boolean isPromoted() {
+        return state.get() == PROMOTED;
+    }
+
+    WaitlistListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Moves the entry out of WAITING; only the first of a promotion and a withdrawal succeeds.
+     */
+    boolean finish(int newState) {
+        return state.compareAndSet(WAITING, newState);
+    }
+
+    @Override
+    public int compareTo(WaitlistEntry other) {
+        if (priority != other.priority) {
+            return priority > other.priority ? -1 : 1;
+        }
+        return Long.compare(sequence, other.sequence);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s waiting for %d ticket(s) on %s (priority %d)", passenger.getName(), numOfTickets,
+                flight.getFlightNumber(), priority);
+    }
+}
@@ -0,0 +1,14 @@
+/**
+ * Notified when a waitlisted request is turned into a booking. Called on the
+ * thread that promotes the waitlist, so implementations should return quickly
+ * and hand longer work off to their own executor.
+ */
+public interface WaitlistListener {
+
+    /**
+     * Called once the tickets of a waitlisted request have been booked.
+     *
+     * @param entry The promoted request, now holding booked tickets.
+     */
+    void onPromoted(WaitlistEntry entry);
+}
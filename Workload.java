@@ -0,0 +1,74 @@
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A synthetic dataset built by the WorkloadGenerator: flights, customers,
+ * passengers and a stream of booking requests against them.
+ */
+public final class Workload {
+    private final long seed; // Seed the workload was generated from
+    private final Flight[] flights; // Generated flights
+    private final Customer[] customers; // Generated customers
+    private final Passenger[] passengers; // One passenger per customer, with the same details
+    private final BookingRequest[] bookings; // Booking stream, in the order it should be replayed
+
+    Workload(long seed, Flight[] flights, Customer[] customers, Passenger[] passengers, BookingRequest[] bookings) {
+        this.seed = seed;
+        this.flights = flights;
+        this.customers = customers;
+        this.passengers = passengers;
+        this.bookings = bookings;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public List<Flight> getFlights() {
+        return Collections.unmodifiableList(Arrays.asList(flights));
+    }
+
+    public List<Customer> getCustomers() {
+        return Collections.unmodifiableList(Arrays.asList(customers));
+    }
+
+    public List<Passenger> getPassengers() {
+        return Collections.unmodifiableList(Arrays.asList(passengers));
+    }
+
+    public List<BookingRequest> getBookings() {
+        return Collections.unmodifiableList(Arrays.asList(bookings));
+    }
+
+    /**
+     * Schedules the flights and registers the customers of the workload.
+     *
+     * @param flightScheduler    The scheduler to add the flights to.
+     * @param customerRepository The repository to add the customers to.
+     */
+    public void loadInto(FlightScheduler flightScheduler, CustomerRepository customerRepository) {
+        for (Flight flight : flights) {
+            flightScheduler.addFlight(flight);
+        }
+        for (Customer customer : customers) {
+            customerRepository.add(customer);
+        }
+    }
+
+    /**
+     * Replays the booking stream through the quiet booking path.
+     *
+     * @param flightReservation The reservation service to book with.
+     * @return The number of bookings that succeeded.
+     */
+    public long replayBookings(FlightReservation flightReservation) {
+        long numOfBooked = 0;
+        for (BookingRequest booking : bookings) {
+            if (flightReservation.tryBook(booking.getFlight(), booking.getPassenger(), booking.getNumOfTickets())) {
+                numOfBooked++;
+            }
+        }
+        return numOfBooked;
+    }
+}
@@ -0,0 +1,287 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Builds large, realistic and reproducible datasets for load tests and benchmarks.
+ * <p>
+ * Flights connect random city pairs from the destinations table with their
+ * great-circle distances, customers get unique IDs and emails, and bookings
+ * pick flights from a Zipf distribution, so a few flights are far more popular
+ * than the rest. Rows are generated in parallel with fork/join, in fixed-size
+ * chunks that each draw from their own SplittableRandom seeded by the chunk
+ * index; the same seed therefore produces exactly the same dataset no matter
+ * how many threads take part.
+ * </p>
+ */
+public class WorkloadGenerator {
+    private static final int CHUNK_SIZE = 4096; // Rows generated from one random stream
+    private static final long FIRST_DEPARTURE = Instant.parse("2026-01-01T00:00:00Z").getEpochSecond();
+    private static final int DEPARTURE_DAYS = 90; // Departures are spread over this many days
+    private static final double CRUISE_SPEED_KMH = 833; // Used to derive flight times from distances
+    private static final String[] FIRST_NAMES = {"Ali", "Sara", "Omar", "Ayesha", "John", "Maria", "Wei", "Yuki",
+            "Fatima", "Ahmed", "Emma", "Lucas", "Zara", "Hassan", "Mei", "Ivan", "Noor", "David", "Amina", "Carlos"};
+    private static final String[] LAST_NAMES = {"Khan", "Ahmed", "Smith", "Garcia", "Chen", "Tanaka", "Hussain",
+            "Rahman", "Brown", "Silva", "Ivanov", "Malik", "Lee", "Kim", "Haider", "Lopez", "Ali", "Wang", "Sato", "Shah"};
+    private static final String[] STREETS = {"Main Street", "Station Road", "Park Avenue", "Canal View", "Hill Road",
+            "Garden Town", "Airport Road", "Lake Drive"};
+
+    // Streams of random numbers, so each kind of row is independent of the others
+    private static final long FLIGHT_STREAM = 1;
+    private static final long CUSTOMER_STREAM = 2;
+    private static final long BOOKING_STREAM = 3;
+
+    private final long seed; // Determines the whole dataset
+    private final ForkJoinPool pool; // Runs the generation
+    private final RouteDistanceMatrix distanceMatrix; // Cities and distances of the flights
+
+    /**
+     * Creates a generator that runs on the common fork/join pool.
+     *
+     * @param seed The seed of the datasets.
+     */
+    public WorkloadGenerator(long seed) {
+        this(seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a generator that runs on the given pool.
+     *
+     * @param seed The seed of the datasets.
+     * @param pool The pool generating the rows.
+     */
+    public WorkloadGenerator(long seed, ForkJoinPool pool) {
+        this.seed = seed;
+        this.pool = pool;
+        this.distanceMatrix = RouteDistanceMatrix.getInstance();
+    }
+
+    /**
+     * Generates a complete workload.
+     *
+     * @param numOfFlights   The number of flights.
+     * @param numOfCustomers The number of customers, at most 980000.
+     * @param numOfBookings  The number of booking requests.
+     * @param zipfExponent   The skew of flight popularity, e.g. 1.0; 0 picks flights uniformly.
+     * @return The workload.
+     */
+    public Workload generate(int numOfFlights, int numOfCustomers, int numOfBookings, double zipfExponent) {
+        Flight[] flights = generateFlights(numOfFlights);
+        Customer[] customers = generateCustomers(numOfCustomers);
+        Passenger[] passengers = new Passenger[numOfCustomers];
+        generate(passengers, CUSTOMER_STREAM, (i, random) -> toPassenger(customers[i]));
+        BookingRequest[] bookings = generateBookings(flights, passengers, numOfBookings, zipfExponent);
+        return new Workload(seed, flights, customers, passengers, bookings);
+    }
+
+    /**
+     * Generates flights between random pairs of cities, departing over the
+     * next DEPARTURE_DAYS days. Flight numbers are unique and derived from the
+     * row index, e.g. "ab-123".
+     *
+     * @param numOfFlights The number of flights.
+     * @return The flights.
+     */
+    public Flight[] generateFlights(int numOfFlights) {
+        Flight[] flights = new Flight[numOfFlights];
+        generate(flights, FLIGHT_STREAM, this::newFlight);
+        return flights;
+    }
+
+    private Flight newFlight(int index, SplittableRandom random) {
+        int numOfCities = distanceMatrix.getNumOfCities();
+        int from = random.nextInt(numOfCities);
+        int to = random.nextInt(numOfCities - 1);
+        if (to >= from) {
+            to++;
+        }
+        double distanceInKm = distanceMatrix.distanceInKm(from, to);
+        int minutes = (int) Math.round(distanceInKm / CRUISE_SPEED_KMH * 60) + 30;
+        String flightTime = minutes / 60 + ":" + (minutes % 60 < 10 ? "0" : "") + minutes % 60;
+        String gate = (char) ('A' + random.nextInt(6)) + Integer.toString(1 + random.nextInt(40));
+        Flight flight = new Flight(flightNumber(index), distanceMatrix.getCityName(from), distanceMatrix.getCityName(to),
+                gate, distanceInKm * RouteDistanceMatrix.MILES_PER_KM, distanceInKm, flightTime,
+                75 + random.nextInt(425));
+        long departure = FIRST_DEPARTURE + random.nextInt(DEPARTURE_DAYS * 24 * 12) * 300L;
+        flight.setDepartureTime(Instant.ofEpochSecond(departure).toString());
+        return flight;
+    }
+
+    /**
+     * Encodes a row index as letters and a number, in the style of RandomGenerator's flight numbers.
+     */
+    private static String flightNumber(int index) {
+        StringBuilder letters = new StringBuilder();
+        int combination = index / 1000;
+        do {
+            letters.insert(0, (char) ('a' + combination % 26));
+            combination /= 26;
+        } while (combination > 0 || letters.length() < 2);
+        return letters.append('-').append(index % 1000).toString();
+    }
+
+    /**
+     * Generates customers with unique userIDs from the 20000 to 999999 range
+     * used by RandomGenerator, and unique emails.
+     *
+     * @param numOfCustomers The number of customers, at most 980000.
+     * @return The customers.
+     */
+    public Customer[] generateCustomers(int numOfCustomers) {
+        IdAllocator userIDs = new IdAllocator(20000, 1000000, seed);
+        if (numOfCustomers > userIDs.getSize()) {
+            throw new IllegalArgumentException("At most " + userIDs.getSize() + " customers can be generated");
+        }
+        Customer[] customers = new Customer[numOfCustomers];
+        generate(customers, CUSTOMER_STREAM, (i, random) -> {
+            String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            String phone = String.format("+92-3%02d-%07d", random.nextInt(50), random.nextInt(10_000_000));
+            String address = (1 + random.nextInt(999)) + " " + STREETS[random.nextInt(STREETS.length)] + ", "
+                    + distanceMatrix.getCityName(random.nextInt(distanceMatrix.getNumOfCities()));
+            return new Customer(Integer.toString(userIDs.idAt(i)), firstName + " " + lastName,
+                    firstName.toLowerCase(Locale.ROOT) + "." + lastName.toLowerCase(Locale.ROOT) + i + "@example.com",
+                    Long.toString(random.nextLong() >>> 16, 36), phone, address, 18 + random.nextInt(63));
+        });
+        return customers;
+    }
+
+    private static Passenger toPassenger(Customer customer) {
+        return customer.asPassenger("P" + customer.getUserID());
+    }
+
+    /**
+     * Generates a stream of booking requests. Flights are picked by a Zipf
+     * distribution over their index, passengers uniformly, and most requests
+     * are for one or two tickets.
+     *
+     * @param flights       The flights to book.
+     * @param passengers    The passengers booking.
+     * @param numOfBookings The number of requests.
+     * @param zipfExponent  The skew of flight popularity; 0 picks flights uniformly.
+     * @return The booking requests.
+     */
+    public BookingRequest[] generateBookings(Flight[] flights, Passenger[] passengers, int numOfBookings,
+                                             double zipfExponent) {
+        if (numOfBookings > 0 && (flights.length == 0 || passengers.length == 0)) {
+            throw new IllegalArgumentException("Bookings need at least one flight and one passenger");
+        }
+        double[] cumulative = zipfDistribution(flights.length, zipfExponent);
+        BookingRequest[] bookings = new BookingRequest[numOfBookings];
+        generate(bookings, BOOKING_STREAM, (i, random) -> {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+            int flight = Math.min(rank < 0 ? -rank - 1 : rank, flights.length - 1);
+            int tickets = random.nextInt(10);
+            int numOfTickets = tickets < 6 ? 1 : tickets < 9 ? 2 : 3 + random.nextInt(2);
+            return new BookingRequest(flights[flight], passengers[random.nextInt(passengers.length)], numOfTickets);
+        });
+        return bookings;
+    }
+
+    /**
+     * @return The cumulative probabilities of ranks 1 to n under Zipf's law with the given exponent.
+     */
+    private static double[] zipfDistribution(int n, double exponent) {
+        double[] cumulative = new double[n];
+        double sum = 0;
+        for (int rank = 1; rank <= n; rank++) {
+            sum += 1 / Math.pow(rank, exponent);
+            cumulative[rank - 1] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    //        ************************************************************ Parallel Generation ************************************************************
+
+    /**
+     * Creates one row from its index and the random stream of its chunk.
+     */
+    interface RowFactory<T> {
+        T create(int index, SplittableRandom random);
+    }
+
+    private <T> void generate(T[] rows, long stream, RowFactory<T> factory) {
+        int numOfChunks = (rows.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        if (numOfChunks > 0) {
+            pool.invoke(new ChunkTask<>(rows, stream, factory, 0, numOfChunks));
+        }
+    }
+
+    /**
+     * Mixes the seed, stream and chunk into the seed of the chunk's random stream.
+     */
+    private long chunkSeed(long stream, int chunk) {
+        long z = seed + stream * 0x9E3779B97F4A7C15L + chunk * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Generates a range of chunks, splitting it in halves until one chunk is left.
+     */
+    private final class ChunkTask<T> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final T[] rows;
+        private final long stream;
+        private final RowFactory<T> factory;
+        private final int fromChunk;
+        private final int toChunk;
+
+        ChunkTask(T[] rows, long stream, RowFactory<T> factory, int fromChunk, int toChunk) {
+            this.rows = rows;
+            this.stream = stream;
+            this.factory = factory;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (toChunk - fromChunk > 1) {
+                int middle = (fromChunk + toChunk) >>> 1;
+                invokeAll(new ChunkTask<>(rows, stream, factory, fromChunk, middle),
+                        new ChunkTask<>(rows, stream, factory, middle, toChunk));
+                return;
+            }
+            SplittableRandom random = new SplittableRandom(chunkSeed(stream, fromChunk));
+            int end = Math.min(rows.length, (fromChunk + 1) * CHUNK_SIZE);
+            for (int i = fromChunk * CHUNK_SIZE; i < end; i++) {
+                rows[i] = factory.create(i, random);
+            }
+        }
+    }
+
+    /**
+     * Writes a generated dataset in the BulkLoader binary format, e.g. to seed
+     * replay and stress tests.
+     * <p>
+     * Usage: java WorkloadGenerator [seed] [flights] [customers] [file]
+     * (defaults: seed 42, 100000 flights, 980000 customers, workload.bin).
+     * </p>
+     */
+    public static void main(String[] args) throws IOException {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : 42;
+        int numOfFlights = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int numOfCustomers = args.length > 2 ? Integer.parseInt(args[2]) : 980_000;
+        Path file = Paths.get(args.length > 3 ? args[3] : "workload.bin");
+        long start = System.nanoTime();
+        WorkloadGenerator generator = new WorkloadGenerator(seed);
+        Flight[] flights = generator.generateFlights(numOfFlights);
+        Customer[] customers = generator.generateCustomers(numOfCustomers);
+        long generated = System.nanoTime();
+        long numOfRecords = BulkLoader.writeBinary(file, Arrays.asList(flights), Arrays.asList(customers));
+        System.out.printf("Generated %,d flights and %,d customers in %d ms, wrote %,d records (%,d KB) to %s%n",
+                numOfFlights, numOfCustomers, (generated - start) / 1_000_000, numOfRecords, Files.size(file) / 1024, file);
+    }
+}
@@ -0,0 +1,21 @@
+/**
+ * A single operation measured by the BenchmarkHarness at several data sizes.
+ */
+public interface BenchmarkCase {
+
+    /**
+     * Builds the data the operation runs against.
+     *
+     * @param size The data size of this run, e.g. number of flights or customers.
+     */
+    void setUp(int size);
+
+    /**
+     * Runs the operation once.
+     *
+     * @param iteration Running counter of invocations, to vary the input.
+     * @return A value derived from the result, consumed by the harness so the
+     *         JIT cannot eliminate the operation.
+     */
+    long run(long iteration);
+}
@@ -0,0 +1,140 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal JMH-style harness: every case is run at each of its data sizes with
+ * timed warm-up and measurement iterations, and the mean time per operation is
+ * reported with its standard deviation. Anything the measured code prints goes
+ * to a null stream so console I/O does not distort the numbers.
+ * <p>
+ * Options: -f &lt;regex&gt; only runs cases whose name matches, -wi &lt;n&gt; warm-up
+ * iterations, -i &lt;n&gt; measurement iterations, -t &lt;ms&gt; length of each iteration.
+ * </p>
+ */
+public class BenchmarkHarness {
+    private final List<String> names = new ArrayList<>(); // Name of each registered case
+    private final List<int[]> sizes = new ArrayList<>(); // Data sizes of each registered case
+    private final List<BenchmarkCase> cases = new ArrayList<>(); // Registered cases
+    private Pattern filter = Pattern.compile(".*"); // Cases to run
+    private int warmupIterations = 3; // Iterations run before measuring
+    private int measurementIterations = 5; // Iterations that are measured
+    private long iterationMillis = 1000; // Length of each iteration
+    private long sink; // Consumes results so they cannot be optimized away
+
+    /**
+     * Constructor to initialize the harness from command line options.
+     *
+     * @param args The command line options.
+     */
+    public BenchmarkHarness(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "-f":
+                    filter = Pattern.compile(".*(?:" + args[i + 1] + ").*");
+                    break;
+                case "-wi":
+                    warmupIterations = Integer.parseInt(args[i + 1]);
+                    break;
+                case "-i":
+                    measurementIterations = Integer.parseInt(args[i + 1]);
+                    break;
+                case "-t":
+                    iterationMillis = Long.parseLong(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+    }
+
+    /**
+     * Registers a case to be measured at each of the given data sizes.
+     *
+     * @param name          Name of the case in the report.
+     * @param benchmarkCase The case to measure.
+     * @param dataSizes     The data sizes to measure it at, in increasing order.
+     */
+    public void add(String name, BenchmarkCase benchmarkCase, int... dataSizes) {
+        names.add(name);
+        cases.add(benchmarkCase);
+        sizes.add(dataSizes);
+    }
+
+    /**
+     * Runs every registered case that matches the filter and prints the report.
+     */
+    public void runAll() {
+        PrintStream out = System.out;
+        out.printf("%-60s %10s %16s %12s %16s%n", "Benchmark", "Size", "ns/op", "Error", "ops/s");
+        for (int c = 0; c < cases.size(); c++) {
+            if (!filter.matcher(names.get(c)).matches()) {
+                continue;
+            }
+            for (int size : sizes.get(c)) {
+                System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+                double[] nanosPerOp;
+                try {
+                    nanosPerOp = measure(cases.get(c), size);
+                } finally {
+                    System.setOut(out);
+                }
+                double mean = 0;
+                for (double value : nanosPerOp) {
+                    mean += value;
+                }
+                mean /= nanosPerOp.length;
+                double variance = 0;
+                for (double value : nanosPerOp) {
+                    variance += (value - mean) * (value - mean);
+                }
+                double stdDev = nanosPerOp.length > 1 ? Math.sqrt(variance / (nanosPerOp.length - 1)) : 0;
+                out.printf("%-60s %10d %16.1f %12.1f %16.0f%n", names.get(c), size, mean, stdDev, 1e9 / mean);
+            }
+        }
+        if (sink == 42) {
+            out.println();
+        }
+    }
+
+    private double[] measure(BenchmarkCase benchmarkCase, int size) {
+        benchmarkCase.setUp(size);
+        long iteration = 0;
+        for (int i = 0; i < warmupIterations; i++) {
+            long[] result = runIteration(benchmarkCase, iteration);
+            iteration += result[0];
+        }
+        double[] nanosPerOp = new double[measurementIterations];
+        for (int i = 0; i < measurementIterations; i++) {
+            long[] result = runIteration(benchmarkCase, iteration);
+            iteration += result[0];
+            nanosPerOp[i] = result[1] / (double) result[0];
+        }
+        return nanosPerOp;
+    }
+
+    /**
+     * @return {operations run, nanoseconds taken}
+     */
+    private long[] runIteration(BenchmarkCase benchmarkCase, long firstIteration) {
+        long deadline = System.nanoTime() + iterationMillis * 1_000_000L;
+        long start = System.nanoTime();
+        long operations = 0;
+        int batch = 1;
+        long now = start;
+        do {
+            // Grow the batch between clock reads so the cost of reading the clock stays out of fast cases
+            long batchStart = now;
+            for (int i = 0; i < batch; i++) {
+                sink += benchmarkCase.run(firstIteration + operations++);
+            }
+            now = System.nanoTime();
+            if (batch < 1024 && now - batchStart < 10_000) {
+                batch *= 2;
+            }
+        } while (now < deadline);
+        return new long[]{operations, now - start};
+    }
+}
@@ -0,0 +1,384 @@
+import java.time.Instant;
+import java.util.Random;
+
+/**
+ * Regression benchmarks for the hot paths of the airline system, each measured
+ * at several data sizes. Run with the options described in BenchmarkHarness.
+ */
+public class BenchmarkSuite {
+
+    public static void main(String[] args) {
+        BenchmarkHarness harness = new BenchmarkHarness(args);
+        harness.add("FlightReservation.bookFlight+cancelFlight", new BookAndCancel(), 10, 100, 500);
+        harness.add("FlightReservation.tryBook+tryCancel (Zipf)", new BookAndCancelZipf(), 100, 10_000, 100_000);
+        harness.add("FlightScheduler.findFlightByNumber", new FindFlightByNumber(), 1_000, 10_000, 100_000);
+        harness.add("Customer.isUniqueData", new IsUniqueData(), 1_000, 100_000, 1_000_000);
+        harness.add("Customer.searchUser", new SearchUser(), 1_000, 100_000, 1_000_000);
+        harness.add("ConcreteFlightDistance.calculateDistance", new CalculateDistance(), 1_000, 100_000);
+        harness.add("FlightScheduler.findDepartures", new FindDepartures(), 1_000, 100_000, 1_000_000);
+        harness.add("RouteEngine.findShortestRoute", new FindShortestRoute(), 100, 10_000, 100_000);
+        harness.add("FlightDisplay.displayRegisteredUsersForASpecificFlight", new DisplayFlightManifest(), 100, 1_000, 10_000);
+        harness.add("FlightDisplay.displayFlightsRegisteredByOneUser", new DisplayPassengerFlights(), 10, 100, 1_000);
+        harness.add("Customer.displayCustomersData", new DisplayCustomersData(), 100, 1_000, 10_000);
+        harness.add("SeatMap.assign+release (500 seats, half full)", new AssignSeats(), 1, 4, 10);
+        harness.add("OperationStats.record", new RecordMetrics(), 1, 7);
+        harness.add("EtaService.setSpeedModel (recompute schedule)", new RecomputeEtas(), 1_000, 100_000);
+        harness.runAll();
+    }
+
+    static Flight newFlight(int i, int numOfSeats) {
+        return new Flight("FL-" + i, "Dhaka", "London", "G" + (i % 40), 4958.5, 7979.8, "11:12", numOfSeats);
+    }
+
+    static Passenger newPassenger(int i) {
+        return new Passenger(Integer.toString(20000 + i), "passenger" + i + "@example.com", "password" + i,
+                "Passenger " + i, "0300-" + i, "Street " + i, 18 + i % 60, "P" + i);
+    }
+
+    static void registerCustomers(int numOfCustomers) {
+        Customer.customerRepository.clear();
+        for (int i = 0; i < numOfCustomers; i++) {
+            Customer.customerRepository.add(new Customer(Integer.toString(20000 + i), "Customer " + i,
+                    "customer" + i + "@example.com", "password" + i, "0300-" + i, "Street " + i, 18 + i % 60));
+        }
+    }
+
+    /**
+     * Books and cancels one ticket on a flight that already holds the given number of passengers.
+     */
+    static final class BookAndCancel implements BenchmarkCase {
+        private final FlightReservation reservation = new FlightReservation();
+        private Flight flight;
+        private Passenger[] passengers;
+
+        @Override
+        public void setUp(int size) {
+            flight = newFlight(0, Integer.MAX_VALUE / 2);
+            passengers = new Passenger[size];
+            for (int i = 0; i < size; i++) {
+                passengers[i] = newPassenger(i);
+                reservation.bookFlight(flight, passengers[i], 1);
+            }
+        }
+
+        @Override
+        public long run(long iteration) {
+            Passenger passenger = passengers[(int) (iteration % passengers.length)];
+            reservation.bookFlight(flight, passenger, 1);
+            reservation.cancelFlight(flight, passenger, 1);
+            return flight.getNumOfSeatsInTheFlight();
+        }
+    }
+
+    /**
+     * Books and cancels the requests of a generated Zipf booking stream over the given number of flights.
+     */
+    static final class BookAndCancelZipf implements BenchmarkCase {
+        private final FlightReservation reservation = new FlightReservation();
+        private BookingRequest[] bookings;
+
+        @Override
+        public void setUp(int size) {
+            Workload workload = new WorkloadGenerator(size).generate(size, 10_000, 1 << 16, 1.0);
+            bookings = workload.getBookings().toArray(new BookingRequest[0]);
+        }
+
+        @Override
+        public long run(long iteration) {
+            BookingRequest booking = bookings[(int) (iteration % bookings.length)];
+            if (reservation.tryBook(booking.getFlight(), booking.getPassenger(), booking.getNumOfTickets())) {
+                reservation.tryCancel(booking.getFlight(), booking.getPassenger(), booking.getNumOfTickets());
+            }
+            return booking.getFlight().getNumOfSeatsInTheFlight();
+        }
+    }
+
+    /**
+     * Looks up scheduled flights by flight number, including numbers that are not scheduled.
+     */
+    static final class FindFlightByNumber implements BenchmarkCase {
+        private FlightScheduler scheduler;
+        private String[] flightNumbers;
+
+        @Override
+        public void setUp(int size) {
+            scheduler = new FlightScheduler();
+            flightNumbers = new String[size * 2];
+            for (int i = 0; i < size; i++) {
+                scheduler.scheduleFlight(newFlight(i, 300));
+                flightNumbers[2 * i] = "fl-" + i;
+                flightNumbers[2 * i + 1] = "XX-" + i;
+            }
+        }
+
+        @Override
+        public long run(long iteration) {
+            Flight flight = scheduler.findFlightByNumber(flightNumbers[(int) (iteration % flightNumbers.length)]);
+            return flight == null ? 0 : 1;
+        }
+    }
+
+    /**
+     * Checks whether emails are registered, half of them being unknown.
+     */
+    static final class IsUniqueData implements BenchmarkCase {
+        private final Customer customer = new Customer();
+        private String[] emails;
+
+        @Override
+        public void setUp(int size) {
+            registerCustomers(size);
+            emails = new String[Math.min(size, 1 << 16) * 2];
+            Random random = new Random(size);
+            for (int i = 0; i < emails.length; i += 2) {
+                int c = random.nextInt(size);
+                emails[i] = "customer" + c + "@example.com";
+                emails[i + 1] = "unknown" + c + "@example.com";
+            }
+        }
+
+        @Override
+        public long run(long iteration) {
+            return customer.isUniqueData(emails[(int) (iteration % emails.length)]) ? 1 : 0;
+        }
+    }
+
+    /**
+     * Searches customers by userID and prints the found record.
+     */
+    static final class SearchUser implements BenchmarkCase {
+        private final Customer customer = new Customer();
+        private String[] userIDs;
+
+        @Override
+        public void setUp(int size) {
+            registerCustomers(size);
+            userIDs = new String[Math.min(size, 1 << 16)];
+            Random random = new Random(size);
+            for (int i = 0; i < userIDs.length; i++) {
+                userIDs[i] = Integer.toString(20000 + random.nextInt(size));
+            }
+        }
+
+        @Override
+        public long run(long iteration) {
+            customer.searchUser(userIDs[(int) (iteration % userIDs.length)]);
+            return iteration;
+        }
+    }
+
+    /**
+     * Calculates and formats the distance between random coordinates.
+     */
+    static final class CalculateDistance implements BenchmarkCase {
+        private final ConcreteFlightDistance flightDistance = new ConcreteFlightDistance();
+        private double[] coordinates;
+
+        @Override
+        public void setUp(int size) {
+            coordinates = new double[size * 4];
+            Random random = new Random(size);
+            for (int i = 0; i < coordinates.length; i += 2) {
+                coordinates[i] = random.nextDouble() * 180 - 90;
+                coordinates[i + 1] = random.nextDouble() * 360 - 180;
+            }
+        }
+
+        @Override
+        public long run(long iteration) {
+            int i = (int) (iteration % (coordinates.length / 4)) * 4;
+            String[] result = flightDistance.calculateDistance(coordinates[i], coordinates[i + 1],
+                    coordinates[i + 2], coordinates[i + 3]);
+            return result[0].length();
+        }
+    }
+
+    /**
+     * Pages through the flights of a route departing within a six-hour window.
+     */
+    static final class FindDepartures implements BenchmarkCase {
+        private static final long FIRST_DEPARTURE = 1_790_000_000L; // Seconds since the epoch
+        private FlightScheduler scheduler;
+        private long numOfDays;
+
+        @Override
+        public void setUp(int size) {
+            scheduler = new FlightScheduler();
+            // Ten departures an hour, as many days as the size needs
+            for (int i = 0; i < size; i++) {
+                Flight flight = newFlight(i, 300);
+                flight.setDepartureTime(Instant.ofEpochSecond(FIRST_DEPARTURE + i * 360L).toString());
+                scheduler.addFlight(flight);
+            }
+            numOfDays = Math.max(1, size / 240);
+        }
+
+        @Override
+        public long run(long iteration) {
+            long windowStart = FIRST_DEPARTURE + (iteration % numOfDays) * 86_400 + 8 * 3_600;
+            DeparturePage page = scheduler.findDepartures("Dhaka", "London", Instant.ofEpochSecond(windowStart),
+                    Instant.ofEpochSecond(windowStart + 6 * 3_600), null, 20);
+            return page.getFlights().size();
+        }
+    }
+
+    /**
+     * Finds connecting routes between random city pairs of a schedule with the given number of flights.
+     */
+    static final class FindShortestRoute implements BenchmarkCase {
+        private RouteEngine routeEngine;
+        private String[] cities;
+
+        @Override
+        public void setUp(int size) {
+            RouteDistanceMatrix matrix = RouteDistanceMatrix.getInstance();
+            FlightScheduler scheduler = new FlightScheduler();
+            for (Flight flight : new WorkloadGenerator(size).generateFlights(size)) {
+                scheduler.addFlight(flight);
+            }
+            Random random = new Random(size);
+            routeEngine = new RouteEngine(scheduler);
+            cities = new String[1 << 12];
+            for (int i = 0; i < cities.length; i++) {
+                cities[i] = matrix.getCityName(random.nextInt(matrix.getNumOfCities()));
+            }
+        }
+
+        @Override
+        public long run(long iteration) {
+            int i = (int) (iteration % (cities.length - 1));
+            Itinerary itinerary = routeEngine.findShortestRoute(cities[i], cities[i + 1]);
+            return itinerary == null ? 0 : itinerary.getNumOfLegs();
+        }
+    }
+
+    /**
+     * Renders the passenger manifest of a flight with the given number of passengers.
+     */
+    static final class DisplayFlightManifest implements BenchmarkCase {
+        private final FlightDisplay display = new FlightDisplay();
+        private Flight flight;
+
+        @Override
+        public void setUp(int size) {
+            FlightReservation reservation = new FlightReservation();
+            flight = newFlight(0, size * 2);
+            for (int i = 0; i < size; i++) {
+                reservation.bookFlight(flight, newPassenger(i), 1 + i % 2);
+            }
+        }
+
+        @Override
+        public long run(long iteration) {
+            display.displayRegisteredUsersForASpecificFlight(flight);
+            return iteration;
+        }
+    }
+
+    /**
+     * Renders the flights booked by a passenger holding the given number of flights.
+     */
+    static final class DisplayPassengerFlights implements BenchmarkCase {
+        private final FlightDisplay display = new FlightDisplay();
+        private Passenger passenger;
+
+        @Override
+        public void setUp(int size) {
+            FlightReservation reservation = new FlightReservation();
+            passenger = newPassenger(0);
+            for (int i = 0; i < size; i++) {
+                reservation.bookFlight(newFlight(i, 10), passenger, 1 + i % 3);
+            }
+        }
+
+        @Override
+        public long run(long iteration) {
+            display.displayFlightsRegisteredByOneUser(passenger);
+            return iteration;
+        }
+    }
+
+    /**
+     * Renders the table of all registered customers.
+     */
+    static final class DisplayCustomersData implements BenchmarkCase {
+        private final Customer customer = new Customer();
+
+        @Override
+        public void setUp(int size) {
+            registerCustomers(size);
+        }
+
+        @Override
+        public long run(long iteration) {
+            customer.displayCustomersData(false);
+            return iteration;
+        }
+    }
+
+    /**
+     * Assigns and frees seats for a group of the given size on a 500-seat cabin that is half full.
+     */
+    static final class AssignSeats implements BenchmarkCase {
+        private SeatMap seatMap;
+        private int groupSize;
+
+        @Override
+        public void setUp(int size) {
+            seatMap = new SeatMap(CabinLayout.forCapacity(500));
+            groupSize = size;
+            Random random = new Random(size);
+            while (seatMap.getFreeSeats() > 250) {
+                seatMap.assignSeat(random.nextInt(500));
+            }
+        }
+
+        @Override
+        public long run(long iteration) {
+            int[] seats = seatMap.assign(groupSize);
+            return seatMap.release(seats);
+        }
+    }
+
+    /**
+     * Changes the ground speed, which recomputes the block time and arrival of every scheduled flight in parallel.
+     */
+    static final class RecomputeEtas implements BenchmarkCase {
+        private EtaService etaService;
+
+        @Override
+        public void setUp(int size) {
+            FlightScheduler scheduler = new FlightScheduler();
+            for (Flight flight : new WorkloadGenerator(size).generateFlights(size)) {
+                scheduler.addFlight(flight);
+            }
+            etaService = new EtaService(scheduler);
+        }
+
+        @Override
+        public long run(long iteration) {
+            return etaService.setSpeedModel(440 + (iteration & 15), 0);
+        }
+    }
+
+    /**
+     * Times and records an operation on one of the given number of operation stats, the cost added to every
+     * instrumented call. Run with -Dairline.metrics=false to see the cost with metrics disabled.
+     */
+    static final class RecordMetrics implements BenchmarkCase {
+        private OperationStats[] stats;
+
+        @Override
+        public void setUp(int size) {
+            stats = Metrics.getOperations().subList(0, Math.min(size, Metrics.getOperations().size()))
+                    .toArray(new OperationStats[0]);
+        }
+
+        @Override
+        public long run(long iteration) {
+            long start = Metrics.start();
+            stats[(int) (iteration % stats.length)].record(start, (iteration & 7) != 0);
+            return start;
+        }
+    }
+}
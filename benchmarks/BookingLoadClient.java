@@ -0,0 +1,120 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Drives a BookingServer on the loopback interface with a mix of flight
+ * lookups, route searches, bookings and cancellations, keeping a fixed number
+ * of requests in flight, and reports throughput, latency percentiles and the
+ * share of requests turned away with 503.
+ * <p>
+ * Usage: java BookingLoadClient [requests] [in flight] [max concurrent] [max queued]
+ * (defaults: 200000 requests, 1024 in flight, server limits 256 and 4096).
+ * The server runs in the same JVM on a generated workload of 10000 flights and
+ * 100000 customers.
+ * </p>
+ */
+public class BookingLoadClient {
+    private static final int NUM_OF_FLIGHTS = 10_000;
+    private static final int NUM_OF_CUSTOMERS = 100_000;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int numOfRequests = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int inFlight = args.length > 1 ? Integer.parseInt(args[1]) : 1024;
+        int maxConcurrent = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+        int maxQueued = args.length > 3 ? Integer.parseInt(args[3]) : 4096;
+
+        Workload workload = new WorkloadGenerator(42).generate(NUM_OF_FLIGHTS, NUM_OF_CUSTOMERS, 0, 1.0);
+        AirlineState state = new AirlineState();
+        workload.loadInto(state.getFlightScheduler(), state.getCustomerRepository());
+        Flight[] flights = workload.getFlights().toArray(new Flight[0]);
+        Customer[] customers = workload.getCustomers().toArray(new Customer[0]);
+
+        try (BookingServer server = BookingServer.start(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), state, maxConcurrent, maxQueued)) {
+            String base = "http://127.0.0.1:" + server.getPort();
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10)).build();
+            for (int round = 0; round < 2; round++) {
+                boolean warmUp = round == 0;
+                int count = warmUp ? Math.min(numOfRequests, 20_000) : numOfRequests;
+                run(client, base, flights, customers, count, inFlight, warmUp, server);
+            }
+        }
+    }
+
+    private static void run(HttpClient client, String base, Flight[] flights, Customer[] customers, int numOfRequests,
+                            int inFlight, boolean warmUp, BookingServer server) throws InterruptedException {
+        SplittableRandom random = new SplittableRandom(numOfRequests);
+        Semaphore permits = new Semaphore(inFlight);
+        long[] latencies = new long[numOfRequests];
+        AtomicLongArray statusCounts = new AtomicLongArray(6); // Responses by status class; 0 counts failures
+        long rejectedBefore = server.getRejectedRequests();
+        long start = System.nanoTime();
+        for (int i = 0; i < numOfRequests; i++) {
+            HttpRequest request = nextRequest(random, base, flights, customers);
+            permits.acquire();
+            int index = i;
+            long sent = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+                latencies[index] = System.nanoTime() - sent;
+                statusCounts.incrementAndGet(failure == null ? response.statusCode() / 100 : 0);
+                permits.release();
+            });
+        }
+        permits.acquire(inFlight);
+        long elapsed = System.nanoTime() - start;
+        if (warmUp) {
+            return;
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%,d requests, %,d in flight: %,.0f requests/sec%n", numOfRequests, inFlight,
+                numOfRequests * 1e9 / elapsed);
+        System.out.printf("Latency p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms%n",
+                percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999),
+                latencies[latencies.length - 1] / 1e6);
+        System.out.printf("2xx %,d, 4xx %,d, 5xx %,d (%,d turned away), failed %,d%n", statusCounts.get(2),
+                statusCounts.get(4), statusCounts.get(5), server.getRejectedRequests() - rejectedBefore,
+                statusCounts.get(0));
+    }
+
+    /**
+     * Builds the next request: half flight lookups, a fifth route searches and the rest bookings and cancellations.
+     */
+    private static HttpRequest nextRequest(SplittableRandom random, String base, Flight[] flights,
+                                           Customer[] customers) {
+        Flight flight = flights[random.nextInt(flights.length)];
+        int kind = random.nextInt(10);
+        if (kind < 5) {
+            return HttpRequest.newBuilder(URI.create(base + "/flights/" + flight.getFlightNumber())).build();
+        }
+        if (kind < 7) {
+            Flight other = flights[random.nextInt(flights.length)];
+            return HttpRequest.newBuilder(URI.create(base + "/routes?from=" + encode(flight.getFromWhichCity())
+                    + "&to=" + encode(other.getToWhichCity()))).build();
+        }
+        Customer customer = customers[random.nextInt(customers.length)];
+        String form = "flight=" + encode(flight.getFlightNumber()) + "&passport=P" + customer.getUserID()
+                + "&userID=" + customer.getUserID() + "&password=" + encode(customer.getPassword()) + "&tickets=1";
+        return HttpRequest.newBuilder(URI.create(base + (kind < 9 ? "/bookings" : "/bookings/cancel")))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form)).build();
+    }
+
+    private static String encode(String value) {
+        return java.net.URLEncoder.encode(value, java.nio.charset.StandardCharsets.UTF_8);
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * fraction))] / 1e6;
+    }
+}
@@ -0,0 +1,78 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Measures BulkLoader throughput for CSV and binary input.
+ * <p>
+ * Usage: java BulkLoadBenchmark [customers] [flights]
+ * (defaults: 1000000 customers, 100000 flights).
+ * The files are generated in a temporary directory, loaded as CSV into empty
+ * stores, written back out in the binary format and loaded again from that.
+ * </p>
+ */
+public class BulkLoadBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int numOfCustomers = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int numOfFlights = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        Path directory = Files.createTempDirectory("bulk-load");
+        try {
+            Path customersCsv = directory.resolve("customers.csv");
+            Path flightsCsv = directory.resolve("flights.csv");
+            Path binary = directory.resolve("airline.bin");
+            writeCustomersCsv(customersCsv, numOfCustomers);
+            writeFlightsCsv(flightsCsv, numOfFlights);
+            System.out.printf("Generated %,d customers (%,d KB) and %,d flights (%,d KB)%n", numOfCustomers,
+                    Files.size(customersCsv) / 1024, numOfFlights, Files.size(flightsCsv) / 1024);
+
+            FlightScheduler flightScheduler = new FlightScheduler();
+            CustomerRepository customerRepository = new CustomerRepository();
+            BulkLoader loader = new BulkLoader(flightScheduler, customerRepository);
+            System.out.println(loader.loadFlightsCsv(flightsCsv));
+            System.out.println(loader.loadCustomersCsv(customersCsv));
+
+            BulkLoader.writeBinary(binary, flightScheduler.getFlightList(), customerRepository.asList());
+            System.out.printf("Binary file: %,d KB%n", Files.size(binary) / 1024);
+            BulkLoader binaryLoader = new BulkLoader(new FlightScheduler(), new CustomerRepository());
+            System.out.println(binaryLoader.loadBinary(binary));
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    private static void writeCustomersCsv(Path file, int numOfCustomers) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("userID,name,email,password,phone,address,age\n");
+            for (int i = 0; i < numOfCustomers; i++) {
+                writer.write(Integer.toString(20000 + i));
+                writer.write(",Customer " + i + ",customer" + i + "@example.com,password" + i + ",0300-" + i);
+                writer.write(",\"" + i + " Main Street, Apt " + i % 100 + "\"," + (18 + i % 60) + "\n");
+            }
+        }
+    }
+
+    private static void writeFlightsCsv(Path file, int numOfFlights) throws IOException {
+        RouteDistanceMatrix matrix = RouteDistanceMatrix.getInstance();
+        int numOfCities = matrix.getNumOfCities();
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("flightNumber,fromWhichCity,toWhichCity,gate,distanceInMiles,distanceInKm,flightTime,numOfSeats\n");
+            for (int i = 0; i < numOfFlights; i++) {
+                int from = i % numOfCities;
+                int to = (from + 1 + i / numOfCities % (numOfCities - 1)) % numOfCities;
+                // Every other row leaves the distances empty so the loader computes them
+                String distances = i % 2 == 0 ? "," : matrix.distanceInMiles(from, to) + "," + matrix.distanceInKm(from, to);
+                writer.write("FL-" + i + "," + matrix.getCityName(from) + "," + matrix.getCityName(to) + ",G" + i % 40
+                        + "," + distances + ",3:30," + (75 + i % 425) + "\n");
+            }
+        }
+    }
+}
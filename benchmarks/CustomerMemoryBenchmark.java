@@ -0,0 +1,136 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Compares the heap used per customer, and the lookup speed, of the
+ * object-per-customer CustomerRepository, the ColumnarCustomerStore and the
+ * OffHeapCustomerStore, and times reopening the off-heap store from a file.
+ * <p>
+ * Usage: java CustomerMemoryBenchmark [customers]
+ * (default: 900000, the generator's limit is 980000).
+ * Customers come from the WorkloadGenerator, so names, email domains and
+ * cities repeat as they would in real data. Heap use is measured after
+ * forcing garbage collections, so run it with a heap large enough to hold
+ * both layouts and without other load, e.g. -Xmx4g.
+ * </p>
+ */
+public class CustomerMemoryBenchmark {
+    private static final int NUM_OF_LOOKUPS = 1 << 20;
+
+    public static void main(String[] args) throws IOException {
+        int numOfCustomers = args.length > 0 ? Integer.parseInt(args[0]) : 900_000;
+        WorkloadGenerator generator = new WorkloadGenerator(42);
+
+        long before = usedHeap();
+        CustomerRepository repository = loadRepository(generator, numOfCustomers);
+        long repositoryBytes = usedHeap() - before;
+        report("CustomerRepository", numOfCustomers, repositoryBytes);
+
+        before = usedHeap();
+        ColumnarCustomerStore store = loadStore(generator, numOfCustomers);
+        long storeBytes = usedHeap() - before;
+        report("ColumnarCustomerStore", numOfCustomers, storeBytes);
+        System.out.printf("The columnar store uses %.1fx less heap, with %,d dictionary strings%n",
+                (double) repositoryBytes / storeBytes, store.getDictionarySize());
+
+        Path file = Files.createTempFile("customers", ".store");
+        Files.delete(file);
+        before = usedHeap();
+        OffHeapCustomerStore offHeapStore = loadOffHeapStore(generator, numOfCustomers, file);
+        report("OffHeapCustomerStore", numOfCustomers, usedHeap() - before);
+        System.out.printf("The off-heap store maps %,d MB, %,d bytes/customer%n",
+                offHeapStore.getSizeInBytes() / (1024 * 1024), offHeapStore.getSizeInBytes() / numOfCustomers);
+
+        String[] userIDs = new String[NUM_OF_LOOKUPS];
+        String[] emails = new String[NUM_OF_LOOKUPS];
+        Random random = new Random(numOfCustomers);
+        for (int i = 0; i < NUM_OF_LOOKUPS; i++) {
+            Customer customer = repository.asList().get(random.nextInt(numOfCustomers));
+            userIDs[i] = customer.getUserID();
+            emails[i] = customer.getEmail();
+        }
+        for (int round = 0; round < 3; round++) {
+            boolean warmUp = round < 2;
+            timeLookups("CustomerRepository.findByUserID", warmUp, userIDs, repository::findByUserID);
+            timeLookups("ColumnarCustomerStore.findByUserID", warmUp, userIDs, store::findByUserID);
+            timeLookups("OffHeapCustomerStore.findByUserID", warmUp, userIDs, offHeapStore::findByUserID);
+            timeLookups("CustomerRepository.findByEmail", warmUp, emails, repository::findByEmail);
+            timeLookups("ColumnarCustomerStore.findByEmail", warmUp, emails, store::findByEmail);
+            timeLookups("OffHeapCustomerStore.findByEmail", warmUp, emails, offHeapStore::findByEmail);
+        }
+
+        offHeapStore.close();
+        long start = System.nanoTime();
+        OffHeapCustomerStore reopened = OffHeapCustomerStore.open(file, 0, 0);
+        Customer first = reopened.findByEmail(emails[0]);
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("Reopened %,d customers and found %s in %,.2f ms%n", reopened.size(),
+                first == null ? "nobody" : first.getUserID(), elapsed / 1e6);
+        reopened.close();
+        Files.delete(file);
+    }
+
+    /**
+     * Loads the customers in a method of its own, so that the generated array is garbage once it returns.
+     */
+    private static CustomerRepository loadRepository(WorkloadGenerator generator, int numOfCustomers) {
+        CustomerRepository repository = new CustomerRepository();
+        for (Customer customer : generator.generateCustomers(numOfCustomers)) {
+            repository.add(customer);
+        }
+        return repository;
+    }
+
+    private static ColumnarCustomerStore loadStore(WorkloadGenerator generator, int numOfCustomers) {
+        ColumnarCustomerStore store = new ColumnarCustomerStore();
+        for (Customer customer : generator.generateCustomers(numOfCustomers)) {
+            store.add(customer);
+        }
+        return store;
+    }
+
+    private static OffHeapCustomerStore loadOffHeapStore(WorkloadGenerator generator, int numOfCustomers, Path file)
+            throws IOException {
+        OffHeapCustomerStore store = OffHeapCustomerStore.open(file, numOfCustomers, 0);
+        for (Customer customer : generator.generateCustomers(numOfCustomers)) {
+            store.add(customer);
+        }
+        return store;
+    }
+
+    private interface Lookup {
+        Customer find(String key);
+    }
+
+    private static void timeLookups(String name, boolean warmUp, String[] keys, Lookup lookup) {
+        long found = 0;
+        long start = System.nanoTime();
+        for (String key : keys) {
+            Customer customer = lookup.find(key);
+            if (customer != null && customer.getAge() > 0) {
+                found++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (!warmUp) {
+            System.out.printf("%-36s %,8.1f ns/lookup (%,d found)%n", name, (double) elapsed / keys.length, found);
+        }
+    }
+
+    private static void report(String name, int numOfCustomers, long bytes) {
+        System.out.printf("%-22s %,d customers: %,d MB, %,d bytes/customer%n", name, numOfCustomers,
+                bytes / (1024 * 1024), bytes / numOfCustomers);
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,92 @@
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures passenger login throughput of RolesAndPermissions against a large
+ * number of registered customers.
+ * <p>
+ * Usage: java LoginBenchmark [customers] [threads] [seconds]
+ * (defaults: 1000000 customers, one thread per core, 10 seconds).
+ * Every fourth attempt uses a wrong password and every eighth an unknown email,
+ * so both the accepting and the rejecting path are measured.
+ * </p>
+ */
+public class LoginBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int numOfCustomers = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int numOfThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        long loadStart = System.nanoTime();
+        for (int i = 0; i < numOfCustomers; i++) {
+            Customer.customerRepository.add(new Customer(Integer.toString(20000 + i), "Customer " + i,
+                    email(i), "password" + i, "0300-" + i, "Street " + i, 18 + i % 60));
+        }
+        System.out.printf("Registered %,d customers in %d ms%n", Customer.customerRepository.size(),
+                (System.nanoTime() - loadStart) / 1_000_000);
+
+        RolesAndPermissions roles = new RolesAndPermissions();
+        // Warm up the login path before measuring.
+        runLogins(roles, numOfCustomers, numOfThreads, 2_000_000_000L);
+
+        LongAdder attempts = new LongAdder();
+        LongAdder accepted = new LongAdder();
+        Thread[] workers = new Thread[numOfThreads];
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        for (int t = 0; t < numOfThreads; t++) {
+            workers[t] = new Thread(() -> {
+                long localAttempts = runLoginsUntil(roles, numOfCustomers, deadline, accepted);
+                attempts.add(localAttempts);
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        System.out.printf("%d thread(s): %,d logins in %d s = %,.0f logins/sec (%,d accepted)%n",
+                numOfThreads, attempts.sum(), seconds, attempts.sum() / (double) seconds, accepted.sum());
+    }
+
+    private static void runLogins(RolesAndPermissions roles, int numOfCustomers, int numOfThreads, long nanos)
+            throws InterruptedException {
+        Thread[] workers = new Thread[numOfThreads];
+        long deadline = System.nanoTime() + nanos;
+        LongAdder accepted = new LongAdder();
+        for (int t = 0; t < numOfThreads; t++) {
+            workers[t] = new Thread(() -> runLoginsUntil(roles, numOfCustomers, deadline, accepted));
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    private static long runLoginsUntil(RolesAndPermissions roles, int numOfCustomers, long deadline, LongAdder accepted) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long attempts = 0;
+        long localAccepted = 0;
+        // Pre-build the credentials so string building is not part of what is measured.
+        int poolSize = Math.min(numOfCustomers, 1 << 16);
+        String[] emails = new String[poolSize];
+        String[] passwords = new String[poolSize];
+        for (int i = 0; i < poolSize; i++) {
+            int customer = random.nextInt(numOfCustomers);
+            emails[i] = i % 8 == 7 ? "unknown" + customer + "@example.com" : email(customer);
+            passwords[i] = i % 4 == 3 ? "wrong" : "password" + customer;
+        }
+        while ((attempts & 1023) != 0 || System.nanoTime() < deadline) {
+            int i = (int) (attempts % poolSize);
+            if (roles.authenticatePassenger(emails[i], passwords[i]).isAuthenticated()) {
+                localAccepted++;
+            }
+            attempts++;
+        }
+        accepted.add(localAccepted);
+        return attempts;
+    }
+
+    private static String email(int i) {
+        return "customer" + i + "@example.com";
+    }
+}
@@ -0,0 +1,114 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hammers one small SeatMap from many threads that assign groups, single
+ * seats and blocks and free them again, and checks that no seat is ever
+ * held by two threads, that assign() never fails while its count is
+ * reserved, and that every seat is free again at the end.
+ * <p>
+ * Usage: java SeatMapStressTest [seats] [threads] [operations per thread]
+ * (defaults: 60 seats, 8 threads, 2000000 operations). Exits with status 1
+ * if a check fails.
+ * </p>
+ */
+public class SeatMapStressTest {
+
+    public static void main(String[] args) throws InterruptedException {
+        int numOfSeats = args.length > 0 ? Integer.parseInt(args[0]) : 60;
+        int numOfThreads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int numOfOperations = args.length > 2 ? Integer.parseInt(args[2]) : 2_000_000;
+
+        SeatMap seatMap = new SeatMap(CabinLayout.forCapacity(numOfSeats));
+        int capacity = seatMap.getFreeSeats();
+        AtomicIntegerArray owners = new AtomicIntegerArray(capacity); // Thread holding each seat, 0 if free
+        AtomicReference<String> failure = new AtomicReference<>();
+        AtomicLong assigned = new AtomicLong();
+        AtomicLong refused = new AtomicLong();
+
+        Thread[] workers = new Thread[numOfThreads];
+        for (int t = 0; t < numOfThreads; t++) {
+            int owner = t + 1;
+            workers[t] = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(owner);
+                int[] held = new int[capacity];
+                int numOfHeld = 0;
+                for (int i = 0; i < numOfOperations && failure.get() == null; i++) {
+                    try {
+                        if (numOfHeld > 0 && random.nextInt(3) == 0) {
+                            // Free a random part of what is held, from the end
+                            int numOfFreed = 1 + random.nextInt(numOfHeld);
+                            int[] freed = new int[numOfFreed];
+                            for (int k = 0; k < numOfFreed; k++) {
+                                freed[k] = held[--numOfHeld];
+                                if (!owners.compareAndSet(freed[k], owner, 0)) {
+                                    failure.compareAndSet(null, "Seat " + freed[k] + " changed hands while held");
+                                }
+                            }
+                            if (seatMap.release(freed) != numOfFreed) {
+                                failure.compareAndSet(null, "Held seats were not all assigned: " + numOfFreed);
+                            }
+                            continue;
+                        }
+                        int[] seats;
+                        int kind = random.nextInt(3);
+                        if (kind == 0) {
+                            seats = seatMap.assign(1 + random.nextInt(8));
+                        } else if (kind == 1) {
+                            int size = 1 + random.nextInt(3);
+                            int first = seatMap.assignBlock(size);
+                            seats = first < 0 ? null : new int[size];
+                            for (int k = 0; seats != null && k < size; k++) {
+                                seats[k] = first + k;
+                            }
+                        } else {
+                            int seat = random.nextInt(capacity);
+                            seats = seatMap.assignSeat(seat) ? new int[]{seat} : null;
+                        }
+                        if (seats == null) {
+                            refused.incrementAndGet();
+                            continue;
+                        }
+                        for (int seat : seats) {
+                            if (!owners.compareAndSet(seat, 0, owner)) {
+                                failure.compareAndSet(null, "Seat " + seat + " assigned twice");
+                            }
+                            held[numOfHeld++] = seat;
+                        }
+                        assigned.addAndGet(seats.length);
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e.toString());
+                    }
+                }
+                for (int k = 0; k < numOfHeld; k++) {
+                    owners.set(held[k], 0);
+                }
+                if (numOfHeld > 0) {
+                    seatMap.release(Arrays.copyOf(held, numOfHeld));
+                }
+            });
+        }
+        long start = System.nanoTime();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        if (failure.get() == null && seatMap.getFreeSeats() != capacity) {
+            failure.set("Free seats at the end: " + seatMap.getFreeSeats() + " of " + capacity);
+        }
+        System.out.printf("%d seats, %d threads: %,d seats assigned, %,d requests refused in %.1f ms%n",
+                capacity, numOfThreads, assigned.get(), refused.get(), elapsed / 1e6);
+        if (failure.get() != null) {
+            System.out.println("FAILED: " + failure.get());
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+}
@@ -0,0 +1,108 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Books seats, takes a checkpoint, books and cancels some more, and restarts
+ * from the directory, checking that every passenger gets back exactly the
+ * seats they held and that filling the rest of the plane after the restart
+ * never assigns a seat twice.
+ * <p>
+ * Usage: java SeatPersistenceRestartTest [seats] (default: 60). Exits with
+ * status 1 if a check fails.
+ * </p>
+ */
+public class SeatPersistenceRestartTest {
+    private static final String FLIGHT_NUMBER = "SR-101";
+
+    public static void main(String[] args) throws IOException {
+        int numOfSeats = args.length > 0 ? Integer.parseInt(args[0]) : 60;
+        Path directory = Files.createTempDirectory("seat-restart");
+        List<String> failures = new ArrayList<>();
+        try {
+            Map<String, int[]> seatsBefore = new HashMap<>();
+            try (BookingPersistence persistence = BookingPersistence.open(directory, new AirlineState())) {
+                AirlineState state = persistence.getState();
+                Flight flight = new Flight(FLIGHT_NUMBER, "Lahore", "Dubai", "A1", 1200, 1931, "03:10", numOfSeats);
+                state.getFlightScheduler().addFlight(flight);
+                FlightReservation reservation = state.getFlightReservation();
+                List<Passenger> passengers = new ArrayList<>();
+                for (int i = 0; i < 10; i++) {
+                    Passenger passenger = state.registerPassenger(new Passenger("user" + i, "user" + i + "@mail.com",
+                            "secret", "User " + i, "555-000" + i, "Street " + i, 30, "PP" + i));
+                    passengers.add(passenger);
+                    if (i == 5) {
+                        persistence.checkpoint();
+                    }
+                    if (reservation.tryBookSeats(flight, passenger, 1 + i % 3) == null) {
+                        failures.add("Could not book seats for " + passenger.getPassportNumber());
+                    }
+                }
+                // A count-only cancel and a seat cancel after the checkpoint
+                reservation.tryCancel(flight, passengers.get(2), 1);
+                reservation.tryCancelSeats(flight, passengers.get(7), new int[]{flight.getSeats(passengers.get(7))[0]});
+                for (Passenger passenger : passengers) {
+                    seatsBefore.put(passenger.getPassportNumber(), sorted(flight.getSeats(passenger)));
+                }
+            }
+
+            try (BookingPersistence persistence = BookingPersistence.open(directory, new AirlineState())) {
+                AirlineState state = persistence.getState();
+                Flight flight = state.getFlightScheduler().lookupFlight(FLIGHT_NUMBER);
+                Map<Integer, String> owners = new HashMap<>();
+                for (Map.Entry<String, int[]> entry : seatsBefore.entrySet()) {
+                    Passenger passenger = state.findPassenger(entry.getKey());
+                    int[] seats = passenger == null ? new int[0] : sorted(flight.getSeats(passenger));
+                    if (!Arrays.equals(seats, entry.getValue())) {
+                        failures.add(entry.getKey() + " held " + Arrays.toString(entry.getValue())
+                                + " but got " + Arrays.toString(seats) + " back");
+                    }
+                    claim(owners, seats, entry.getKey(), failures);
+                }
+                Passenger latecomer = state.registerPassenger(new Passenger("late", "late@mail.com", "secret",
+                        "Late Comer", "555-0100", "Late Street", 40, "PP-LATE"));
+                int[] seats;
+                while ((seats = state.getFlightReservation().tryBookSeats(flight, latecomer, 1)) != null) {
+                    claim(owners, seats, latecomer.getPassportNumber(), failures);
+                }
+                if (owners.size() != numOfSeats) {
+                    failures.add("Seats held after filling the plane: " + owners.size() + " of " + numOfSeats);
+                }
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            failures.forEach(failure -> System.out.println("FAILED: " + failure));
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    private static void claim(Map<Integer, String> owners, int[] seats, String passport, List<String> failures) {
+        for (int seat : seats) {
+            String owner = owners.putIfAbsent(seat, passport);
+            if (owner != null) {
+                failures.add("Seat " + seat + " assigned to both " + owner + " and " + passport);
+            }
+        }
+    }
+
+    private static int[] sorted(int[] seats) {
+        int[] copy = seats.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+}